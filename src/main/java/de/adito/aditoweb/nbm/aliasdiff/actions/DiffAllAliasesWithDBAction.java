@@ -0,0 +1,40 @@
+package de.adito.aditoweb.nbm.aliasdiff.actions;
+
+import de.adito.aditoweb.nbm.aliasdiff.impl.IAliasDiffFacade;
+import lombok.NonNull;
+import org.netbeans.api.project.Project;
+import org.openide.awt.*;
+import org.openide.util.Lookup;
+
+import java.awt.event.*;
+
+/**
+ * Starts the "Diff Alias <> DB" Workflow for all aliases of the selected project at once
+ *
+ * @author agent, 17.10.2026
+ * @see IAliasDiffFacade#executeProjectDatabaseDiffWithGUI(Project)
+ */
+@ActionID(category = "Tools", id = "de.adito.aditoweb.nbm.aliasdiff.actions.DiffAllAliasesWithDBAction")
+@ActionRegistration(displayName = "#NAME_DiffAllAliasesWithDBAction")
+@ActionReference(path = "Menu/Tools")
+public class DiffAllAliasesWithDBAction implements ActionListener
+{
+
+  private final IAliasDiffFacade aliasDiffFacade = Lookup.getDefault().lookup(IAliasDiffFacade.class);
+  private final Project project;
+
+  /**
+   * @param pProject the currently selected project
+   */
+  public DiffAllAliasesWithDBAction(@NonNull Project pProject)
+  {
+    project = pProject;
+  }
+
+  @Override
+  public void actionPerformed(ActionEvent pEvent)
+  {
+    aliasDiffFacade.executeProjectDatabaseDiffWithGUI(project);
+  }
+
+}
@@ -0,0 +1,99 @@
+package de.adito.aditoweb.nbm.aliasdiff.dialog;
+
+import de.adito.propertly.core.spi.*;
+import lombok.*;
+
+import java.util.*;
+import java.util.logging.*;
+
+/**
+ * Wraps another filter and caches its results per {@link IPropertyDescription}, as long as the wrapped filter
+ * declares them as cacheable via {@link IPropertyFilter#isCacheable(IProperty)}.
+ * The matcher tests every property on both sides, so most of the (reflective) checks of the wrapped filter are answered from the cache.
+ * Not thread safe, every comparison should use its own instance.
+ *
+ * @author agent, 17.10.2026
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class CachingPropertyFilter implements IPropertyFilter
+{
+  private static final Logger LOGGER = Logger.getLogger(CachingPropertyFilter.class.getName());
+
+  /**
+   * Filter, whose results are cached
+   */
+  @Getter
+  @NonNull
+  private final IPropertyFilter delegate;
+
+  /**
+   * Cached results, keyed by the identity of the description
+   */
+  private final Map<IPropertyDescription<?, ?>, Boolean> results = new IdentityHashMap<>();
+
+  // Statistics of the cache
+  private long hits;
+  private long misses;
+
+  /**
+   * Wraps the given filter, if it is not already cached
+   *
+   * @param pFilter Filter to wrap
+   * @return the caching filter
+   */
+  @NonNull
+  public static CachingPropertyFilter of(@NonNull IPropertyFilter pFilter)
+  {
+    if (pFilter instanceof CachingPropertyFilter)
+      return (CachingPropertyFilter) pFilter;
+    return new CachingPropertyFilter(pFilter);
+  }
+
+  @Override
+  public boolean test(@NonNull IProperty<?, ?> pProperty)
+  {
+    if (!delegate.isCacheable(pProperty))
+      return delegate.test(pProperty);
+
+    IPropertyDescription<?, ?> description = pProperty.getDescription();
+    Boolean result = results.get(description);
+    if (result != null)
+    {
+      hits++;
+      return result;
+    }
+
+    misses++;
+    boolean test = delegate.test(pProperty);
+    results.put(description, test);
+    return test;
+  }
+
+  @Override
+  public boolean isCacheable(@NonNull IProperty<?, ?> pProperty)
+  {
+    return delegate.isCacheable(pProperty);
+  }
+
+  @Override
+  public void reset()
+  {
+    // cacheable results do not depend on the state of the delegate, so they are kept
+    delegate.reset();
+  }
+
+  /**
+   * Logs the hit rate of the cache
+   *
+   * @param pContext Name of the comparison, that used this filter
+   */
+  public void logStatistics(@NonNull String pContext)
+  {
+    LOGGER.log(Level.FINE, () -> {
+      long total = hits + misses;
+      return String.format("Property filter cache of %s: %d hits, %d misses, %d descriptions (%.1f%% hit rate)",
+                           pContext, hits, misses, results.size(), total == 0 ? 0d : hits * 100d / total);
+    });
+  }
+
+}
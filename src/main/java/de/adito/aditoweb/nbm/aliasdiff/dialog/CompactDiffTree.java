@@ -0,0 +1,367 @@
+package de.adito.aditoweb.nbm.aliasdiff.dialog;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.diffimpl.*;
+import de.adito.propertly.core.spi.IHierarchy;
+import lombok.*;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.tree.TreeNode;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Filtered view of a diff tree, that stores its structure in int arrays instead of a tree of {@link DiffFilterNode}s.
+ * Every node of the view has a position. The parent and the children of a position are stored as positions too,
+ * the children of a node are always stored next to each other. Only the root may get further children,
+ * while the original tree is still being created, see {@link #appendChildren(List)}. The original nodes, and therefore their pairs,
+ * are stored in a side array. The {@link TreeNode} instances of the view are created on first access only
+ * and just consist of their position, so nodes that are never displayed do not cost more than a few array slots.
+ *
+ * @author agent, 17.10.2026
+ * @see ITreeNodeFilter#flattenChild(TreeNode)
+ */
+public class CompactDiffTree
+{
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int NOT_CREATED = -1;
+
+  @NonNull
+  private final ITreeNodeFilter filter;
+
+  // position of the parent, -1 for the root
+  private int[] parents = new int[INITIAL_CAPACITY];
+  // position of the first child, the other children follow directly after it
+  private int[] firstChildren = new int[INITIAL_CAPACITY];
+  // count of children, NOT_CREATED if the children were not created yet
+  private int[] childCounts = new int[INITIAL_CAPACITY];
+  // original node of every position
+  private IDiffNode[] originals = new IDiffNode[INITIAL_CAPACITY];
+  // view nodes, created on first access
+  private Node[] nodes = new Node[INITIAL_CAPACITY];
+  private int size;
+  // positions of the children, that were appended to the root after its children were created
+  private final List<Integer> appendedRootChildren = new ArrayList<>();
+
+  private CompactDiffTree(@NonNull ITreeNodeFilter pFilter)
+  {
+    filter = pFilter;
+  }
+
+  /**
+   * Creates the view of the given tree.
+   * The children of a node are filtered on first access only, so that collapsed parts of the tree are never added to the view.
+   * Children of original nodes, that are not loaded yet, are created on expansion.
+   *
+   * @param pRoot   Root of the tree to display
+   * @param pFilter Filter, that decides which original nodes are displayed as children
+   * @return the view
+   */
+  @NonNull
+  public static CompactDiffTree of(@NonNull IDiffNode pRoot, @NonNull ITreeNodeFilter pFilter)
+  {
+    CompactDiffTree tree = new CompactDiffTree(pFilter);
+    tree.add(pRoot, -1);
+    return tree;
+  }
+
+  /**
+   * @return the root of the view
+   */
+  @NonNull
+  public Node getRoot()
+  {
+    return getNode(0);
+  }
+
+  /**
+   * @return the count of nodes, that were added to the view so far
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Appends the given original nodes as children of the root, after they were added to the original tree.
+   * The nodes have to be new children of the original root, or of one of its children, that the filter flattens.
+   * The children of the root are stored next to each other, so the appended nodes are always displayed after the existing children.
+   *
+   * @param pOriginals original nodes, that were added to the original tree
+   * @return the indices of the appended children of the root, empty if the children of the root were not created yet
+   */
+  @NonNull
+  public int[] appendChildren(@NonNull List<? extends TreeNode> pOriginals)
+  {
+    // the children of the root are filtered on first access, so they will contain the new nodes anyway
+    if (childCounts[0] == NOT_CREATED)
+      return new int[0];
+
+    List<TreeNode> children = new ArrayList<>();
+    for (TreeNode original : pOriginals)
+      children.addAll(filter.flattenChild(original));
+
+    int[] indices = new int[children.size()];
+    for (int i = 0; i < children.size(); i++)
+    {
+      indices[i] = getChildCount(0);
+      appendedRootChildren.add(size);
+      add((IDiffNode) children.get(i), 0);
+    }
+    return indices;
+  }
+
+  /**
+   * @param pPosition Position of the node
+   * @return the count of children, 0 if the original node is not loaded yet
+   */
+  int getChildCount(int pPosition)
+  {
+    createChildren(pPosition);
+    int count = Math.max(0, childCounts[pPosition]);
+    return pPosition == 0 ? count + appendedRootChildren.size() : count;
+  }
+
+  /**
+   * @param pPosition Position of the node
+   * @param pIndex    Index of the child
+   * @return the position of the child
+   */
+  private int getChildPosition(int pPosition, int pIndex)
+  {
+    int count = Math.max(0, childCounts[pPosition]);
+    return pIndex < count ? firstChildren[pPosition] + pIndex : appendedRootChildren.get(pIndex - count);
+  }
+
+  /**
+   * @param pPosition Position of the node
+   * @return the view node of the given position
+   */
+  @NonNull
+  Node getNode(int pPosition)
+  {
+    Node node = nodes[pPosition];
+    if (node == null)
+    {
+      node = new Node(pPosition);
+      nodes[pPosition] = node;
+    }
+    return node;
+  }
+
+  /**
+   * Adds a new position without children
+   *
+   * @param pOriginal Original node of the position
+   * @param pParent   Position of the parent, -1 for the root
+   */
+  private void add(@NonNull IDiffNode pOriginal, int pParent)
+  {
+    if (size == parents.length)
+    {
+      int capacity = size * 2;
+      parents = Arrays.copyOf(parents, capacity);
+      firstChildren = Arrays.copyOf(firstChildren, capacity);
+      childCounts = Arrays.copyOf(childCounts, capacity);
+      originals = Arrays.copyOf(originals, capacity);
+      nodes = Arrays.copyOf(nodes, capacity);
+    }
+
+    parents[size] = pParent;
+    childCounts[size] = NOT_CREATED;
+    originals[size] = pOriginal;
+    size++;
+  }
+
+  /**
+   * Filters the children of the original node of the given position and appends them, if this was not done yet
+   *
+   * @param pPosition Position, whose children should be created
+   */
+  private void createChildren(int pPosition)
+  {
+    IDiffNode original = originals[pPosition];
+    if (childCounts[pPosition] != NOT_CREATED || !original.isLoaded())
+      return;
+
+    List<TreeNode> children = new ArrayList<>();
+    for (int i = 0; i < original.getChildCount(); i++)
+      children.addAll(filter.flattenChild(original.getChildAt(i)));
+
+    firstChildren[pPosition] = size;
+    childCounts[pPosition] = children.size();
+    for (TreeNode child : children)
+      add((IDiffNode) child, pPosition);
+  }
+
+  /**
+   * A single node of the view, that passes all method calls to the original node of its position
+   */
+  @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+  public class Node implements IDiffNode
+  {
+    private final int position;
+
+    /**
+     * @return the view, that contains this node
+     */
+    @NonNull
+    public CompactDiffTree getTree()
+    {
+      return CompactDiffTree.this;
+    }
+
+    @NonNull
+    @Override
+    public IDiffNode getOriginal()
+    {
+      return originals[position];
+    }
+
+    @Override
+    public boolean isLoaded()
+    {
+      return getOriginal().isLoaded();
+    }
+
+    @Override
+    public void load()
+    {
+      getOriginal().load();
+      createChildren(position);
+    }
+
+    @Override
+    public TreeNode getChildAt(int pChildIndex)
+    {
+      if (pChildIndex < 0 || pChildIndex >= getChildCount())
+        throw new ArrayIndexOutOfBoundsException(pChildIndex);
+      return getNode(getChildPosition(position, pChildIndex));
+    }
+
+    @Override
+    public int getChildCount()
+    {
+      return CompactDiffTree.this.getChildCount(position);
+    }
+
+    @Nullable
+    @Override
+    public TreeNode getParent()
+    {
+      int parent = parents[position];
+      return parent < 0 ? null : getNode(parent);
+    }
+
+    @Override
+    public int getIndex(TreeNode pNode)
+    {
+      if (!(pNode instanceof Node) || ((Node) pNode).getTree() != getTree() || parents[((Node) pNode).position] != position)
+        return -1;
+
+      int child = ((Node) pNode).position;
+      // appended positions are ascending, because new positions are always added at the end
+      int appended = position == 0 ? Collections.binarySearch(appendedRootChildren, child) : -1;
+      return appended < 0 ? child - firstChildren[position] : childCounts[position] + appended;
+    }
+
+    @Override
+    public boolean getAllowsChildren()
+    {
+      return !isLoaded() || getChildCount() > 0;
+    }
+
+    @Override
+    public boolean isLeaf()
+    {
+      return getChildCount() == 0;
+    }
+
+    @Override
+    public Enumeration<? extends TreeNode> children()
+    {
+      List<TreeNode> children = new ArrayList<>();
+      for (int i = 0; i < getChildCount(); i++)
+        children.add(getChildAt(i));
+      return Collections.enumeration(children);
+    }
+
+    @Override
+    public void setChangeListener(@Nullable Consumer<IDiffNode> pListener)
+    {
+      getOriginal().setChangeListener(pListener);
+    }
+
+    @Override
+    public boolean isReadOnly(@NonNull EDirection pDirection)
+    {
+      return getOriginal().isReadOnly(pDirection);
+    }
+
+    @Override
+    public boolean isRemote(@NonNull EDirection pDirection)
+    {
+      return getOriginal().isRemote(pDirection);
+    }
+
+    @NonNull
+    @Override
+    public String getRootName(@NonNull EDirection pDirection)
+    {
+      return getOriginal().getRootName(pDirection);
+    }
+
+    @Override
+    public int countDifferences()
+    {
+      return getOriginal().countDifferences();
+    }
+
+    @NonNull
+    @Override
+    public AbstractPair getPair()
+    {
+      return getOriginal().getPair();
+    }
+
+    @Nullable
+    @Override
+    public String nameForDisplay(@NonNull EDirection pDirection)
+    {
+      return getOriginal().nameForDisplay(pDirection);
+    }
+
+    @NonNull
+    @Override
+    public DiffStateCollector collectDiffStates(@Nullable DiffStateCollector pParentCollector)
+    {
+      return getOriginal().collectDiffStates(pParentCollector);
+    }
+
+    @NonNull
+    @Override
+    public EDiff getDiff(@NonNull EDirection pDirection)
+    {
+      return getOriginal().getDiff(pDirection);
+    }
+
+    @Nullable
+    @Override
+    public IHierarchy<?> getHierarchy(@NonNull EDirection pDirection)
+    {
+      return getOriginal().getHierarchy(pDirection);
+    }
+
+    @Override
+    public void write()
+    {
+      getOriginal().write();
+    }
+
+    @Override
+    public String toString()
+    {
+      return getOriginal().toString();
+    }
+  }
+
+}
@@ -7,6 +7,7 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.tree.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Result of filtering, the node contains the original
@@ -18,6 +19,9 @@ import java.util.*;
 public class DiffFilterNode extends DefaultMutableTreeNode implements IDiffNode
 {
   private final transient IDiffNode node;
+  // Filter for the children, null if the children were already created
+  @Nullable
+  private transient ITreeNodeFilter childFilter;
 
   public DiffFilterNode(@NonNull MutableTreeNode pNode, @NonNull ITreeNodeFilter pFilter)
   {
@@ -26,11 +30,69 @@ public class DiffFilterNode extends DefaultMutableTreeNode implements IDiffNode
 
     setUserObject(pNode);
 
+    // the children are filtered on first access only, so that collapsed parts of the tree are never copied
+    childFilter = pFilter;
+  }
+
+  @Override
+  public boolean isLoaded()
+  {
+    return node.isLoaded();
+  }
+
+  @Override
+  public void load()
+  {
+    node.load();
+    createChildren();
+  }
+
+  @Override
+  public TreeNode getChildAt(int pIndex)
+  {
+    createChildren();
+    return super.getChildAt(pIndex);
+  }
+
+  @Override
+  public int getChildCount()
+  {
+    createChildren();
+    return super.getChildCount();
+  }
+
+  @Override
+  public int getIndex(TreeNode pChild)
+  {
+    createChildren();
+    return super.getIndex(pChild);
+  }
+
+  @Override
+  public Enumeration<TreeNode> children()
+  {
+    createChildren();
+    return super.children();
+  }
+
+  /**
+   * Filters the children of the original node and adds them to this node, if this was not done yet.
+   * Children of original nodes, that are not loaded yet, are created on expansion.
+   */
+  private void createChildren()
+  {
+    ITreeNodeFilter filter = childFilter;
+    if (filter == null || !node.isLoaded())
+      return;
+
+    childFilter = null;
+
+    MutableTreeNode original = (MutableTreeNode) node;
     ArrayList<MutableTreeNode> collector = new ArrayList<>();
-    for (int i = 0; i < pNode.getChildCount(); i++)
+    for (int i = 0; i < original.getChildCount(); i++)
     {
-      MutableTreeNode child = (MutableTreeNode) pNode.getChildAt(i);
-      List<MutableTreeNode> children = pFilter.filterChild(child);
+      MutableTreeNode child = (MutableTreeNode) original.getChildAt(i);
+      List<MutableTreeNode> children = filter.filterChild(child);
       collector.addAll(children);
     }
 
@@ -38,6 +100,19 @@ public class DiffFilterNode extends DefaultMutableTreeNode implements IDiffNode
       add(child);
   }
 
+  @NonNull
+  @Override
+  public IDiffNode getOriginal()
+  {
+    return node;
+  }
+
+  @Override
+  public void setChangeListener(@Nullable Consumer<IDiffNode> pListener)
+  {
+    node.setChangeListener(pListener);
+  }
+
   @Override
   public boolean isReadOnly(@NonNull EDirection pDirection)
   {
@@ -107,6 +182,6 @@ public class DiffFilterNode extends DefaultMutableTreeNode implements IDiffNode
   @Override
   public boolean getAllowsChildren()
   {
-    return getChildCount() > 0;
+    return !isLoaded() || getChildCount() > 0;
   }
 }
@@ -14,6 +14,12 @@ import lombok.NonNull;
  */
 public class DiffStateCollector
 {
+  // Bits of the combined statuses, as cached by the nodes
+  static final int EQUAL = 1;
+  static final int DIFFERENT = 1 << 1;
+  static final int MISSING = 1 << 2;
+  static final int DELETED = 1 << 3;
+
   EDiff equal;
   EDiff different;
   EDiff missing;
@@ -48,6 +54,49 @@ public class DiffStateCollector
       pIcon.setDeletedColor();
   }
 
+  /**
+   * Adds the given combination of statuses to the collected ones
+   *
+   * @param pStates combination of the EQUAL, DIFFERENT, MISSING and DELETED bits
+   */
+  void merge(int pStates)
+  {
+    if ((pStates & EQUAL) != 0)
+      equal = EDiff.EQUAL;
+
+    if ((pStates & DIFFERENT) != 0)
+      different = EDiff.DIFFERENT;
+
+    if ((pStates & MISSING) != 0)
+      missing = EDiff.MISSING;
+
+    if ((pStates & DELETED) != 0)
+      deleted = EDiff.DELETED;
+  }
+
+  /**
+   * Converts a single status to its bit
+   *
+   * @param pDiff status to convert
+   * @return the bit of the status, or 0 if it is not collected
+   */
+  static int toState(@NonNull EDiff pDiff)
+  {
+    switch (pDiff)
+    {
+      case EQUAL:
+        return EQUAL;
+      case DIFFERENT:
+        return DIFFERENT;
+      case MISSING:
+        return MISSING;
+      case DELETED:
+        return DELETED;
+      default:
+        return 0;
+    }
+  }
+
   /**
    * Resets every status inside, so it seems untouched afterwards
    */
@@ -7,6 +7,7 @@ import lombok.NonNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.tree.TreeNode;
+import java.util.function.Consumer;
 
 /**
  * An implementation of this node can be presented via {@link DiffPresenter}
@@ -96,5 +97,46 @@ public interface IDiffNode extends TreeNode
    */
   void write();
 
+  /**
+   * Determines, if the children of this node were already created.
+   * Nodes, whose children are not created, report estimated differences only.
+   *
+   * @return true, if the children are available
+   */
+  default boolean isLoaded()
+  {
+    return true;
+  }
+
+  /**
+   * Creates the children of this node, if they were not created yet
+   */
+  default void load()
+  {
+    // nothing to load by default
+  }
+
+  /**
+   * Sets the listener, that is notified about every node of this tree, whose pair was changed by an update or restore.
+   * Only the listener of the root node is notified.
+   *
+   * @param pListener the listener, or null to remove it
+   */
+  default void setChangeListener(@Nullable Consumer<IDiffNode> pListener)
+  {
+    // changes are not reported by default
+  }
+
+  /**
+   * Returns the node, that is displayed by this node.
+   * Nodes, that are the result of filtering, return the node they were created for.
+   *
+   * @return the original node, this node itself by default
+   */
+  @NonNull
+  default IDiffNode getOriginal()
+  {
+    return this;
+  }
 
 }
@@ -0,0 +1,36 @@
+package de.adito.aditoweb.nbm.aliasdiff.dialog;
+
+import de.adito.propertly.core.spi.IPropertyPitProvider;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Decides, which data models the {@link PropertyPitMatcher} should not compare immediately.
+ * The children of such models are only created and compared, if the user expands their node.
+ * Until then, the node reports an estimated count of differences.
+ * Only the nodes are deferred: the data models of both sides have to exist completely, before the matcher is created.
+ *
+ * @author agent, 17.10.2026
+ */
+public interface ILazyNodePolicy
+{
+
+  /**
+   * Determines, if the children of the given data model should be created on demand
+   *
+   * @param pProvider data model to check
+   * @return true, if the children should be created on demand
+   */
+  boolean isLazy(@NonNull IPropertyPitProvider<?, ?, ?> pProvider);
+
+  /**
+   * Estimates the count of differences below a node, whose children were not created yet.
+   * The estimate should be greater than zero, if both models may differ.
+   *
+   * @param pLeft  left side data model, null if it only exists on the right side
+   * @param pRight right side data model, null if it only exists on the left side
+   * @return the estimated count of differences
+   */
+  int estimateDifferences(@Nullable IPropertyPitProvider<?, ?, ?> pLeft, @Nullable IPropertyPitProvider<?, ?, ?> pRight);
+
+}
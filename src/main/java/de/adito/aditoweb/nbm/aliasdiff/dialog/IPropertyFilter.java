@@ -1,6 +1,7 @@
 package de.adito.aditoweb.nbm.aliasdiff.dialog;
 
 import de.adito.propertly.core.spi.IProperty;
+import lombok.NonNull;
 
 import java.util.function.Predicate;
 
@@ -22,4 +23,16 @@ public interface IPropertyFilter extends Predicate<IProperty<?, ?>>
     // nothing by default
   }
 
+  /**
+   * Determines, if the result of {@link #test(Object)} for the given property only depends on the description of the property.
+   * The result may then be reused for every property with the same description, see {@link CachingPropertyFilter}.
+   *
+   * @param pProperty Property to check
+   * @return true, if the result can be cached per description
+   */
+  default boolean isCacheable(@NonNull IProperty<?, ?> pProperty)
+  {
+    return false;
+  }
+
 }
@@ -2,7 +2,7 @@ package de.adito.aditoweb.nbm.aliasdiff.dialog;
 
 import lombok.NonNull;
 
-import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.*;
 import java.util.List;
 
 /**
@@ -32,4 +32,17 @@ public interface ITreeNodeFilter
   @NonNull
   List<MutableTreeNode> filterChild(@NonNull MutableTreeNode pChild);
 
+  /**
+   * Determines the original nodes, that should be displayed instead of the given child, without creating any replacement.
+   * Used by views, that do not wrap every node, like {@link CompactDiffTree}.
+   *
+   * @param pChild Child, that may be separated into a list of multiple nodes
+   * @return the nodes to display, the given child itself by default
+   */
+  @NonNull
+  default List<TreeNode> flattenChild(@NonNull TreeNode pChild)
+  {
+    return List.of(pChild);
+  }
+
 }
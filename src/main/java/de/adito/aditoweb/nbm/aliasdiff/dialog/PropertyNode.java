@@ -8,9 +8,10 @@ import de.adito.propertly.core.spi.*;
 import lombok.NonNull;
 import org.jetbrains.annotations.Nullable;
 
-import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.*;
 import java.sql.Types;
 import java.util.*;
+import java.util.function.Consumer;
 
 
 /**
@@ -23,9 +24,9 @@ import java.util.*;
 public class PropertyNode extends DefaultMutableTreeNode implements IDiffNode
 {
   // Data types whose size / scale is fixed by the database and is not determined by the user
-  private static final Set<Integer> NON_MANAGED_DATA_TYPES = Set.of(Types.BLOB, Types.DATE, Types.TIMESTAMP, Types.INTEGER, Types.BIGINT, Types.DOUBLE,
-                                                                    Types.BIT, Types.BOOLEAN, Types.FLOAT, Types.SMALLINT, Types.REAL, Types.TINYINT,
-                                                                    Types.TIMESTAMP_WITH_TIMEZONE);
+  public static final Set<Integer> NON_MANAGED_DATA_TYPES = Set.of(Types.BLOB, Types.DATE, Types.TIMESTAMP, Types.INTEGER, Types.BIGINT, Types.DOUBLE,
+                                                                   Types.BIT, Types.BOOLEAN, Types.FLOAT, Types.SMALLINT, Types.REAL, Types.TINYINT,
+                                                                   Types.TIMESTAMP_WITH_TIMEZONE);
   private BulkModifyHierarchy<?> leftModify; //NOSONAR
   @Nullable
   private EDirection remote;
@@ -36,6 +37,25 @@ public class PropertyNode extends DefaultMutableTreeNode implements IDiffNode
   private final EnumSet<EDiff> set = EnumSet.of(EDiff.DIFFERENT, EDiff.MISSING, EDiff.DELETED);
   private final transient DiffStateCollector myCollector = new DiffStateCollector();
 
+  // Creates the children of this node on first access, null if they were already created
+  @Nullable
+  private transient Runnable childLoader;
+  // Estimated count of differences below this node, as long as its children were not created
+  private int estimatedDifferences;
+  // Count of differences and combined diff states of this subtree, only up to date if diffCacheValid is true
+  private transient int cachedDifferences;
+  private transient int cachedDiffStates;
+  private transient boolean diffCacheValid;
+  // Notified about every node of this tree, whose pair changed. Only set on the root node.
+  @Nullable
+  private transient Consumer<IDiffNode> changeListener;
+  // Children that manage providers, keyed by the uppercased provider name, created on first insert
+  @Nullable
+  private transient Map<String, PropertyNode> providerChildren;
+  // Children that manage simple values, keyed by the property name, created on first insert
+  @Nullable
+  private transient Map<String, PropertyNode> propertyChildren;
+
 
   /**
    * This constructor will be called by every root node
@@ -157,16 +177,8 @@ public class PropertyNode extends DefaultMutableTreeNode implements IDiffNode
   @Override
   public int countDifferences()
   {
-    int count = 0;
-    for (PropertyNode node : getChildren())
-    {
-      AbstractPair pair = node.getPair();
-      if (isDifferent(pair))
-        count++;
-      count += node.countDifferences();
-    }
-
-    return count;
+    validateDiffCache();
+    return cachedDifferences;
   }
 
   @NonNull
@@ -183,24 +195,55 @@ public class PropertyNode extends DefaultMutableTreeNode implements IDiffNode
     else
       theCollector = pParentCollector;
 
-    AbstractPair pair = getPair();
+    validateDiffCache();
+    theCollector.merge(cachedDiffStates);
+    return theCollector;
+  }
 
-    if (pair.typeOfDiff(EDirection.LEFT) == EDiff.EQUAL || pair.typeOfDiff(EDirection.RIGHT) == EDiff.EQUAL)
-      theCollector.equal = EDiff.EQUAL;
+  @Override
+  public void setChangeListener(@Nullable Consumer<IDiffNode> pListener)
+  {
+    changeListener = pListener;
+  }
 
-    if (pair.typeOfDiff(EDirection.LEFT) == EDiff.DIFFERENT || pair.typeOfDiff(EDirection.RIGHT) == EDiff.DIFFERENT)
-      theCollector.different = EDiff.DIFFERENT;
+  /**
+   * Has to be called, whenever the managed objects of the pair change.
+   * Outdates the cached differences and notifies the change listener of the root.
+   */
+  public void pairChanged()
+  {
+    invalidateDifferences();
 
-    if (pair.typeOfDiff(EDirection.LEFT) == EDiff.MISSING || pair.typeOfDiff(EDirection.RIGHT) == EDiff.MISSING)
-      theCollector.missing = EDiff.MISSING;
+    Consumer<IDiffNode> listener = ((PropertyNode) getRoot()).changeListener;
+    if (listener != null)
+      listener.accept(this);
+  }
 
-    if (pair.typeOfDiff(EDirection.LEFT) == EDiff.DELETED || pair.typeOfDiff(EDirection.RIGHT) == EDiff.DELETED)
-      theCollector.deleted = EDiff.DELETED;
+  /**
+   * Marks the cached differences of this node and all of its parents as outdated.
+   * A node, whose cache is outdated, never has a parent with an up-to-date cache, so the walk stops at the first outdated node.
+   */
+  private void invalidateDifferences()
+  {
+    for (PropertyNode node = this; node != null && node.diffCacheValid; node = node.parent())
+      node.diffCacheValid = false;
+  }
 
-    for (PropertyNode node : getChildren())
-      node.collectDiffStates(theCollector);
+  @Override
+  public boolean isLoaded()
+  {
+    return childLoader == null;
+  }
 
-    return theCollector;
+  @Override
+  public void load()
+  {
+    Runnable loader = childLoader;
+    if (loader != null)
+    {
+      childLoader = null;
+      loader.run();
+    }
   }
 
   @Override
@@ -263,19 +306,12 @@ public class PropertyNode extends DefaultMutableTreeNode implements IDiffNode
    */
   public void addProperty(@NonNull EDirection pDirection, @NonNull IProperty<?, ?> pProp)
   {
-    boolean needsNewNode = true;
-    for (PropertyNode node : getChildren())
-    {
-      AbstractPair nodePair = node.propPair;
-      if (nodePair.containsProperty(pProp))
-      {
-        nodePair.setProperty(pDirection, pProp);
-        needsNewNode = false;
-        break;
-      }
-    }
+    load();
 
-    if (needsNewNode)
+    PropertyNode node = propertyChildren == null ? null : propertyChildren.get(pProp.getName());
+    if (node != null && node.propPair.containsProperty(pProp))
+      node.propPair.setProperty(pDirection, pProp);
+    else
       add(new PropertyNode(pDirection, pProp));
   }
 
@@ -290,30 +326,171 @@ public class PropertyNode extends DefaultMutableTreeNode implements IDiffNode
   @NonNull
   public PropertyNode addProvider(EDirection pDirection, IPropertyPitProvider<?, ?, ?> pProvider)
   {
-    for (PropertyNode node : getChildren())
+    load();
+
+    String name = pProvider.getPit().getOwnProperty().getName();
+    PropertyNode node = providerChildren == null ? null : providerChildren.get(name.toUpperCase(Locale.ROOT));
+    if (node != null && node.propPair.containsProvider(pProvider))
     {
-      AbstractPair nodePair = node.propPair;
-      if (nodePair.containsProvider(pProvider))
-      {
-        nodePair.setProvider(pDirection, pProvider);
-        return node;
-      }
+      node.propPair.setProvider(pDirection, pProvider);
+      return node;
     }
 
-    PropertyNode node = new PropertyNode(pDirection, pProvider);
+    node = new PropertyNode(pDirection, pProvider);
     add(node);
     return node;
   }
 
+  /**
+   * Moves the children of the given tree below this node.
+   * A child, that manages a data model with the same name as one of our children (e.g. the container of all tables),
+   * is not moved itself, its children are moved to our child instead. Simple values, that we already contain, are dropped.
+   *
+   * @param pTree root of the tree, whose children should be moved
+   * @return the nodes, that were moved, in the order in which they were appended
+   */
+  @NonNull
+  public List<PropertyNode> merge(@NonNull PropertyNode pTree)
+  {
+    List<PropertyNode> moved = new ArrayList<>();
+    for (PropertyNode child : pTree.getChildren())
+    {
+      PropertyNode existing = findChild(child);
+      if (existing == null)
+      {
+        add(child);
+        moved.add(child);
+      }
+      else if (existing.propPair.getManagedObject(EDirection.LEFT) instanceof IPropertyPitProvider ||
+          existing.propPair.getManagedObject(EDirection.RIGHT) instanceof IPropertyPitProvider)
+      {
+        for (PropertyNode grandChild : child.getChildren())
+        {
+          existing.add(grandChild);
+          moved.add(grandChild);
+        }
+      }
+    }
+    return moved;
+  }
+
+  /**
+   * Searches our child, that manages the same data model or value as the given node, the same way as {@link #updateChildIndex} identifies it
+   *
+   * @param pNode node of another tree
+   * @return our child, or null if we do not have a matching child
+   */
+  @Nullable
+  private PropertyNode findChild(@NonNull PropertyNode pNode)
+  {
+    Object managedObject = pNode.propPair == null ? null : pNode.propPair.getManagedObject(EDirection.LEFT);
+    if (managedObject == null && pNode.propPair != null)
+      managedObject = pNode.propPair.getManagedObject(EDirection.RIGHT);
+
+    if (managedObject instanceof IPropertyPitProvider && providerChildren != null)
+      return providerChildren.get(((IPropertyPitProvider<?, ?, ?>) managedObject).getPit().getOwnProperty().getName().toUpperCase(Locale.ROOT));
+    if (managedObject instanceof IProperty && propertyChildren != null)
+      return propertyChildren.get(((IProperty<?, ?>) managedObject).getName());
+    return null;
+  }
+
+  @Override
+  public void insert(MutableTreeNode pNewChild, int pChildIndex)
+  {
+    super.insert(pNewChild, pChildIndex);
+    if (pNewChild instanceof PropertyNode)
+      updateChildIndex((PropertyNode) pNewChild, true);
+    invalidateDifferences();
+  }
+
+  @Override
+  public void remove(int pChildIndex)
+  {
+    TreeNode child = getChildAt(pChildIndex);
+    super.remove(pChildIndex);
+    if (child instanceof PropertyNode)
+      updateChildIndex((PropertyNode) child, false);
+    invalidateDifferences();
+  }
+
+  /**
+   * Adds the given child to the index of our children, or removes it.
+   * The index identifies the children the same way as {@link AbstractPair#containsProvider(IPropertyPitProvider)}
+   * and {@link AbstractPair#containsProperty(IProperty)} do, so that adding a model does not have to scan all children.
+   *
+   * @param pChild child to update
+   * @param pAdd   true, if the child was added, false if it was removed
+   */
+  private void updateChildIndex(@NonNull PropertyNode pChild, boolean pAdd)
+  {
+    Object managedObject = pChild.propPair == null ? null : pChild.propPair.getManagedObject(EDirection.LEFT);
+    if (managedObject == null && pChild.propPair != null)
+      managedObject = pChild.propPair.getManagedObject(EDirection.RIGHT);
+
+    if (managedObject instanceof IPropertyPitProvider)
+    {
+      if (providerChildren == null)
+        providerChildren = new HashMap<>();
+      updateChildIndex(providerChildren, ((IPropertyPitProvider<?, ?, ?>) managedObject).getPit().getOwnProperty().getName()
+          .toUpperCase(Locale.ROOT), pChild, pAdd);
+    }
+    else if (managedObject instanceof IProperty)
+    {
+      if (propertyChildren == null)
+        propertyChildren = new HashMap<>();
+      updateChildIndex(propertyChildren, ((IProperty<?, ?>) managedObject).getName(), pChild, pAdd);
+    }
+  }
+
+  /**
+   * Adds the given child to the given index, or removes it. If a key is used by multiple children, the first one is kept.
+   *
+   * @param pIndex index to update
+   * @param pKey   key of the child
+   * @param pChild child to update
+   * @param pAdd   true, if the child was added, false if it was removed
+   */
+  private static void updateChildIndex(@NonNull Map<String, PropertyNode> pIndex, @NonNull String pKey, @NonNull PropertyNode pChild, boolean pAdd)
+  {
+    if (pAdd)
+      pIndex.putIfAbsent(pKey, pChild);
+    else
+      pIndex.remove(pKey, pChild);
+  }
+
   /**
    * Compares all objects for equality and removes them from the tree structure.
    * What remains are data models and values that are different.
+   * Nodes, whose children were not created yet, are kept.
    */
   public void buildDiff()
+  {
+    if (!isLoaded())
+      return;
+
+    buildChildDiff();
+
+    if (propPair.isEqual() && (parent != null) && (getChildren().isEmpty()))
+      parent.remove(this);
+  }
+
+  /**
+   * Compares all children for equality and removes the equal ones from the tree structure.
+   * This node itself is kept, even if it is equal.
+   */
+  void buildChildDiff()
   {
     for (PropertyNode child : new ArrayList<>(getChildren()))
       child.buildDiff();
 
+    removeUnmanagedChildren();
+  }
+
+  /**
+   * Removes the size and scale of columns, whose data type does not allow the user to manage them, as long as the data type itself is equal
+   */
+  void removeUnmanagedChildren()
+  {
     Object managedObject = getPair().getManagedObject(EDirection.RIGHT);
     if (managedObject instanceof EntityFieldDBDataModel &&
         getChildren().stream().noneMatch(pChild -> pChild.toString().equals("columnType")) &&
@@ -327,9 +504,27 @@ public class PropertyNode extends DefaultMutableTreeNode implements IDiffNode
           remove(treeNode);
       }
     }
+  }
 
-    if (propPair.isEqual() && (parent != null) && (getChildren().isEmpty()))
-      parent.remove(this);
+  /**
+   * Defers the creation of the children of this node, until they are accessed the first time
+   *
+   * @param pLoader Loader, that creates the children
+   */
+  void setChildLoader(@NonNull Runnable pLoader)
+  {
+    childLoader = pLoader;
+  }
+
+  /**
+   * Sets the count of differences, that is reported as long as the children of this node were not created
+   *
+   * @param pEstimatedDifferences estimated count of differences below this node
+   */
+  void setEstimatedDifferences(int pEstimatedDifferences)
+  {
+    estimatedDifferences = pEstimatedDifferences;
+    invalidateDifferences();
   }
 
   /**
@@ -346,20 +541,60 @@ public class PropertyNode extends DefaultMutableTreeNode implements IDiffNode
    */
   void reorder()
   {
+    if (!isLoaded())
+      return;
+
     getChildren().sort(Comparator.comparing(pO -> pO.getPair().nameForIdentification().toUpperCase()));
     getChildren().forEach(PropertyNode::reorder);
   }
 
   /**
-   * @return all of our children
+   * @return all of our children, created if necessary
    */
   @NonNull
   private List<PropertyNode> getChildren()
   {
+    load();
     //noinspection unchecked,rawtypes
     return (List) Collections.list(children());
   }
 
+  /**
+   * Calculates the count of differences and the combined diff states of this subtree, if they are outdated.
+   * Updating the cache of a node also updates the caches of all of its children.
+   */
+  private void validateDiffCache()
+  {
+    if (diffCacheValid)
+      return;
+
+    int states = DiffStateCollector.toState(propPair.typeOfDiff(EDirection.LEFT)) | DiffStateCollector.toState(propPair.typeOfDiff(EDirection.RIGHT));
+    int count = 0;
+
+    // children, that were not created yet, can only be different, if both sides exist
+    if (!isLoaded())
+    {
+      count = estimatedDifferences;
+      if (estimatedDifferences > 0 && propPair.getManagedObject(EDirection.LEFT) != null && propPair.getManagedObject(EDirection.RIGHT) != null)
+        states |= DiffStateCollector.DIFFERENT;
+    }
+    else
+    {
+      for (PropertyNode node : getChildren())
+      {
+        if (isDifferent(node.getPair()))
+          count++;
+        node.validateDiffCache();
+        count += node.cachedDifferences;
+        states |= node.cachedDiffStates;
+      }
+    }
+
+    cachedDifferences = count;
+    cachedDiffStates = states;
+    diffCacheValid = true;
+  }
+
   /**
    * Determines, if the given pair is in a "different" state
    *
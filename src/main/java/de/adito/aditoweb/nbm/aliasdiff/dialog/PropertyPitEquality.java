@@ -0,0 +1,143 @@
+package de.adito.aditoweb.nbm.aliasdiff.dialog;
+
+import de.adito.aditoweb.filesystem.propertly.DataModelHierarchy;
+import de.adito.aditoweb.system.crmcomponents.datamodels.entity.database.EntityFieldDBDataModel;
+import de.adito.propertly.core.spi.*;
+import lombok.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Compares two data models the same way the {@link PropertyPitMatcher} does, but without building a tree.
+ * Used to find out early, that two models would be removed completely from the diff tree,
+ * so that they do not have to be passed to the {@link PropertyPitMatcher} at all.
+ * The check is conservative: If a combination of properties can not be compared safely, the models are treated as different.
+ *
+ * @author agent, 17.10.2026
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class PropertyPitEquality
+{
+
+  /**
+   * Determines, if the {@link PropertyPitMatcher} would remove both given providers (and all of their children) from the diff tree.
+   * The providers have to be part of their source hierarchies, not of a {@link de.adito.aditoweb.filesystem.propertly.BulkModifyHierarchy}.
+   *
+   * @param pLeft   left side data model
+   * @param pRight  right side data model
+   * @param pFilter filter, that decides which properties should be compared. Has to be stateless.
+   * @return true, if both models are equal
+   */
+  public static boolean isEqual(@NonNull IPropertyPitProvider<?, ?, ?> pLeft, @NonNull IPropertyPitProvider<?, ?, ?> pRight,
+                                @NonNull IPropertyFilter pFilter)
+  {
+    Map<String, IPropertyPitProvider<?, ?, ?>> leftProviders = new HashMap<>();
+    Map<String, IProperty<?, ?>> leftProperties = new HashMap<>();
+    Map<String, IPropertyPitProvider<?, ?, ?>> rightProviders = new HashMap<>();
+    Map<String, IProperty<?, ?>> rightProperties = new HashMap<>();
+    if (!collect(pLeft, pFilter, leftProviders, leftProperties) || !collect(pRight, pFilter, rightProviders, rightProperties))
+      return false;
+
+    // size and scale of some data types are not managed by the user, so the matcher ignores them if the type itself is equal
+    boolean ignoreSizeAndScale = pRight instanceof EntityFieldDBDataModel &&
+        PropertyNode.NON_MANAGED_DATA_TYPES.contains(((EntityFieldDBDataModel) pRight).getColumnType());
+
+    Set<String> propertyNames = new HashSet<>(leftProperties.keySet());
+    propertyNames.addAll(rightProperties.keySet());
+    for (String name : propertyNames)
+      if (!isEqual(leftProperties.get(name), rightProperties.get(name)) && !(ignoreSizeAndScale && isSizeOrScale(name)))
+        return false;
+
+    Set<String> providerNames = new HashSet<>(leftProviders.keySet());
+    providerNames.addAll(rightProviders.keySet());
+    for (String name : providerNames)
+    {
+      IPropertyPitProvider<?, ?, ?> left = leftProviders.get(name);
+      IPropertyPitProvider<?, ?, ?> right = rightProviders.get(name);
+      boolean equal;
+      if (left != null && right != null)
+        equal = isEqual(left, right, pFilter);
+      else
+        equal = Objects.requireNonNullElse(left, right).getPit().getProperties().isEmpty();
+
+      if (!equal && !(ignoreSizeAndScale && isSizeOrScale(name)))
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Collects all direct children of the given provider, that pass the filter
+   *
+   * @param pProvider   Provider to read
+   * @param pFilter     Filter for the children
+   * @param pProviders  Map to collect the non-null providers in, keyed by their uppercased name
+   * @param pProperties Map to collect all other properties in, keyed by their name
+   * @return false, if the names are ambiguous and the children can not be compared safely
+   */
+  private static boolean collect(@NonNull IPropertyPitProvider<?, ?, ?> pProvider, @NonNull IPropertyFilter pFilter,
+                                 @NonNull Map<String, IPropertyPitProvider<?, ?, ?>> pProviders, @NonNull Map<String, IProperty<?, ?>> pProperties)
+  {
+    for (IProperty<?, ?> property : pProvider.getPit().getProperties())
+    {
+      if (!pFilter.test(property))
+        continue;
+
+      if (IPropertyPitProvider.class.isAssignableFrom(property.getType()))
+      {
+        // the matcher identifies providers case-insensitive
+        IPropertyPitProvider<?, ?, ?> child = (IPropertyPitProvider<?, ?, ?>) property.getValue();
+        if (child != null && pProviders.put(property.getName().toUpperCase(Locale.ROOT), child) != null)
+          return false;
+      }
+      else if (pProperties.put(property.getName(), property) != null)
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Compares two properties the same way as {@link de.adito.aditoweb.nbm.aliasdiff.dialog.diffimpl.PropertyPair#isEqual()}
+   *
+   * @param pLeft  left property, null if it does not exist
+   * @param pRight right property, null if it does not exist
+   * @return true, if both are equal
+   */
+  private static boolean isEqual(@Nullable IProperty<?, ?> pLeft, @Nullable IProperty<?, ?> pRight)
+  {
+    if (pLeft == null || pRight == null)
+      return pLeft == pRight;
+
+    if (Objects.equals(pLeft.getValue(), pRight.getValue()))
+      return true;
+
+    return isDefaultOrNull(pLeft) && isDefaultOrNull(pRight);
+  }
+
+  /**
+   * Determines, if the given property is in its default state or has a null value
+   *
+   * @param pProperty Property of a source hierarchy
+   * @return true, if it is default or has a null value
+   */
+  static boolean isDefaultOrNull(@NonNull IProperty<?, ?> pProperty)
+  {
+    if (pProperty.getHierarchy() instanceof DataModelHierarchy)
+      return DataModelHierarchy.isDefaultValue(pProperty);
+    else
+      return pProperty.getValue() == null;
+  }
+
+  /**
+   * @param pName Name of a property
+   * @return true, if the property describes the size or scale of a column
+   */
+  private static boolean isSizeOrScale(@NonNull String pName)
+  {
+    return pName.equalsIgnoreCase("size") || pName.equalsIgnoreCase("scale");
+  }
+
+}
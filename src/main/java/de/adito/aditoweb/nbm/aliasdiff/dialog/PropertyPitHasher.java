@@ -0,0 +1,319 @@
+package de.adito.aditoweb.nbm.aliasdiff.dialog;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.diffimpl.DefaultPropertyFilter;
+import de.adito.propertly.core.spi.*;
+import lombok.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.*;
+import java.math.*;
+import java.util.*;
+
+/**
+ * Calculates structural hashes of data models, bottom-up over all properties that pass the filter.
+ * Two data models with the same hash are removed completely from the diff tree by the {@link PropertyPitMatcher},
+ * so the matcher skips their nodes without comparing them again. The hash has 128 bits, and values are only hashed,
+ * if their type has an encoding that is unambiguous and consistent with {@link Objects#equals(Object, Object)}.
+ * Models with other values are not hashed at all.
+ * The hash is conservative: Models that are only equal, because the matcher ignores some values
+ * (for example the size of some column types), get different hashes.
+ * <p>
+ * The hashes of the models of a hierarchy can be cached. The cache of a hierarchy is invalidated for every model,
+ * that contains a property which changed.
+ *
+ * @author agent, 17.10.2026
+ */
+class PropertyPitHasher
+{
+  // Hash of models, that can not be hashed safely, for example because the names of their children are ambiguous
+  static final Hash NO_HASH = new Hash(0, 0);
+
+  private static final Hash PROVIDER_SALT = new Hash(0x9E3779B97F4A7C15L, 0xD6E8FEB86659FD93L);
+  private static final Hash PROPERTY_SALT = new Hash(0xC2B2AE3D27D4EB4FL, 0xA0761D6478BD642FL);
+  private static final Hash DEFAULT_VALUE = new Hash(0x165667B19E3779F9L, 0xE7037ED1A0B428DBL);
+  private static final Map<IHierarchy<?>, HashCache> CACHES = new WeakHashMap<>();
+
+  // Types of values, whose class and string representation identify them the same way as equals does
+  private static final Set<Class<?>> ENCODABLE_TYPES = Set.of(String.class, Boolean.class, Character.class, Byte.class, Short.class,
+                                                              Integer.class, Long.class, Float.class, Double.class,
+                                                              BigInteger.class, BigDecimal.class);
+
+  /**
+   * Filter, that decides which properties should be hashed
+   */
+  private final IPropertyFilter filter;
+
+  /**
+   * Hashes that were already calculated, shared between all hashers of the same hierarchy if the hashes are cached
+   */
+  private final Map<IPropertyPitProvider<?, ?, ?>, Hash> hashes;
+
+  /**
+   * @param pFilter    filter, that decides which properties should be hashed. Has to be stateless.
+   * @param pHierarchy hierarchy whose hashes should be cached, null if they should only be kept by this hasher
+   */
+  PropertyPitHasher(@NonNull IPropertyFilter pFilter, @Nullable IHierarchy<?> pHierarchy)
+  {
+    filter = pFilter;
+
+    // hashes depend on the filter, so only the hashes of the default filter can be shared
+    IPropertyFilter sharedFilter = pFilter instanceof CachingPropertyFilter ? ((CachingPropertyFilter) pFilter).getDelegate() : pFilter;
+    if (pHierarchy != null && sharedFilter.getClass() == DefaultPropertyFilter.class)
+      hashes = getCache(pHierarchy).hashes;
+    else
+      hashes = new IdentityHashMap<>();
+  }
+
+  /**
+   * Calculates the hash of the given data model
+   *
+   * @param pProvider data model of a source hierarchy
+   * @return the hash, or {@link #NO_HASH} if it can not be hashed safely
+   */
+  @NonNull
+  Hash hash(@NonNull IPropertyPitProvider<?, ?, ?> pProvider)
+  {
+    synchronized (hashes)
+    {
+      Hash cached = hashes.get(pProvider);
+      if (cached != null)
+        return cached;
+    }
+
+    Hash hash = calculate(pProvider);
+    synchronized (hashes)
+    {
+      hashes.put(pProvider, hash);
+    }
+    return hash;
+  }
+
+  /**
+   * Calculates the hash of the given data model, without looking at the cache for the model itself.
+   * The hashes of the children are combined order-independent, because the matcher pairs them by name.
+   *
+   * @param pProvider data model to hash
+   * @return the hash
+   */
+  @NonNull
+  private Hash calculate(@NonNull IPropertyPitProvider<?, ?, ?> pProvider)
+  {
+    Set<String> providerNames = new HashSet<>();
+    Set<String> propertyNames = new HashSet<>();
+    long sumHigh = 0;
+    long sumLow = 0;
+    int count = 0;
+    for (IProperty<?, ?> property : pProvider.getPit().getProperties())
+    {
+      if (!filter.test(property))
+        continue;
+
+      if (IPropertyPitProvider.class.isAssignableFrom(property.getType()))
+      {
+        IPropertyPitProvider<?, ?, ?> child = (IPropertyPitProvider<?, ?, ?>) property.getValue();
+        if (child == null)
+          continue;
+
+        // the matcher identifies providers case-insensitive
+        String name = property.getName().toUpperCase(Locale.ROOT);
+        if (!providerNames.add(name))
+          return NO_HASH;
+
+        // the matcher treats an empty model like a missing one
+        if (child.getPit().getProperties().isEmpty())
+          continue;
+
+        Hash childHash = hash(child);
+        if (childHash.equals(NO_HASH))
+          return NO_HASH;
+        Hash entry = combine(PROVIDER_SALT, hashString(name), childHash);
+        sumHigh += entry.high;
+        sumLow += entry.low;
+      }
+      else
+      {
+        if (!propertyNames.add(property.getName()))
+          return NO_HASH;
+
+        // the matcher treats all default values and null values as equal
+        Hash valueHash = PropertyPitEquality.isDefaultOrNull(property) ? DEFAULT_VALUE : hashValue(property.getValue());
+        if (valueHash == null)
+          return NO_HASH;
+        Hash entry = combine(PROPERTY_SALT, hashString(property.getName()), valueHash);
+        sumHigh += entry.high;
+        sumLow += entry.low;
+      }
+      count++;
+    }
+
+    Hash hash = new Hash(mix(sumHigh + count), mix(sumLow ^ count));
+    return hash.equals(NO_HASH) ? new Hash(0, 1) : hash;
+  }
+
+  /**
+   * Combines the hash of the name of a child with the hash of its content
+   *
+   * @param pSalt    Salt for the kind of the child
+   * @param pName    Hash of the name of the child
+   * @param pContent Hash of the value or the data model of the child
+   * @return the hash of the child, that is summed up order-independent by its parent
+   */
+  @NonNull
+  private static Hash combine(@NonNull Hash pSalt, @NonNull Hash pName, @NonNull Hash pContent)
+  {
+    return new Hash(mix(mix(pSalt.high + pName.high) + pContent.high), mix(mix(pSalt.low ^ pName.low) ^ pContent.low));
+  }
+
+  /**
+   * Returns the cache of the given hierarchy and registers a listener, that invalidates it, if necessary
+   *
+   * @param pHierarchy Hierarchy to get the cache for
+   * @return the cache
+   */
+  @NonNull
+  private static HashCache getCache(@NonNull IHierarchy<?> pHierarchy)
+  {
+    synchronized (CACHES)
+    {
+      HashCache cache = CACHES.get(pHierarchy);
+      if (cache == null)
+      {
+        cache = new HashCache();
+        //noinspection unchecked,rawtypes
+        pHierarchy.addWeakListener((IPropertyPitEventListener) cache.listener);
+        CACHES.put(pHierarchy, cache);
+      }
+      return cache;
+    }
+  }
+
+  /**
+   * Creates a listener, that removes the hashes of all models from the cache, that contain the property of an event.
+   * The listener is created as a proxy, so that every kind of event (value, name, order, added, removed) invalidates the cache.
+   *
+   * @param pCache Cache to invalidate
+   * @return the listener
+   */
+  @NonNull
+  private static IPropertyPitEventListener<?, ?, ?> createInvalidationListener(@NonNull Map<IPropertyPitProvider<?, ?, ?>, Hash> pCache)
+  {
+    InvocationHandler handler = (pProxy, pMethod, pArgs) -> {
+      if (pMethod.getDeclaringClass() == Object.class)
+      {
+        switch (pMethod.getName())
+        {
+          case "equals":
+            return pProxy == pArgs[0];
+          case "hashCode":
+            return System.identityHashCode(pProxy);
+          default:
+            return PropertyPitHasher.class.getSimpleName() + "$InvalidationListener";
+        }
+      }
+
+      if (pArgs != null)
+        for (Object arg : pArgs)
+          if (arg instanceof IProperty)
+            invalidate(pCache, (IProperty<?, ?>) arg);
+      return null;
+    };
+
+    return (IPropertyPitEventListener<?, ?, ?>) Proxy.newProxyInstance(PropertyPitHasher.class.getClassLoader(),
+                                                                      new Class<?>[]{IPropertyPitEventListener.class}, handler);
+  }
+
+  /**
+   * Removes the hashes of all models, that contain the given property
+   *
+   * @param pCache    Cache to invalidate
+   * @param pProperty Property that changed
+   */
+  private static void invalidate(@NonNull Map<IPropertyPitProvider<?, ?, ?>, Hash> pCache, @NonNull IProperty<?, ?> pProperty)
+  {
+    synchronized (pCache)
+    {
+      // empty models are not cached, so all parents have to be visited
+      IPropertyPitProvider<?, ?, ?> parent = pProperty.getParent();
+      while (parent != null)
+      {
+        pCache.remove(parent);
+        parent = parent.getPit().getOwnProperty().getParent();
+      }
+    }
+  }
+
+  /**
+   * @param pValue Value to hash
+   * @return the hash of the value, consistent with {@link Objects#equals(Object, Object)},
+   * or null if the type of the value has no unambiguous encoding
+   */
+  @Nullable
+  private static Hash hashValue(@Nullable Object pValue)
+  {
+    if (pValue == null)
+      return hashString("null");
+    if (pValue instanceof Enum)
+      return hashString(((Enum<?>) pValue).getDeclaringClass().getName() + ':' + ((Enum<?>) pValue).name());
+    if (ENCODABLE_TYPES.contains(pValue.getClass()))
+      return hashString(pValue.getClass().getName() + ':' + pValue);
+    return null;
+  }
+
+  /**
+   * Hashes the given string with two independent 64 bit hashes, FNV-1a and a polynomial hash
+   *
+   * @param pString String to hash
+   * @return the hash of the string
+   */
+  @NonNull
+  private static Hash hashString(@NonNull String pString)
+  {
+    long high = 0xCBF29CE484222325L;
+    long low = pString.length();
+    for (int i = 0; i < pString.length(); i++)
+    {
+      high ^= pString.charAt(i);
+      high *= 0x100000001B3L;
+      low = low * 0x9E3779B97F4A7C15L + pString.charAt(i);
+    }
+    return new Hash(mix(high), mix(low));
+  }
+
+  /**
+   * Spreads the bits of the given value (SplitMix64 finalizer)
+   *
+   * @param pValue Value to spread
+   * @return the spread value
+   */
+  private static long mix(long pValue)
+  {
+    long value = (pValue ^ (pValue >>> 30)) * 0xBF58476D1CE4E5B9L;
+    value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+    return value ^ (value >>> 31);
+  }
+
+  /**
+   * Cached hashes of a single hierarchy, together with the listener that invalidates them
+   */
+  private static class HashCache
+  {
+    private final Map<IPropertyPitProvider<?, ?, ?>, Hash> hashes = new WeakHashMap<>();
+
+    /**
+     * Registered weakly at the hierarchy, so it has to be referenced as long as the cache exists
+     */
+    private final IPropertyPitEventListener<?, ?, ?> listener = createInvalidationListener(hashes);
+  }
+
+  /**
+   * 128 bit hash of a data model or a value
+   */
+  @EqualsAndHashCode
+  @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+  static final class Hash
+  {
+    private final long high;
+    private final long low;
+  }
+
+}
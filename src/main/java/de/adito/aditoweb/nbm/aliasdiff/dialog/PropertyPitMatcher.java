@@ -1,7 +1,7 @@
 package de.adito.aditoweb.nbm.aliasdiff.dialog;
 
 import de.adito.aditoweb.filesystem.propertly.BulkModifyHierarchy;
-import de.adito.aditoweb.nbm.aliasdiff.dialog.diffimpl.DefaultPropertyFilter;
+import de.adito.aditoweb.nbm.aliasdiff.dialog.diffimpl.*;
 import de.adito.aditoweb.nbm.aliasdiff.dialog.diffpresenter.DiffPresenter;
 import de.adito.aditoweb.system.crmcomponents.annotations.DIFF;
 import de.adito.propertly.core.common.path.PropertyPath;
@@ -9,7 +9,7 @@ import de.adito.propertly.core.spi.*;
 import lombok.NonNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Objects;
+import java.util.*;
 
 /**
  * Accepts two data models (IPropertyPitProvider) of the same type and builds a tree from their structure.
@@ -26,12 +26,18 @@ import java.util.Objects;
 public class PropertyPitMatcher<L extends IPropertyPitProvider<?, ?, ?>, R extends IPropertyPitProvider<?, ?, ?>>
 {
   private final IPropertyPit<?, ?, ?> leftPit;
-  private final IPropertyFilter filter;
+  private final CachingPropertyFilter filter;
   private final IPropertyPit<?, ?, ?> rightPit;
   private final EDirection readOnly;
   private final BulkModifyHierarchy<?> leftbmh;
   private final EDirection remote;
   private final BulkModifyHierarchy<?> rightbmh;
+  private final IPropertyPitProvider<?, ?, ?> leftSource;
+  private final IPropertyPitProvider<?, ?, ?> rightSource;
+  private final List<PropertyNode> lazyNodes = new ArrayList<>();
+  @Nullable
+  private ILazyNodePolicy lazyNodePolicy;
+  private boolean singlePass;
 
   /**
    * Initialization with the data models to be compared,
@@ -54,13 +60,41 @@ public class PropertyPitMatcher<L extends IPropertyPitProvider<?, ?, ?>, R exten
     //noinspection rawtypes
     leftPit = ((IPropertyPitProvider) Objects.requireNonNull(Objects.requireNonNull(new PropertyPath(pLeftPPP).find(leftbmh)).getValue())).getPit();
 
-    filter = (pFilter != null) ? pFilter : new DefaultPropertyFilter();
+    filter = CachingPropertyFilter.of((pFilter != null) ? pFilter : new DefaultPropertyFilter());
     remote = pRemote;
 
     rightbmh = new BulkModifyHierarchy<>(pRightPPP.getPit().getHierarchy());
     //noinspection rawtypes
     rightPit = ((IPropertyPitProvider) Objects.requireNonNull(Objects.requireNonNull(new PropertyPath(pRightPPP).find(rightbmh)).getValue())).getPit();
     readOnly = pReadOnly;
+
+    leftSource = pLeftPPP;
+    rightSource = pRightPPP;
+  }
+
+  /**
+   * Sets the policy, that decides which data models should be compared on demand only.
+   * Has to be set before {@link #match()} is called.
+   *
+   * @param pPolicy the policy, or null if everything should be compared immediately
+   */
+  public void setLazyNodePolicy(@Nullable ILazyNodePolicy pPolicy)
+  {
+    lazyNodePolicy = pPolicy;
+  }
+
+  /**
+   * Determines, if both sides should be compared while the tree is built.
+   * Nodes are then only created for properties that differ, and for the data models that contain them,
+   * instead of building the tree of both models completely and removing the equal nodes afterwards.
+   * The resulting tree is the same in both modes.
+   * Has to be set before {@link #match()} is called.
+   *
+   * @param pSinglePass true, if both sides should be compared while the tree is built
+   */
+  public void setSinglePass(boolean pSinglePass)
+  {
+    singlePass = pSinglePass;
   }
 
   /**
@@ -76,16 +110,44 @@ public class PropertyPitMatcher<L extends IPropertyPitProvider<?, ?, ?>, R exten
 
     PropertyNode root = new PropertyNode(leftbmh, remote, rightbmh, readOnly);
 
-    filter.reset();
-    leftPit.getProperties()
-        .forEach(pProp -> buildTree(EDirection.LEFT, pProp, root));
+    // subtrees, that are equal on both sides, would be removed by buildDiff, so they are not added at all
+    EqualSubtrees equalSubtrees = findEqualSubtrees(leftSource, new PropertyPitHasher(filter, leftSource.getPit().getHierarchy()),
+                                                    rightSource, new PropertyPitHasher(filter, rightSource.getPit().getHierarchy()));
+    if (equalSubtrees.equal)
+    {
+      filter.logStatistics(leftPit.getOwnProperty().getName());
+      return root;
+    }
+
+    if (singlePass)
+    {
+      filter.reset();
+      IPropertyPitProvider<?, ?, ?> left = (IPropertyPitProvider<?, ?, ?>) leftPit.getOwnProperty().getValue();
+      IPropertyPitProvider<?, ?, ?> right = (IPropertyPitProvider<?, ?, ?>) rightPit.getOwnProperty().getValue();
+      matchChildren(left, right, root, equalSubtrees);
+    }
+    else
+    {
+      filter.reset();
+      leftPit.getProperties()
+          .forEach(pProp -> buildTree(EDirection.LEFT, pProp, root, equalSubtrees));
 
-    filter.reset();
-    rightPit.getProperties()
-        .forEach(pProp -> buildTree(EDirection.RIGHT, pProp, root));
+      filter.reset();
+      rightPit.getProperties()
+          .forEach(pProp -> buildTree(EDirection.RIGHT, pProp, root, equalSubtrees));
+    }
 
     root.reorder();
     root.buildDiff();
+
+    // lazy nodes are not removed by buildDiff, so they are still part of the tree
+    if (lazyNodePolicy != null)
+      for (PropertyNode node : lazyNodes)
+        if (!node.isLoaded())
+          node.setEstimatedDifferences(lazyNodePolicy.estimateDifferences(getProvider(node, EDirection.LEFT), getProvider(node, EDirection.RIGHT)));
+    lazyNodes.clear();
+
+    filter.logStatistics(leftPit.getOwnProperty().getName());
     return root;
   }
 
@@ -95,25 +157,320 @@ public class PropertyPitMatcher<L extends IPropertyPitProvider<?, ?, ?>, R exten
    * @param pDirection Current side to append to
    * @param pProperty  Property to append
    * @param pNode      Node to append
+   * @param pEqual     subtrees below the node, that are equal on both sides, null if unknown
    */
-  private void buildTree(@NonNull EDirection pDirection, @NonNull IProperty<?, ?> pProperty, @NonNull PropertyNode pNode)
+  private void buildTree(@NonNull EDirection pDirection, @NonNull IProperty<?, ?> pProperty, @NonNull PropertyNode pNode,
+                         @Nullable EqualSubtrees pEqual)
   {
     if (filter.test(pProperty))
+      attach(pDirection, pProperty, pNode, pEqual);
+  }
+
+  /**
+   * Appends the given property (and all of its children) to the tree, without applying the filter to the property itself
+   *
+   * @param pDirection Current side to append to
+   * @param pProperty  Property to append, already accepted by the filter
+   * @param pNode      Node to append
+   * @param pEqual     subtrees below the node, that are equal on both sides, null if unknown
+   */
+  private void attach(@NonNull EDirection pDirection, @NonNull IProperty<?, ?> pProperty, @NonNull PropertyNode pNode,
+                      @Nullable EqualSubtrees pEqual)
+  {
+    if (!IPropertyPitProvider.class.isAssignableFrom(pProperty.getType()))
+    {
+      pNode.addProperty(pDirection, pProperty);
+      return;
+    }
+
+    IPropertyPitProvider<?, ?, ?> provider = (IPropertyPitProvider<?, ?, ?>) pProperty.getValue();
+    EqualSubtrees equal = EqualSubtrees.getChild(pEqual, pProperty.getName());
+    if (provider == null || (equal != null && equal.equal))
+      return;
+
+    PropertyNode node = pNode.addProvider(pDirection, provider);
+    if (lazyNodePolicy != null && lazyNodePolicy.isLazy(provider))
     {
-      if (IPropertyPitProvider.class.isAssignableFrom(pProperty.getType()))
+      // both sides share the same node, so the loader only has to be set once
+      if (node.isLoaded())
       {
-        IPropertyPitProvider<?, ?, ?> provider = (IPropertyPitProvider<?, ?, ?>) pProperty.getValue();
-        if (provider != null)
-        {
-          PropertyNode node = pNode.addProvider(pDirection, provider);
-          provider.getPit().getProperties()
-              .forEach(pProp -> buildTree(pDirection, pProp, node));
-        }
+        node.setChildLoader(() -> loadChildren(node));
+        lazyNodes.add(node);
       }
-      else
-        pNode.addProperty(pDirection, pProperty);
     }
+    else
+      readChildren(provider)
+          .forEach(pProp -> attach(pDirection, pProp, node, equal));
   }
 
+  /**
+   * Matches the children of both given data models in a single pass.
+   * Nodes are only created for properties that differ, and for the data models that contain them.
+   * The result is the same as building the tree for both sides with {@link #attach} and pruning it with {@link PropertyNode#buildDiff()}.
+   *
+   * @param pLeft  left data model, null if it only exists on the right side
+   * @param pRight right data model, null if it only exists on the left side
+   * @param pNode  Node of the data models
+   * @param pEqual subtrees below the node, that are equal on both sides, null if unknown
+   */
+  private void matchChildren(@Nullable IPropertyPitProvider<?, ?, ?> pLeft, @Nullable IPropertyPitProvider<?, ?, ?> pRight,
+                             @NonNull PropertyNode pNode, @Nullable EqualSubtrees pEqual)
+  {
+    // the nodes are created in the same order as by attach: all left children first, then the children that only exist on the right side
+    Map<String, IProperty<?, ?>[]> children = new LinkedHashMap<>();
+    if (!collectChildren(pLeft, 0, children) || !collectChildren(pRight, 1, children))
+    {
+      // the node merges children with ambiguous names, so this node is built and pruned the usual way
+      if (pLeft != null)
+        readChildren(pLeft).forEach(pProp -> attach(EDirection.LEFT, pProp, pNode, pEqual));
+      if (pRight != null)
+        readChildren(pRight).forEach(pProp -> attach(EDirection.RIGHT, pProp, pNode, pEqual));
+      pNode.buildChildDiff();
+      return;
+    }
+
+    for (IProperty<?, ?>[] pair : children.values())
+      matchEntry(pair[0], pair[1], pNode, pEqual);
+  }
+
+  /**
+   * Collects the children of the given data model, keyed the same way as the node identifies them
+   *
+   * @param pProvider data model to read, null if it does not exist
+   * @param pSide     index of the side inside the collected arrays, 0 for left and 1 for right
+   * @param pChildren collects the children of both sides
+   * @return false, if the names are ambiguous
+   */
+  private boolean collectChildren(@Nullable IPropertyPitProvider<?, ?, ?> pProvider, int pSide, @NonNull Map<String, IProperty<?, ?>[]> pChildren)
+  {
+    if (pProvider == null)
+      return true;
+
+    for (IProperty<?, ?> property : readChildren(pProvider))
+    {
+      // data models without value do not get a node
+      if (IPropertyPitProvider.class.isAssignableFrom(property.getType()) && property.getValue() == null)
+        continue;
+
+      IProperty<?, ?>[] pair = pChildren.computeIfAbsent(getKey(property), pKey -> new IProperty<?, ?>[2]);
+      if (pair[pSide] != null)
+        return false;
+      pair[pSide] = property;
+    }
+
+    return true;
+  }
+
+  /**
+   * Matches both sides of a single child and appends a node to the parent, if they differ
+   *
+   * @param pLeft   left side of the child, null if it only exists on the right side
+   * @param pRight  right side of the child, null if it only exists on the left side
+   * @param pParent Node to append the child to
+   * @param pEqual  subtrees below the parent, that are equal on both sides, null if unknown
+   */
+  private void matchEntry(@Nullable IProperty<?, ?> pLeft, @Nullable IProperty<?, ?> pRight, @NonNull PropertyNode pParent,
+                          @Nullable EqualSubtrees pEqual)
+  {
+    IProperty<?, ?> property = Objects.requireNonNull(pLeft != null ? pLeft : pRight);
+    if (!IPropertyPitProvider.class.isAssignableFrom(property.getType()))
+    {
+      if (!PropertyPair.isEqual(pLeft, pRight))
+      {
+        if (pLeft != null)
+          pParent.addProperty(EDirection.LEFT, pLeft);
+        if (pRight != null)
+          pParent.addProperty(EDirection.RIGHT, pRight);
+      }
+      return;
+    }
+
+    EqualSubtrees equal = EqualSubtrees.getChild(pEqual, property.getName());
+    if (equal != null && equal.equal)
+      return;
+
+    IPropertyPitProvider<?, ?, ?> left = pLeft == null ? null : (IPropertyPitProvider<?, ?, ?>) pLeft.getValue();
+    IPropertyPitProvider<?, ?, ?> right = pRight == null ? null : (IPropertyPitProvider<?, ?, ?>) pRight.getValue();
+    IPropertyPitProvider<?, ?, ?> any = Objects.requireNonNull(left != null ? left : right);
+
+    // lazy models are added to the tree first, they are matched on demand
+    if (lazyNodePolicy != null && lazyNodePolicy.isLazy(any))
+    {
+      PropertyNode node = null;
+      for (EDirection direction : EDirection.values())
+      {
+        IProperty<?, ?> side = direction == EDirection.LEFT ? pLeft : pRight;
+        if (side != null)
+          node = pParent.addProvider(direction, (IPropertyPitProvider<?, ?, ?>) side.getValue());
+      }
+
+      if (node != null)
+      {
+        PropertyNode lazyNode = node;
+        lazyNode.setChildLoader(() -> loadChildren(lazyNode));
+        lazyNodes.add(lazyNode);
+      }
+      return;
+    }
+
+    PropertyNode node = left != null ? new PropertyNode(EDirection.LEFT, left) : new PropertyNode(EDirection.RIGHT, right);
+    if (left != null && right != null)
+      node.getPair().setProvider(EDirection.RIGHT, right);
+
+    matchChildren(left, right, node, equal);
+    node.removeUnmanagedChildren();
+
+    if (!ProviderPair.isEqual(left, right) || node.getChildCount() > 0)
+      pParent.add(node);
+  }
+
+  /**
+   * Creates and compares the children of a node, whose creation was deferred by the {@link ILazyNodePolicy}
+   *
+   * @param pNode Node to create the children for
+   */
+  private void loadChildren(@NonNull PropertyNode pNode)
+  {
+    for (EDirection direction : EDirection.values())
+    {
+      IPropertyPitProvider<?, ?, ?> provider = getProvider(pNode, direction);
+      if (provider != null)
+      {
+        filter.reset();
+        provider.getPit().getProperties()
+            .forEach(pProp -> buildTree(direction, pProp, pNode, null));
+      }
+    }
+
+    pNode.reorder();
+    pNode.buildChildDiff();
+  }
+
+  /**
+   * Searches all subtrees of the given source models, that are equal on both sides.
+   * Only data models, that exist on both sides with the same (case-insensitive) name, are compared.
+   * The hashes of both sides are cached per hierarchy, so unchanged models are not read again by later matches.
+   *
+   * @param pLeft        left data model of a source hierarchy
+   * @param pLeftHasher  hasher for the left side
+   * @param pRight       right data model of a source hierarchy
+   * @param pRightHasher hasher for the right side
+   * @return the equal subtrees
+   */
+  @NonNull
+  private EqualSubtrees findEqualSubtrees(@NonNull IPropertyPitProvider<?, ?, ?> pLeft, @NonNull PropertyPitHasher pLeftHasher,
+                                          @NonNull IPropertyPitProvider<?, ?, ?> pRight, @NonNull PropertyPitHasher pRightHasher)
+  {
+    EqualSubtrees result = new EqualSubtrees();
+    PropertyPitHasher.Hash leftHash = pLeftHasher.hash(pLeft);
+    if (!leftHash.equals(PropertyPitHasher.NO_HASH) && leftHash.equals(pRightHasher.hash(pRight)))
+    {
+      result.equal = true;
+      return result;
+    }
+
+    Map<String, IPropertyPitProvider<?, ?, ?>> leftChildren = getChildProviders(pLeft);
+    Map<String, IPropertyPitProvider<?, ?, ?>> rightChildren = getChildProviders(pRight);
+    for (Map.Entry<String, IPropertyPitProvider<?, ?, ?>> leftChild : leftChildren.entrySet())
+    {
+      IPropertyPitProvider<?, ?, ?> rightChild = rightChildren.get(leftChild.getKey());
+      if (leftChild.getValue() != null && rightChild != null)
+      {
+        EqualSubtrees child = findEqualSubtrees(leftChild.getValue(), pLeftHasher, rightChild, pRightHasher);
+        if (child.equal || !child.children.isEmpty())
+          result.children.put(leftChild.getKey(), child);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Collects the child data models of the given model, that pass the filter
+   *
+   * @param pProvider Model to read
+   * @return the children, keyed by their uppercased name. Ambiguous names are mapped to null.
+   */
+  @NonNull
+  private Map<String, IPropertyPitProvider<?, ?, ?>> getChildProviders(@NonNull IPropertyPitProvider<?, ?, ?> pProvider)
+  {
+    Map<String, IPropertyPitProvider<?, ?, ?>> children = new HashMap<>();
+    for (IProperty<?, ?> property : pProvider.getPit().getProperties())
+    {
+      if (IPropertyPitProvider.class.isAssignableFrom(property.getType()) && property.getValue() != null && filter.test(property))
+      {
+        String name = property.getName().toUpperCase(Locale.ROOT);
+        if (children.containsKey(name))
+          children.put(name, null);
+        else
+          children.put(name, (IPropertyPitProvider<?, ?, ?>) property.getValue());
+      }
+    }
+    return children;
+  }
+
+  /**
+   * @param pProperty Property to identify
+   * @return the key, that identifies the property the same way as the node does:
+   * case-insensitive for providers, case-sensitive for properties
+   */
+  @NonNull
+  private static String getKey(@NonNull IProperty<?, ?> pProperty)
+  {
+    if (IPropertyPitProvider.class.isAssignableFrom(pProperty.getType()))
+      return "provider:" + pProperty.getName().toUpperCase(Locale.ROOT);
+    return "property:" + pProperty.getName();
+  }
+
+  /**
+   * Reads the children of a data model, that should be compared
+   *
+   * @param pProvider data model to read
+   * @return the children that pass the filter
+   */
+  @NonNull
+  private List<IProperty<?, ?>> readChildren(@NonNull IPropertyPitProvider<?, ?, ?> pProvider)
+  {
+    List<IProperty<?, ?>> children = new ArrayList<>();
+    for (IProperty<?, ?> property : pProvider.getPit().getProperties())
+      if (filter.test(property))
+        children.add(property);
+    return children;
+  }
+
+  /**
+   * @param pNode      Node to read
+   * @param pDirection Side to read
+   * @return the data model of the node on the given side, or null if it does not exist there
+   */
+  @Nullable
+  private static IPropertyPitProvider<?, ?, ?> getProvider(@NonNull PropertyNode pNode, @NonNull EDirection pDirection)
+  {
+    Object managedObject = pNode.getPair().getManagedObject(pDirection);
+    return managedObject instanceof IPropertyPitProvider ? (IPropertyPitProvider<?, ?, ?>) managedObject : null;
+  }
+
+  /**
+   * Subtrees of the source models, that have the same hash on both sides.
+   * The tree only contains the paths to the equal subtrees.
+   */
+  private static class EqualSubtrees
+  {
+    // Children, keyed by their uppercased name
+    private final Map<String, EqualSubtrees> children = new HashMap<>();
+    // true, if this subtree is equal on both sides
+    private boolean equal;
+
+    /**
+     * @param pParent Parent subtree, null if unknown
+     * @param pName   Name of the child
+     * @return the subtree of the child, or null if nothing is known about it
+     */
+    @Nullable
+    static EqualSubtrees getChild(@Nullable EqualSubtrees pParent, @NonNull String pName)
+    {
+      return pParent == null ? null : pParent.children.get(pName.toUpperCase(Locale.ROOT));
+    }
+  }
 
 }
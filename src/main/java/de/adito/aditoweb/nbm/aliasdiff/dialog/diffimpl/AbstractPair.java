@@ -137,6 +137,15 @@ public abstract class AbstractPair
   @Nullable
   protected abstract IPropertyPitProvider<?, ?, ?> create(@NonNull EDirection pDirection); //NOSONAR generics are allowed here
 
+  /**
+   * Notifies the host node, that the managed objects changed, so that its cached differences are outdated and the tree can be updated.
+   * Has to be called by every method, that changes the managed objects or their values.
+   */
+  protected void invalidate()
+  {
+    host.pairChanged();
+  }
+
   /**
    * Returns the managed object
    *
@@ -14,11 +14,26 @@ import lombok.NonNull;
  */
 public class DefaultPropertyFilter implements IPropertyFilter
 {
+  // Annotations of a class can not change, so the reflective lookup is done only once per type
+  private static final ClassValue<Boolean> DIFF_TYPES = new ClassValue<>()
+  {
+    @Override
+    protected Boolean computeValue(Class<?> pType)
+    {
+      return pType.isAnnotationPresent(DIFF.class);
+    }
+  };
 
   @Override
   public boolean test(@NonNull IProperty<?, ?> pProperty)
   {
     IPropertyDescription<?, ?> pDescr = pProperty.getDescription();
-    return pDescr.isAnnotationPresent(DIFF.class) || pDescr.getType().isAnnotationPresent(DIFF.class);
+    return pDescr.isAnnotationPresent(DIFF.class) || DIFF_TYPES.get(pDescr.getType());
+  }
+
+  @Override
+  public boolean isCacheable(@NonNull IProperty<?, ?> pProperty)
+  {
+    return true;
   }
 }
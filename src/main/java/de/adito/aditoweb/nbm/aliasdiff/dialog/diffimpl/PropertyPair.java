@@ -30,6 +30,7 @@ public class PropertyPair extends AbstractPair
   @Override
   public void setProperty(@NonNull EDirection pDirection, @Nullable IProperty<?, ?> pProperty)
   {
+    invalidate();
     if (pProperty != null && name == null)
       name = pProperty.getName();
 
@@ -61,16 +62,28 @@ public class PropertyPair extends AbstractPair
   @Override
   public boolean isEqual()
   {
-    if (leftProperty == null && rightProperty == null)
+    return isEqual(leftProperty, rightProperty);
+  }
+
+  /**
+   * Compares two properties of a {@link BulkModifyHierarchy}, without creating a pair for them
+   *
+   * @param pLeft  left property, null if it does not exist
+   * @param pRight right property, null if it does not exist
+   * @return true, if a pair of both properties would be equal
+   */
+  public static boolean isEqual(@Nullable IProperty<?, ?> pLeft, @Nullable IProperty<?, ?> pRight)
+  {
+    if (pLeft == null && pRight == null)
       return true;
 
-    if (leftProperty == null || rightProperty == null)
+    if (pLeft == null || pRight == null)
       return false;
 
-    if (Objects.equals(leftProperty.getValue(), rightProperty.getValue()))
+    if (Objects.equals(pLeft.getValue(), pRight.getValue()))
       return true;
 
-    return isDefaultOrNull(leftProperty) && isDefaultOrNull(rightProperty);
+    return isDefaultOrNull(pLeft) && isDefaultOrNull(pRight);
   }
 
   @NonNull
@@ -98,6 +111,7 @@ public class PropertyPair extends AbstractPair
   @Override
   public void createDown(@NonNull EDirection pDirection, @Nullable IPropertyPitProvider<?, ?, ?> pParent) //NOSONAR I won't refactor this, because something will break for sure..
   {
+    invalidate();
     if (pDirection == EDirection.RIGHT && leftProperty != null)
     {
       if (rightProperty != null)
@@ -143,6 +157,7 @@ public class PropertyPair extends AbstractPair
   @Override
   public void deleteDown(@NonNull EDirection pDirection)
   {
+    invalidate();
     if (pDirection == EDirection.LEFT)
       leftProperty = null;
 
@@ -187,6 +202,7 @@ public class PropertyPair extends AbstractPair
   @Override
   public void update(@NonNull EDirection pDirection) //NOSONAR I won't refactor this, because something will break for sure..
   {
+    invalidate();
     // as long as the old value has not been restored, no new one can be set.
     if (restoreHandler != null)
       return;
@@ -260,6 +276,7 @@ public class PropertyPair extends AbstractPair
   @Override
   public void restore() //NOSONAR I won't refactor this, because something will break for sure..
   {
+    invalidate();
     if (restoreHandler != null)
     {
       EDirection direction = restoreHandler.getDirection();
@@ -319,7 +336,7 @@ public class PropertyPair extends AbstractPair
    * @param pProperty Property that should be checked
    * @return true, if it is default or has a null value
    */
-  private boolean isDefaultOrNull(@NonNull IProperty<?, ?> pProperty)
+  private static boolean isDefaultOrNull(@NonNull IProperty<?, ?> pProperty)
   {
     IHierarchy<?> hierarchy = ((BulkModifyHierarchy<?>) pProperty.getHierarchy()).getSourceHierarchy();
     if (hierarchy instanceof DataModelHierarchy)
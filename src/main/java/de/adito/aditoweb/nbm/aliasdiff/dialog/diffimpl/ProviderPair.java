@@ -32,6 +32,7 @@ public class ProviderPair extends AbstractPair
   @Override
   public void setProvider(@NonNull EDirection pDirection, @Nullable IPropertyPitProvider<?, ?, ?> pProvider)
   {
+    invalidate();
     if (pProvider != null && name == null)
     {
       IProperty<?, ?> ownProp = pProvider.getPit().getOwnProperty();
@@ -88,14 +89,27 @@ public class ProviderPair extends AbstractPair
   @Override
   public boolean isEqual()
   {
-    if (leftProvider == null && rightProvider == null)
+    return isEqual(leftProvider, rightProvider);
+  }
+
+  /**
+   * Compares two data models, without creating a pair for them.
+   * Only the existence is compared, the children of the models are compared by their own nodes.
+   *
+   * @param pLeft  left data model, null if it does not exist
+   * @param pRight right data model, null if it does not exist
+   * @return true, if a pair of both data models would be equal
+   */
+  public static boolean isEqual(@Nullable IPropertyPitProvider<?, ?, ?> pLeft, @Nullable IPropertyPitProvider<?, ?, ?> pRight)
+  {
+    if (pLeft == null && pRight == null)
       return true;
 
-    if (leftProvider != null && rightProvider == null)
-      return leftProvider.getPit().getProperties().isEmpty();
+    if (pLeft != null && pRight == null)
+      return pLeft.getPit().getProperties().isEmpty();
 
-    if (leftProvider == null)
-      return rightProvider.getPit().getProperties().isEmpty();
+    if (pLeft == null)
+      return pRight.getPit().getProperties().isEmpty();
 
     return true;
   }
@@ -103,6 +117,7 @@ public class ProviderPair extends AbstractPair
   @Override
   public void createDown(@NonNull EDirection pDirection, @Nullable IPropertyPitProvider<?, ?, ?> pParent)
   {
+    invalidate();
     if (pDirection == EDirection.RIGHT)
     {
       if (rightProvider == null && leftProvider != null)
@@ -125,6 +140,7 @@ public class ProviderPair extends AbstractPair
   @Override
   public void deleteDown(@NonNull EDirection pDirection)
   {
+    invalidate();
     if (pDirection == EDirection.RIGHT && rightProvider != null)
     {
       getHost().deleteDown(pDirection);
@@ -141,6 +157,7 @@ public class ProviderPair extends AbstractPair
   @Override
   protected IPropertyPitProvider<?, ?, ?> create(@NonNull EDirection pDirection) //NOSONAR I won't refactor this, because something will break for sure..
   {
+    invalidate();
     if (pDirection == EDirection.LEFT)
     {
       if (leftProvider == null && restoreHandler == null)
@@ -240,6 +257,7 @@ public class ProviderPair extends AbstractPair
   @Override
   public void update(@NonNull EDirection pDirection) //NOSONAR I won't refactor this, because something will break for sure..
   {
+    invalidate();
     if (restoreHandler != null)
       return;
 
@@ -360,6 +378,7 @@ public class ProviderPair extends AbstractPair
   @Override
   public void restore() //NOSONAR I won't refactor this, because something will break for sure..
   {
+    invalidate();
     if (restoreHandler != null)
     {
       EDirection direction = restoreHandler.getDirection();
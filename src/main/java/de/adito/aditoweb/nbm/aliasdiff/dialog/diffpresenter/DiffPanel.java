@@ -8,6 +8,7 @@ import de.adito.aditoweb.swingcommon.layout.tablelayout.*;
 import de.adito.aditoweb.swingcommon.util.ButtonUtil;
 import de.adito.aditoweb.swingcommon.util.treeutil.TreeUtil;
 import lombok.*;
+import lombok.extern.java.Log;
 import org.jetbrains.annotations.Nullable;
 import org.openide.util.NbBundle;
 
@@ -20,6 +21,8 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 
 /**
@@ -32,6 +35,7 @@ import java.util.*;
  * @author t.tasior, 09.02.2018
  * @author w.glanzer, 29.06.2023 (refactored, translated)
  */
+@Log
 public class DiffPanel extends JComponent
 {
   private static final String READONLY = " " + NbBundle.getMessage(DiffPanel.class, "TXT_Readonly");
@@ -44,11 +48,15 @@ public class DiffPanel extends JComponent
 
   private final transient IDiffNode root;
   private final transient IUpdateHandler updateHandler;
+  // true, if the tree is only a preview of a diff, that is still running. Neither side of a preview can be updated or restored.
+  private final boolean preview;
   private final JToolTip userdefinedToolTip;
   private final transient IDiffNode topNode;
   private DefaultTreeModel model;
   private TreeSelectionModel selectionModel; //NOSONAR
   private ExpansionListener expansionListener; //NOSONAR
+  private LoadingListener loadingListener; //NOSONAR
+  private final transient DiffTreeUpdater treeUpdater;
   private JTree leftTree;
   private JTree rightTree;
   private BoundedRangeModel verticalModel; //NOSONAR
@@ -56,11 +64,16 @@ public class DiffPanel extends JComponent
 
   private transient IDiffNode mouseSelectedNode;
   private final transient NavigationHandler navigationHandler;
+  private final transient DifferenceCounter differenceCounter;
+  // last result of the differenceCounter, only accessed in EDT
+  private int differences;
+  private boolean canRestore;
   private final ActionUpdate actionUpdateRight = new ActionUpdate(EDirection.RIGHT);
   private final ActionUpdate actionUpdateLeft = new ActionUpdate(EDirection.LEFT);
   private final Action actionRestore = new ActionRestore();
 
   private final RightHeader rightHeader;
+  private final ButtonBar buttonBar;
   private JButton buttonExpandCollapse;
 
 
@@ -72,9 +85,24 @@ public class DiffPanel extends JComponent
    * @param pUserdefinedToolTip a specialized tooltip on the right upper corner
    */
   public DiffPanel(@NonNull IDiffNode pRoot, @Nullable IUpdateHandler pUpdateHandler, @Nullable JToolTip pUserdefinedToolTip)
+  {
+    this(pRoot, pUpdateHandler, pUserdefinedToolTip, false);
+  }
+
+  /**
+   * Initialize with the root node
+   *
+   * @param pRoot               root node of the tree
+   * @param pUpdateHandler      determines which updates are allowed on gui
+   * @param pUserdefinedToolTip a specialized tooltip on the right upper corner
+   * @param pPreview            true, if the tree is only a preview of a diff, that is still running
+   */
+  private DiffPanel(@NonNull IDiffNode pRoot, @Nullable IUpdateHandler pUpdateHandler, @Nullable JToolTip pUserdefinedToolTip, boolean pPreview)
   {
     root = pRoot;
+    preview = pPreview;
     navigationHandler = new NavigationHandler(root);
+    differenceCounter = new DifferenceCounter(root, this::differencesCounted);
     updateHandler = (pUpdateHandler != null) ? pUpdateHandler : IUpdateHandler.DEFAULT;
     userdefinedToolTip = pUserdefinedToolTip;
 
@@ -94,20 +122,26 @@ public class DiffPanel extends JComponent
     TableLayoutUtil tlu = new TableLayoutUtil(this);
 
     precreate(pRoot);
+    treeUpdater = new DiffTreeUpdater(model);
+    pRoot.setChangeListener(pNode -> {
+      treeUpdater.nodeChanged(pNode);
+      differenceCounter.nodeChanged(pNode);
+    });
 
     rightHeader = new RightHeader();
+    buttonBar = new ButtonBar();
 
     tlu.add(1, 1, new LeftHeader()); // left - only view
     tlu.add(3, 1, rightHeader); // right - view and computation
     tlu.add(1, 3, createLeftTree());
     tlu.add(3, 3, createRightTree());
-    tlu.add(2, 1, 2, 3, new ButtonBar());
+    tlu.add(2, 1, 2, 3, buttonBar);
 
     TreePath[] paths = TreeUtil.getPaths(leftTree, true);
     topNode = (IDiffNode) paths[0].getLastPathComponent();
-    TreeUtil.expandChilds(leftTree, paths[0], true);
+    expandLoaded(paths[0]);
 
-    rightHeader.updateDifferences();
+    differenceCounter.update();
 
     InputMap inputMap = getInputMap(WHEN_IN_FOCUSED_WINDOW);
     ActionMap actionMap = getActionMap();
@@ -126,6 +160,43 @@ public class DiffPanel extends JComponent
     updateExpandCollapseState();
   }
 
+  /**
+   * Creates a panel, that shows the first tables of a diff, that is still running.
+   * Neither side can be updated or restored, the further tables are appended with {@link #append(PropertyNode)}.
+   *
+   * @param pRoot view of the tree, that contains the first tables
+   * @return the panel
+   */
+  @NonNull
+  public static DiffPanel createPreview(@NonNull CompactDiffTree.Node pRoot)
+  {
+    return new DiffPanel(pRoot, null, null, true);
+  }
+
+  /**
+   * Moves the nodes of the given tree into the tree of this preview and appends them below the root.
+   * Has to be called in EDT.
+   *
+   * @param pTree tree, that contains further tables of the diff
+   * @see #createPreview(CompactDiffTree.Node)
+   */
+  public void append(@NonNull PropertyNode pTree)
+  {
+    if (!preview)
+      throw new IllegalStateException("Nodes can only be appended to a preview");
+
+    CompactDiffTree.Node view = (CompactDiffTree.Node) root;
+    List<PropertyNode> added = ((PropertyNode) view.getOriginal()).merge(pTree);
+    int[] indices = view.getTree().appendChildren(added);
+    if (indices.length > 0)
+      model.nodesWereInserted(root, indices);
+
+    treeUpdater.nodeLoaded(root);
+    navigationHandler.structureChanged();
+    differenceCounter.nodesAdded(added);
+    differenceCounter.update();
+  }
+
   /**
    * Determines, if the given side was changed by any user input
    *
@@ -137,6 +208,27 @@ public class DiffPanel extends JComponent
     return pDirection == EDirection.RIGHT ? actionUpdateRight.isExecuted() : actionUpdateLeft.isExecuted();
   }
 
+  @Override
+  public void removeNotify()
+  {
+    differenceCounter.cancel();
+    super.removeNotify();
+  }
+
+  /**
+   * Shows the result of the differenceCounter
+   *
+   * @param pDifferences count of differences in the whole tree
+   * @param pCanRestore  true, if any node of the tree can be restored
+   */
+  private void differencesCounted(int pDifferences, boolean pCanRestore)
+  {
+    differences = pDifferences;
+    canRestore = pCanRestore;
+    rightHeader.updateDifferences(pDifferences);
+    buttonBar.updateButtons();
+  }
+
   /**
    * In order to synchronize behavior (selection, vert. scrolling) of the
    * two trees, the (swing) data models are combined where necessary.
@@ -152,6 +244,7 @@ public class DiffPanel extends JComponent
 
     selectionModel = t.getSelectionModel();
     expansionListener = new ExpansionListener();
+    loadingListener = new LoadingListener();
 
     JScrollPane s = new JScrollPane();
     verticalModel = s.getVerticalScrollBar().getModel();
@@ -168,6 +261,7 @@ public class DiffPanel extends JComponent
 
     leftTree.setCellRenderer(new CellRenderer(left));
     leftTree.setSelectionModel(selectionModel);
+    leftTree.addTreeWillExpandListener(loadingListener);
     leftTree.addTreeExpansionListener(expansionListener);
     leftTree.setOpaque(false);
     leftTree.setRootVisible(false);
@@ -195,6 +289,7 @@ public class DiffPanel extends JComponent
 
     rightTree.setCellRenderer(new CellRenderer(right));
     rightTree.setSelectionModel(selectionModel);
+    rightTree.addTreeWillExpandListener(loadingListener);
     rightTree.addTreeExpansionListener(expansionListener);
     rightTree.setOpaque(false);
     rightTree.setRootVisible(false);
@@ -229,6 +324,29 @@ public class DiffPanel extends JComponent
     }
   }
 
+  /**
+   * Expands the given path and all of its descendants, whose children were already created.
+   * Nodes, that would have to be loaded first, stay collapsed until the user expands them.
+   *
+   * @param pPath path to expand
+   */
+  private void expandLoaded(@NonNull TreePath pPath)
+  {
+    Object node = pPath.getLastPathComponent();
+    if (node instanceof IDiffNode && !((IDiffNode) node).isLoaded())
+      return;
+
+    leftTree.expandPath(pPath);
+
+    TreeNode treeNode = (TreeNode) node;
+    for (int i = 0; i < treeNode.getChildCount(); i++)
+    {
+      TreeNode child = treeNode.getChildAt(i);
+      if (!model.isLeaf(child))
+        expandLoaded(pPath.pathByAddingChild(child));
+    }
+  }
+
   /**
    * Updates the left and right tree states
    *
@@ -308,7 +426,7 @@ public class DiffPanel extends JComponent
     @Override
     public boolean isEnabled()
     {
-      if (root.isReadOnly(direction))
+      if (preview || root.isReadOnly(direction))
         return false;
 
       TreePath[] sel = selectionModel.getSelectionPaths();
@@ -328,12 +446,14 @@ public class DiffPanel extends JComponent
           IDiffNode n = (IDiffNode) path.getLastPathComponent();
 
           n.getPair().update(direction);
-          TreeUtil.refresh(leftTree, n);
           executed = true;
         }
       }
 
-      rightHeader.updateDifferences();
+      // only the rows of the changed nodes and of their parents have to be repainted
+      navigationHandler.rowsChanged(treeUpdater.fireChanges());
+
+      differenceCounter.update();
     }
   }
 
@@ -346,7 +466,7 @@ public class DiffPanel extends JComponent
     public boolean isEnabled()
     {
       TreePath[] sel = selectionModel.getSelectionPaths();
-      return sel != null;
+      return !preview && sel != null;
     }
 
     @Override
@@ -362,9 +482,12 @@ public class DiffPanel extends JComponent
           IDiffNode n = (IDiffNode) path.getLastPathComponent();
 
           n.getPair().restore();
-          TreeUtil.refresh(leftTree, n);
         }
       }
+
+      navigationHandler.rowsChanged(treeUpdater.fireChanges());
+
+      differenceCounter.update();
     }
   }
 
@@ -419,6 +542,34 @@ public class DiffPanel extends JComponent
     }
   }
 
+  /**
+   * Creates the children of nodes, that were not loaded yet, right before they get expanded
+   */
+  private class LoadingListener implements TreeWillExpandListener
+  {
+    @Override
+    public void treeWillExpand(TreeExpansionEvent e)
+    {
+      Object node = e.getPath().getLastPathComponent();
+      if (node instanceof IDiffNode && !((IDiffNode) node).isLoaded())
+      {
+        ((IDiffNode) node).load();
+        model.nodeStructureChanged((TreeNode) node);
+        treeUpdater.nodeLoaded((TreeNode) node);
+        navigationHandler.structureChanged();
+
+        // the estimated differences of the node were replaced by the real ones
+        differenceCounter.update();
+      }
+    }
+
+    @Override
+    public void treeWillCollapse(TreeExpansionEvent e)
+    {
+      // nothing to do
+    }
+  }
+
   /**
    * Allows you to select a node when the mouse is clicked anywhere in the area of the tree.
    */
@@ -462,7 +613,7 @@ public class DiffPanel extends JComponent
       IDiffNode node = (IDiffNode) value;
       label.setText(node.nameForDisplay(direction));
 
-      // update icon
+      // update icon, the cached states are only validated in EDT, so no lock is needed
       node.collectDiffStates(null).update(diffIcon);
 
       if (selected)
@@ -476,14 +627,48 @@ public class DiffPanel extends JComponent
 
   /**
    * Symbolizes the value differences of an IDiffNode in color and draws the selection of a node.
+   * Only the rows, that intersect the painted area, are painted. The colors of the rows are cached and
+   * the cache is cleared, whenever the rows or the nodes of the tree change.
    */
   @RequiredArgsConstructor
   private static class MarkerViewport extends JViewport
   {
     private static final Color BG_SELECTED = new JTable().getSelectionBackground();
+    private static final Color[] COLORS = createColors();
+    private static final byte UNKNOWN = -1;
+    private static final byte NONE = -2;
+    private static final int PAINTS_PER_LOG = 100;
 
     @NonNull
     private final EDirection direction;
+    private final transient CacheInvalidator cacheInvalidator = new CacheInvalidator();
+
+    // index into COLORS for every row, UNKNOWN if the row was not painted since the last change
+    private byte[] rowColors = new byte[0];
+    // paint time of the diff rectangles, summed up until they get logged
+    private int paintCount;
+    private long paintNanos;
+    private long maxPaintNanos;
+
+    @Override
+    public void setView(Component pView)
+    {
+      Component oldView = getView();
+      if (oldView instanceof JTree)
+      {
+        ((JTree) oldView).getModel().removeTreeModelListener(cacheInvalidator);
+        ((JTree) oldView).removeTreeExpansionListener(cacheInvalidator);
+      }
+
+      super.setView(pView);
+
+      if (pView instanceof JTree)
+      {
+        ((JTree) pView).getModel().addTreeModelListener(cacheInvalidator);
+        ((JTree) pView).addTreeExpansionListener(cacheInvalidator);
+      }
+      invalidateRowColors();
+    }
 
     @Override
     protected void paintComponent(Graphics pG)
@@ -492,66 +677,135 @@ public class DiffPanel extends JComponent
       Graphics2D g = (Graphics2D) pG;
       JTree tree = (JTree) getView();
 
+      long start = System.nanoTime();
       paintDiff(g, tree);
+      logPaintTime(System.nanoTime() - start);
+
       paintTreeSelection(g, tree);
     }
 
     /**
-     * Paints the difference rectangle
+     * Paints the difference rectangles of all rows, that intersect the painted area
      *
      * @param pGraphics Graphics to render to
      * @param pTree     Tree to render
      */
-    private void paintDiff(@NonNull Graphics2D pGraphics, @NonNull JTree pTree) //NOSONAR I won't refactor this, because something will break for sure..
+    private void paintDiff(@NonNull Graphics2D pGraphics, @NonNull JTree pTree)
     {
       int count = pTree.getRowCount();
-      for (int i = 0; i < count; i++)
-      {
-        TreePath path = pTree.getPathForRow(i);
-        if (path != null)
-        {
-          IDiffNode n = (IDiffNode) path.getLastPathComponent();
+      if (count == 0)
+        return;
 
-          EDiff diff = n.getDiff(direction);
-          if (diff != EDiff.NOT_EVALUATED)
-          {
-            Rectangle r = pTree.getPathBounds(path);
-            if (r == null)
-              r = new Rectangle();
-            r.x = 0;
-            r.width = getViewRect().width;
-            r.y -= (getViewPosition().y);
+      if (rowColors.length != count)
+        invalidateRowColors(count);
 
-            if (diff == EDiff.EQUAL)
-            {
-              pGraphics.setColor(DiffColors.EQUAL);
-              pGraphics.fill(r);
-            }
-
-            if (diff == EDiff.DIFFERENT)
-            {
-              pGraphics.setColor(DiffColors.DIFFERENT);
-              pGraphics.fill(r);
-            }
-
-            if (diff == EDiff.MISSING)
-            {
-              pGraphics.setColor(DiffColors.MISSING);
-              pGraphics.fill(r);
-            }
-
-            if (diff == EDiff.DELETED)
-            {
-              pGraphics.setColor(DiffColors.DELETED);
-              pGraphics.fill(r);
-            }
-          }
-        }
-        else
-          break;
+      // the painted area in coordinates of the tree
+      Rectangle viewRect = getViewRect();
+      Rectangle clip = pGraphics.getClipBounds();
+      int top = viewRect.y + (clip == null ? 0 : clip.y);
+      int bottom = top + (clip == null ? viewRect.height : clip.height);
+
+      int first = pTree.getClosestRowForLocation(0, top);
+      int last = pTree.getClosestRowForLocation(0, bottom);
+      if (first < 0 || last < 0)
+        return;
+
+      for (int i = first; i <= last; i++)
+      {
+        byte color = getRowColor(pTree, i);
+        if (color == NONE)
+          continue;
+
+        Rectangle r = pTree.getRowBounds(i);
+        if (r == null)
+          continue;
+
+        r.x = 0;
+        r.width = viewRect.width;
+        r.y -= viewRect.y;
+        pGraphics.setColor(COLORS[color]);
+        pGraphics.fill(r);
       }
     }
 
+    /**
+     * Returns the cached color of the given row and determines it, if the row was not painted since the last change
+     *
+     * @param pTree Tree to read
+     * @param pRow  Row to get the color for
+     * @return the index of the color in COLORS, or NONE if the row should not be colored
+     */
+    private byte getRowColor(@NonNull JTree pTree, int pRow)
+    {
+      byte color = rowColors[pRow];
+      if (color == UNKNOWN)
+      {
+        TreePath path = pTree.getPathForRow(pRow);
+        EDiff diff = path == null ? EDiff.NOT_EVALUATED : ((IDiffNode) path.getLastPathComponent()).getDiff(direction);
+        color = COLORS[diff.ordinal()] == null ? NONE : (byte) diff.ordinal();
+        rowColors[pRow] = color;
+      }
+      return color;
+    }
+
+    /**
+     * Clears the cached colors of all rows
+     */
+    private void invalidateRowColors()
+    {
+      invalidateRowColors(rowColors.length);
+    }
+
+    /**
+     * Clears the cached colors of all rows
+     *
+     * @param pRowCount count of rows, that the tree currently has
+     */
+    private void invalidateRowColors(int pRowCount)
+    {
+      if (rowColors.length != pRowCount)
+        rowColors = new byte[pRowCount];
+      Arrays.fill(rowColors, UNKNOWN);
+    }
+
+    /**
+     * Sums up the time of a single paint and logs the average and maximum time after every {@value #PAINTS_PER_LOG} paints
+     *
+     * @param pNanos time, that the diff rectangles took to paint
+     */
+    private void logPaintTime(long pNanos)
+    {
+      if (!log.isLoggable(Level.FINE))
+        return;
+
+      paintCount++;
+      paintNanos += pNanos;
+      maxPaintNanos = Math.max(maxPaintNanos, pNanos);
+      if (paintCount < PAINTS_PER_LOG)
+        return;
+
+      log.fine(String.format("Painted the %s diff of %d rows %d times: %.3f ms average, %.3f ms maximum", direction,
+                             rowColors.length, paintCount, paintNanos / (double) paintCount / TimeUnit.MILLISECONDS.toNanos(1),
+                             maxPaintNanos / (double) TimeUnit.MILLISECONDS.toNanos(1)));
+      paintCount = 0;
+      paintNanos = 0;
+      maxPaintNanos = 0;
+    }
+
+    /**
+     * @return the color of every type of difference, indexed by its ordinal. Null for types, that are not colored.
+     */
+    @NonNull
+    private static Color[] createColors()
+    {
+      Color[] colors = new Color[EDiff.values().length];
+      colors[EDiff.EQUAL.ordinal()] = DiffColors.EQUAL;
+      colors[EDiff.DIFFERENT.ordinal()] = DiffColors.DIFFERENT;
+      colors[EDiff.MISSING.ordinal()] = DiffColors.MISSING;
+      colors[EDiff.DELETED.ordinal()] = DiffColors.DELETED;
+      return colors;
+    }
+
     /**
      * Paints the selection inside the tree
      *
@@ -577,6 +831,48 @@ public class DiffPanel extends JComponent
         }
       }
     }
+
+    /**
+     * Clears the cached colors, whenever rows were added, removed or changed
+     */
+    private class CacheInvalidator implements TreeModelListener, TreeExpansionListener
+    {
+      @Override
+      public void treeNodesChanged(TreeModelEvent e)
+      {
+        invalidateRowColors();
+      }
+
+      @Override
+      public void treeNodesInserted(TreeModelEvent e)
+      {
+        invalidateRowColors();
+      }
+
+      @Override
+      public void treeNodesRemoved(TreeModelEvent e)
+      {
+        invalidateRowColors();
+      }
+
+      @Override
+      public void treeStructureChanged(TreeModelEvent e)
+      {
+        invalidateRowColors();
+      }
+
+      @Override
+      public void treeExpanded(TreeExpansionEvent e)
+      {
+        invalidateRowColors();
+      }
+
+      @Override
+      public void treeCollapsed(TreeExpansionEvent e)
+      {
+        invalidateRowColors();
+      }
+    }
   }
 
   /**
@@ -673,10 +969,10 @@ public class DiffPanel extends JComponent
 
     /**
      * Enabled / Disables buttons depending on the state of the tree or its nodes.
+     * Uses the last result of the differenceCounter, so that the tree does not have to be counted on every selection.
      */
     void updateButtons()
     {
-      final int differences = root.countDifferences();
       TreePath path = selectionModel.getLeadSelectionPath();
       if (buttonUpdateRight.getClientProperty(DISABLED) != DISABLED)
       {
@@ -702,8 +998,7 @@ public class DiffPanel extends JComponent
         }
       }
 
-      DiffStateCollector c = root.collectDiffStates(null);
-      buttonRestore.setEnabled(c.canRestore());
+      buttonRestore.setEnabled(!preview && canRestore);
 
       buttonJumpToPreviousDifference.setEnabled(differences > 0);
       buttonJumpToNextDifference.setEnabled(differences > 0);
@@ -754,7 +1049,7 @@ public class DiffPanel extends JComponent
 
       configure(buttonUpdateRight, NbBundle.getMessage(DiffPanel.class, "TXT_Provide_Data_To_R", getTitle(root, EDirection.RIGHT)) + " (Ctrl + R)");
 
-      if (!root.isReadOnly(EDirection.RIGHT))
+      if (!preview && !root.isReadOnly(EDirection.RIGHT))
       {
         buttonUpdateRight.addActionListener(actionUpdateRight);
         buttonUpdateRight.putClientProperty(DISABLED, null);
@@ -775,7 +1070,7 @@ public class DiffPanel extends JComponent
 
       configure(buttonUpdateLeft, NbBundle.getMessage(DiffPanel.class, "TXT_Provide_Data_To_L", getTitle(root, EDirection.LEFT)) + " (Ctrl + L)");
 
-      if (!root.isReadOnly(EDirection.LEFT))
+      if (!preview && !root.isReadOnly(EDirection.LEFT))
       {
         buttonUpdateLeft.addActionListener(actionUpdateLeft);
         buttonUpdateLeft.putClientProperty(DISABLED, null);
@@ -888,10 +1183,12 @@ public class DiffPanel extends JComponent
 
     /**
      * Updates the differences count
+     *
+     * @param pDifferences count of differences in the whole tree
      */
-    public void updateDifferences()
+    public void updateDifferences(int pDifferences)
     {
-      diffPresenter.setText(differences + root.countDifferences());
+      diffPresenter.setText(differences + pDifferences);
     }
 
     /**
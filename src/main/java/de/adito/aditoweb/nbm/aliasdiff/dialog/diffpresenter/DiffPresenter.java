@@ -29,6 +29,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
@@ -77,50 +78,139 @@ public class DiffPresenter
     final Dialog dlg = DialogDisplayer.getDefault().createDialog(descriptor);
     descriptor.setButtonListener(e -> {
       if (e.getSource() == ok)
+        apply(pProject, pRoot, diffPanel, dlg, pListener);
+      else if (e.getSource() == cancel)
+        dlg.dispose();
+    });
+
+    dlg.setSize(1200, 800);
+    dlg.setLocationRelativeTo(WindowManager.getDefault().getMainWindow());
+    dlg.setVisible(true);
+  }
+
+  /**
+   * Shows the dialog immediately, while the tree structure is still being created.
+   * The given progress component is shown until the tree is complete, the OK button is disabled until then.
+   * The future gets cancelled, if the dialog is closed before the tree is complete.
+   * If the tree does not contain any differences, the dialog gets closed and a balloon information is shown instead.
+   *
+   * @param pProject            Project for the current working context
+   * @param pRoot               Root Node that may contain differences, as soon as it was created. Completes with null, if the creation failed.
+   * @param pProgressComponent  Component that shows the progress of the creation
+   * @param pUpdateHandler      Determines which updates the tree will allow
+   * @param pListener           Listener that gets triggered, if OK was clicked
+   * @param pUserdefinedToolTip a tooltip to display
+   */
+  public static void show(@NonNull Project pProject, @NonNull CompletableFuture<IDiffNode> pRoot, @NonNull JComponent pProgressComponent,
+                          @Nullable IUpdateHandler pUpdateHandler, @Nullable ActionListener pListener, @Nullable JToolTip pUserdefinedToolTip)
+  {
+    JButton ok = new JButton(IButtonInscriptions.OK);
+    ok.setEnabled(false);
+    final String cancel = IButtonInscriptions.CANCEL;
+    Object[] buttons = {ok, cancel};
+
+    JPanel content = new JPanel(new BorderLayout());
+    content.add(pProgressComponent, BorderLayout.CENTER);
+    final DialogDescriptor descriptor = new DialogDescriptor(content,
+                                                             NbBundle.getMessage(DiffPresenter.class, "LBL_Diff_Running"), true, buttons, ok,
+                                                             DialogDescriptor.BOTTOM_ALIGN, null, null);
+    descriptor.setClosingOptions(new Object[]{});
+
+    final Dialog dlg = DialogDisplayer.getDefault().createDialog(descriptor);
+    descriptor.setButtonListener(e -> {
+      if (e.getSource() == ok && content.getComponent(0) instanceof DiffPanel)
+        apply(pProject, pRoot.join(), (DiffPanel) content.getComponent(0), dlg, pListener);
+      else if (e.getSource() == cancel)
+        dlg.dispose();
+    });
+    dlg.addWindowListener(new WindowAdapter()
+    {
+      @Override
+      public void windowClosed(WindowEvent e)
       {
-        AliasDefinitionDataModel model = findRootModel(pProject, pRoot);
-        if (model != null)
-        {
-          Pair<List<String>, List<Pair<String, List<String>>>> deleteCandidates = extractDeleteCandidates(pRoot);
-          List<IDataModel<?, ?>> toDelete = new ArrayList<>();
-          // find all deleted tables
-          deleteCandidates.a.stream()
-              .map(pTableName -> findTable(model, pTableName))
-              .filter(Objects::nonNull)
-              .forEach(toDelete::add);
+        // the result is not needed anymore, if the dialog was closed before the tree was complete
+        pRoot.cancel(false);
+      }
+    });
 
-          // find all deleted columns
-          deleteCandidates.b.stream()
-              .map(pPair -> new Pair<>(findTable(model, pPair.a), pPair.b))
-              .filter(pPair -> pPair.a != null)
-              .map(pPair -> pPair.b
-                  .stream()
-                  .map(pString -> findColumn(pPair.a, pString))
-                  .filter(Objects::nonNull)
-                  .collect(Collectors.toList()))
-              .forEach(toDelete::addAll);
+    pRoot.whenComplete((pNode, pEx) -> SwingUtilities.invokeLater(() -> {
+      // closed by the user in the meantime
+      if (!dlg.isDisplayable())
+        return;
 
-          IReferenceManager manager = IReferenceManager.get();
-          manager.delete(toDelete);
-          SwingUtilities.invokeLater(() -> {
-            pRoot.write();
-            if (pListener != null)
-              pListener.actionPerformed(new ActionEvent(diffPanel, -1, null));
-            dlg.dispose();
-          });
-        }
+      if (pNode == null)
+      {
+        dlg.dispose();
+        return;
       }
-      else if (e.getSource() == cancel)
+
+      String title = NbBundle.getMessage(DiffPresenter.class, "LBL_Diff", DiffPanel.getTitle(pNode, EDirection.LEFT),
+                                         DiffPanel.getTitle(pNode, EDirection.RIGHT));
+      if (pNode.getChildCount() == 0)
       {
         dlg.dispose();
+        INotificationFacade.INSTANCE.notify(title, NbBundle.getMessage(DiffPresenter.class, "TXT_Equal_Content"), true, null);
+        return;
       }
-    });
+
+      content.removeAll();
+      content.add(new DiffPanel(pNode, pUpdateHandler, pUserdefinedToolTip), BorderLayout.CENTER);
+      content.revalidate();
+      content.repaint();
+      dlg.setTitle(title);
+      ok.setEnabled(true);
+    }));
 
     dlg.setSize(1200, 800);
     dlg.setLocationRelativeTo(WindowManager.getDefault().getMainWindow());
     dlg.setVisible(true);
   }
 
+  /**
+   * Deletes the tables and columns, that were deleted in the dialog, writes the tree and closes the dialog
+   *
+   * @param pProject   Project for the current working context
+   * @param pRoot      Root Node of the dialog
+   * @param pDiffPanel Panel, that shows the root node
+   * @param pDialog    Dialog to close
+   * @param pListener  Listener that gets triggered, if OK was clicked
+   */
+  private static void apply(@NonNull Project pProject, @NonNull IDiffNode pRoot, @NonNull DiffPanel pDiffPanel, @NonNull Dialog pDialog,
+                            @Nullable ActionListener pListener)
+  {
+    AliasDefinitionDataModel model = findRootModel(pProject, pRoot);
+    if (model != null)
+    {
+      Pair<List<String>, List<Pair<String, List<String>>>> deleteCandidates = extractDeleteCandidates(pRoot);
+      List<IDataModel<?, ?>> toDelete = new ArrayList<>();
+      // find all deleted tables
+      deleteCandidates.a.stream()
+          .map(pTableName -> findTable(model, pTableName))
+          .filter(Objects::nonNull)
+          .forEach(toDelete::add);
+
+      // find all deleted columns
+      deleteCandidates.b.stream()
+          .map(pPair -> new Pair<>(findTable(model, pPair.a), pPair.b))
+          .filter(pPair -> pPair.a != null)
+          .map(pPair -> pPair.b
+              .stream()
+              .map(pString -> findColumn(pPair.a, pString))
+              .filter(Objects::nonNull)
+              .collect(Collectors.toList()))
+          .forEach(toDelete::addAll);
+
+      IReferenceManager manager = IReferenceManager.get();
+      manager.delete(toDelete);
+      SwingUtilities.invokeLater(() -> {
+        pRoot.write();
+        if (pListener != null)
+          pListener.actionPerformed(new ActionEvent(pDiffPanel, -1, null));
+        pDialog.dispose();
+      });
+    }
+  }
+
   /**
    * Extracts all deleted tables and columns
    *
@@ -140,16 +230,18 @@ public class DiffPresenter
       for (TreeNode table : Collections.list(pRoot.children()))
       {
         IDiffNode node = (IDiffNode) table;
-        String tableName = ((DefaultMutableTreeNode) table).getUserObject().toString();
+        String tableName = node.getPair().nameForIdentification();
         if (node.getDiff(direction) == EDiff.DELETED)
           tables.add(tableName);
 
+        // columns can only be deleted in tables, whose columns were already created by an update.
+        // the filtered children of these tables are created on access, even if the table was never expanded
         List<String> deletedColumns = new ArrayList<>();
         for (TreeNode column : Collections.list(node.children()))
         {
           IDiffNode child = (IDiffNode) column;
           if (child.getDiff(direction) == EDiff.DELETED)// column should be deleted
-            deletedColumns.add(((DefaultMutableTreeNode) child).getUserObject().toString());
+            deletedColumns.add(child.getPair().nameForIdentification());
         }
         if (!deletedColumns.isEmpty())
           columns.add(new Pair<>(tableName, deletedColumns));
@@ -0,0 +1,162 @@
+package de.adito.aditoweb.nbm.aliasdiff.dialog.diffpresenter;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.IDiffNode;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.tree.*;
+import java.util.*;
+
+/**
+ * Collects the nodes, whose pairs were changed by an update or restore, and notifies the tree model about exactly
+ * the rows of these nodes and of their parents, instead of refreshing the whole tree.
+ * The rows are indexed level by level along the paths of the changed nodes only, so that the children of collapsed rows
+ * are not created just to find a changed node.
+ *
+ * @author agent, 17.10.2026
+ */
+class DiffTreeUpdater
+{
+  private final DefaultTreeModel model;
+  private final Set<IDiffNode> changedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  // Rows of the tree, keyed by the node they display
+  private final Map<Object, TreeNode> rows = new IdentityHashMap<>();
+  // Rows, whose children were already added to the index
+  private final Set<TreeNode> indexedRows = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /**
+   * @param pModel Model of the tree
+   */
+  DiffTreeUpdater(@NonNull DefaultTreeModel pModel)
+  {
+    model = pModel;
+
+    TreeNode rootRow = (TreeNode) pModel.getRoot();
+    rows.put(getDisplayedNode(rootRow), rootRow);
+  }
+
+  /**
+   * Has to be called, whenever the pair of a node changed. The row of the node is updated with the next {@link #fireChanges()}.
+   *
+   * @param pNode Node, whose pair changed
+   */
+  void nodeChanged(@NonNull IDiffNode pNode)
+  {
+    changedNodes.add(pNode);
+  }
+
+  /**
+   * Has to be called, after the children of the given row were created
+   *
+   * @param pRow Row, whose children were created
+   */
+  void nodeLoaded(@NonNull TreeNode pRow)
+  {
+    if (indexedRows.remove(pRow))
+      indexChildren(pRow);
+  }
+
+  /**
+   * Notifies the model about all rows, whose nodes were changed since the last call, and about their parent rows
+   *
+   * @return the rows, that were changed, including their parent rows
+   */
+  @NonNull
+  Set<TreeNode> fireChanges()
+  {
+    if (changedNodes.isEmpty())
+      return Set.of();
+
+    Set<TreeNode> changedRows = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (IDiffNode node : changedNodes)
+    {
+      // stop at rows, whose parents were already collected by another node
+      TreeNode row = findRow(node);
+      while (row != null && changedRows.add(row))
+        row = row.getParent();
+    }
+    changedNodes.clear();
+
+    Map<TreeNode, List<Integer>> changedChildren = new LinkedHashMap<>();
+    for (TreeNode row : changedRows)
+    {
+      TreeNode parent = row.getParent();
+      if (parent == null)
+        model.nodeChanged(row);
+      else
+        changedChildren.computeIfAbsent(parent, pParent -> new ArrayList<>()).add(parent.getIndex(row));
+    }
+
+    for (Map.Entry<TreeNode, List<Integer>> entry : changedChildren.entrySet())
+      model.nodesChanged(entry.getKey(), entry.getValue().stream()
+          .filter(pIndex -> pIndex >= 0)
+          .mapToInt(Integer::intValue)
+          .sorted()
+          .toArray());
+
+    return changedRows;
+  }
+
+  /**
+   * Searches the row, that displays the given node. If the node has no row, because it was filtered or its parent
+   * was not loaded yet, the row of the nearest parent is returned.
+   *
+   * @param pNode changed node
+   * @return the row, or null if no parent of the node is displayed
+   */
+  @Nullable
+  private TreeNode findRow(@NonNull IDiffNode pNode)
+  {
+    // collect the path up to the nearest node, that already has a row
+    Deque<TreeNode> path = new ArrayDeque<>();
+    TreeNode row = null;
+    for (TreeNode node = pNode; node != null && row == null; node = node.getParent())
+    {
+      row = rows.get(node);
+      if (row == null)
+        path.push(node);
+    }
+
+    // descend along the path, nodes without a row were filtered and are skipped
+    while (row != null && !path.isEmpty())
+    {
+      indexChildren(row);
+      TreeNode child = rows.get(path.pop());
+      if (child != null)
+        row = child;
+    }
+
+    return row;
+  }
+
+  /**
+   * Adds the direct children of the given row to the index, if this was not done yet
+   *
+   * @param pRow Row, whose children should be indexed
+   */
+  private void indexChildren(@NonNull TreeNode pRow)
+  {
+    if (!indexedRows.add(pRow))
+      return;
+
+    for (int i = 0; i < pRow.getChildCount(); i++)
+    {
+      TreeNode child = pRow.getChildAt(i);
+      rows.put(getDisplayedNode(child), child);
+    }
+  }
+
+  /**
+   * @param pRow Row of the tree
+   * @return the node that the row displays, the filtered node if the row is a result of filtering
+   */
+  @NonNull
+  private static Object getDisplayedNode(@NonNull TreeNode pRow)
+  {
+    if (pRow instanceof IDiffNode)
+      return ((IDiffNode) pRow).getOriginal();
+    return pRow;
+  }
+
+}
@@ -0,0 +1,237 @@
+package de.adito.aditoweb.nbm.aliasdiff.dialog.diffpresenter;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.*;
+import de.adito.aditoweb.nbm.aliasdiff.dialog.diffimpl.EDiff;
+import lombok.*;
+import org.openide.util.RequestProcessor;
+
+import javax.swing.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the differences of the whole tree in the background and hands the result over to the EDT.
+ * Multiple requests within {@value #DELAY_MS} milliseconds are coalesced into a single count,
+ * so that a burst of updates, restores or expansions only counts once.
+ * <p>
+ * The nodes are not thread safe and reading their diff state reads the hierarchies, so the own count of every node is read in EDT:
+ * its own difference, the estimated differences of its children while they were not created, and if it can be restored.
+ * Only nodes, that were added, loaded or changed since the last count, are read, at most {@value #SLICE_MS} milliseconds at once.
+ * The background worker sums up an immutable snapshot of these counts and publishes the result with
+ * {@link SwingUtilities#invokeLater(Runnable)}, so it never accesses a node.
+ *
+ * @author agent, 17.10.2026
+ */
+class DifferenceCounter
+{
+  private static final RequestProcessor PROCESSOR = new RequestProcessor(DifferenceCounter.class.getName(), 1);
+  private static final int DELAY_MS = 50;
+  private static final int SLICE_MS = 10;
+
+  private final IDiffNode root;
+  private final IListener listener;
+  private final Timer timer;
+  // own counts of all nodes of the original tree, that were read so far, only accessed in EDT
+  private final Map<IDiffNode, NodeCount> counts = new IdentityHashMap<>();
+  // nodes, whose own count and whose descendants have to be read, only accessed in EDT
+  private final Deque<IDiffNode> pendingNodes = new ArrayDeque<>();
+  // nodes, whose children were not created yet when they were read, only accessed in EDT
+  private final Set<IDiffNode> unloadedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+  // true, if the next slice is already queued in EDT
+  private boolean sliceQueued;
+  private volatile boolean cancelled;
+
+  /**
+   * @param pRoot     Root of the tree, whose differences should be counted
+   * @param pListener Listener, that receives the result in EDT
+   */
+  DifferenceCounter(@NonNull IDiffNode pRoot, @NonNull IListener pListener)
+  {
+    root = pRoot.getOriginal();
+    listener = pListener;
+    timer = new Timer(DELAY_MS, e -> count());
+    timer.setRepeats(false);
+    pendingNodes.push(root);
+  }
+
+  /**
+   * Requests a new count. Has to be called in EDT, the listener gets informed once for all requests of a burst.
+   */
+  void update()
+  {
+    if (!cancelled)
+      timer.restart();
+  }
+
+  /**
+   * Has to be called in EDT, whenever the pair of a node changed.
+   * An update or restore may change the pairs of the children too, so the whole subtree is read again.
+   *
+   * @param pNode Node, whose pair changed
+   */
+  void nodeChanged(@NonNull IDiffNode pNode)
+  {
+    pendingNodes.push(pNode.getOriginal());
+  }
+
+  /**
+   * Has to be called in EDT, after nodes were added to the tree
+   *
+   * @param pNodes Nodes, that were added together with their children
+   */
+  void nodesAdded(@NonNull Collection<? extends IDiffNode> pNodes)
+  {
+    for (IDiffNode node : pNodes)
+      pendingNodes.push(node.getOriginal());
+  }
+
+  /**
+   * Cancels the count, no result is published afterwards
+   */
+  void cancel()
+  {
+    cancelled = true;
+    timer.stop();
+  }
+
+  /**
+   * Reads the own counts of the pending nodes and sums them up in the background, or queues the next slice, if the time is used up
+   */
+  private void count()
+  {
+    if (cancelled || sliceQueued)
+      return;
+
+    // nodes may be loaded by expanding, navigating or iterating the view, the estimated differences are replaced by their children then
+    for (Iterator<IDiffNode> iterator = unloadedNodes.iterator(); iterator.hasNext(); )
+    {
+      IDiffNode node = iterator.next();
+      if (node.isLoaded())
+      {
+        iterator.remove();
+        pendingNodes.push(node);
+      }
+    }
+
+    if (!readSlice())
+    {
+      sliceQueued = true;
+      SwingUtilities.invokeLater(() -> {
+        sliceQueued = false;
+        count();
+      });
+      return;
+    }
+
+    List<NodeCount> snapshot = List.copyOf(counts.values());
+    PROCESSOR.post(() -> publish(snapshot));
+  }
+
+  /**
+   * Reads the own counts of the pending nodes and of all their descendants, until the time of a single slice is used up
+   *
+   * @return true, if all pending nodes were read
+   */
+  private boolean readSlice()
+  {
+    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SLICE_MS);
+    while (!pendingNodes.isEmpty())
+    {
+      if (System.nanoTime() > end)
+        return false;
+
+      IDiffNode node = pendingNodes.pop();
+      counts.put(node, read(node));
+
+      // children, that were not created yet, are not created just to count them
+      if (!node.isLoaded())
+        unloadedNodes.add(node);
+      else
+        for (int i = 0; i < node.getChildCount(); i++)
+          pendingNodes.push((IDiffNode) node.getChildAt(i));
+    }
+
+    return true;
+  }
+
+  /**
+   * Reads the own count of a single node, the same way as the node counts itself
+   *
+   * @param pNode Node to read
+   * @return the count
+   */
+  @NonNull
+  private NodeCount read(@NonNull IDiffNode pNode)
+  {
+    EDiff left = pNode.getDiff(EDirection.LEFT);
+    EDiff right = pNode.getDiff(EDirection.RIGHT);
+
+    // the root is not counted as difference of itself
+    int differences = pNode != root && (isDifferent(left) || isDifferent(right)) ? 1 : 0;
+    if (!pNode.isLoaded())
+      differences += pNode.countDifferences();
+
+    boolean restorable = left == EDiff.EQUAL || right == EDiff.EQUAL || left == EDiff.DELETED || right == EDiff.DELETED;
+    return new NodeCount(differences, restorable);
+  }
+
+  /**
+   * Sums up the given counts and publishes the result in EDT. Runs in the background.
+   *
+   * @param pCounts immutable snapshot of the own counts of all nodes
+   */
+  private void publish(@NonNull List<NodeCount> pCounts)
+  {
+    int differences = 0;
+    boolean canRestore = false;
+    for (NodeCount count : pCounts)
+    {
+      differences += count.differences;
+      canRestore |= count.restorable;
+    }
+
+    int result = differences;
+    boolean restorable = canRestore;
+    SwingUtilities.invokeLater(() -> {
+      if (!cancelled)
+        listener.differencesCounted(result, restorable);
+    });
+  }
+
+  /**
+   * @param pDiff state of a single side
+   * @return true, if the state counts as difference
+   */
+  private static boolean isDifferent(@NonNull EDiff pDiff)
+  {
+    return pDiff == EDiff.DIFFERENT || pDiff == EDiff.MISSING || pDiff == EDiff.DELETED;
+  }
+
+  /**
+   * Own count of a single node, does not reference the node anymore
+   */
+  @RequiredArgsConstructor
+  private static class NodeCount
+  {
+    // 1 if the node itself is different, plus the estimated differences of its children as long as they were not created
+    private final int differences;
+    // true, if the node itself can be restored
+    private final boolean restorable;
+  }
+
+  /**
+   * Receives the result of a count
+   */
+  @FunctionalInterface
+  interface IListener
+  {
+    /**
+     * Gets called in EDT, after the differences were counted
+     *
+     * @param pDifferences count of differences in the whole tree
+     * @param pCanRestore  true, if any node of the tree can be restored
+     */
+    void differencesCounted(int pDifferences, boolean pCanRestore);
+  }
+
+}
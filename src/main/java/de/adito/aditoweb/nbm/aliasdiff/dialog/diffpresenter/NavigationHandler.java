@@ -6,10 +6,15 @@ import lombok.NonNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.tree.TreeNode;
-import java.util.EnumSet;
+import java.util.*;
 
 /**
- * Determines the next / previous element in the tree, containing a difference
+ * Determines the next / previous element in the tree, containing a difference.
+ * Every node of the tree gets a position in pre-order, the positions of all nodes with differences are kept sorted,
+ * so the next or previous difference of any node is found without walking the tree. Only subtrees, that contain differences,
+ * are walked, so the children of equal nodes are never created for the index. Nodes, whose children were not loaded yet,
+ * are navigation targets too, if they estimate any differences. The index is created on first use,
+ * updated for the rows that changed by an update or restore, and created again after new children were loaded.
  *
  * @author T.Tasior, 12.04.2018
  * @author w.glanzer, 29.06.2023 (refactored, translated)
@@ -18,7 +23,13 @@ class NavigationHandler
 {
   private final EnumSet<EDiff> diffStates;
   private final IDiffNode root;
-  private final Memory mem;
+
+  // Index of the current tree, null if it has to be created on next use
+  @Nullable
+  private Index index;
+  // The last delivered node with differences
+  @Nullable
+  private TreeNode lastDifference;
 
   /**
    * @param pRoot the tree that should be navigated
@@ -27,7 +38,6 @@ class NavigationHandler
   {
     root = pRoot;
     diffStates = EnumSet.of(EDiff.DIFFERENT, EDiff.MISSING, EDiff.DELETED);
-    mem = new Memory();
   }
 
   /**
@@ -39,28 +49,30 @@ class NavigationHandler
   @Nullable
   public TreeNode previous(@Nullable IDiffNode pNode)
   {
-    if (root.countDifferences() == 0)
+    Index currentIndex = getIndex();
+    if (currentIndex.differences.isEmpty())
       return null;
 
-    TreeNode node = pNode;
-
-    if (node != null)
+    Integer previous = null;
+    int position = currentIndex.positionOf(pNode != null ? pNode : lastDifference);
+    if (position >= 0)
     {
-      mem.reset();
-      if (node.isLeaf() && isDifferent(((IDiffNode) node).getPair()))
+      // starting at a node without difference, the last difference within its subtree comes first
+      if (!currentIndex.differences.contains(position))
       {
-        mem.set(node, indexOf(node));
-        return findPreviousIn(node);
+        Integer last = currentIndex.differences.lower(currentIndex.ends.get(position) + 1);
+        if (last != null && last > position)
+          previous = last;
       }
-    }
 
-    if (node == null)
-      node = mem.difference;
-
-    if (node == null)
-      node = findLastNode();
+      if (previous == null)
+        previous = currentIndex.differences.lower(position);
+    }
+    if (previous == null)
+      previous = currentIndex.differences.last();
 
-    return node == null ? null : findPreviousIn(node);
+    lastDifference = currentIndex.nodes.get(previous);
+    return lastDifference;
   }
 
   /**
@@ -72,211 +84,77 @@ class NavigationHandler
   @Nullable
   public TreeNode next(@Nullable IDiffNode pNode)
   {
-    if (root.countDifferences() == 0)
+    Index currentIndex = getIndex();
+    if (currentIndex.differences.isEmpty())
       return null;
 
-    TreeNode node = pNode;
-
-    if (node != null)
-    {
-      mem.reset();
-      if (node.isLeaf() && isDifferent(((IDiffNode) node).getPair()))
-      {
-        mem.set(node, indexOf(node));
-        return findNextIn(node);
-      }
-    }
-
-    if (node == null)
-      node = mem.difference;
+    int position = currentIndex.positionOf(pNode != null ? pNode : lastDifference);
+    Integer next = position < 0 ? null : currentIndex.differences.higher(position);
+    if (next == null)
+      next = currentIndex.differences.first();
 
-    if (node == null)
-      node = findFirstNode();
-
-    return node == null ? null : findNextIn(node);
+    lastDifference = currentIndex.nodes.get(next);
+    return lastDifference;
   }
 
   /**
-   * Searches the next difference in the given node.
-   * Will be recursive.
+   * Has to be called, after the pairs of the given rows were updated or restored
    *
-   * @param pNode Node to search in
-   * @return the next difference or null, if nothing found
+   * @param pRows rows, whose differences may have changed
    */
-  @Nullable
-  private TreeNode findNextIn(@NonNull TreeNode pNode)
+  public void rowsChanged(@NonNull Collection<TreeNode> pRows)
   {
-    TreeNode node;
-    int startIndex;
-    if (mem.difference == null)
-    {
-      startIndex = 0;
-      node = pNode;
-    }
-    else
-    {
-      startIndex = mem.indexInParent + 1;
-      node = mem.difference.getParent();
-    }
+    if (index == null)
+      return;
 
-    for (int index = startIndex; index < node.getChildCount(); index++)
+    for (TreeNode row : pRows)
     {
-      TreeNode child = node.getChildAt(index);
-
-      if (child.isLeaf())
+      // the row is part of a subtree, that was not walked because it did not contain any difference
+      int position = index.positions.getOrDefault(row, -1);
+      if (position < 0)
       {
-        if (isDifferent(((IDiffNode) child).getPair()))
-        {
-          mem.set(child, index);
-          return child;
-        }
+        index = null;
+        return;
       }
-      else
-        return findNextIn(child);
-    }
-
-    mem.reset();
-    TreeNode parent = findNextParent(node);
-
-    if (parent != null)
-      return findNextIn(parent);
-
-    return findNextIn(root);
-  }
-
-
-  /**
-   * Searches the previous difference in the given node.
-   * Will be recursive.
-   *
-   * @param pNode Node to search in
-   * @return the previous difference or null, if nothing found
-   */
-  @Nullable
-  private TreeNode findPreviousIn(@NonNull TreeNode pNode)
-  {
-    TreeNode node;
-    int startIndex;
-    if (mem.difference == null)
-    {
-      node = pNode;
-      startIndex = node.getChildCount() - 1;
-    }
-    else
-    {
-      startIndex = mem.indexInParent - 1;
-      node = mem.difference.getParent();
-    }
 
-    for (int index = startIndex; index >= 0; index--)
-    {
-      TreeNode child = node.getChildAt(index);
-
-      if (child.isLeaf())
-      {
-        if (isDifferent(((IDiffNode) child).getPair()))
-        {
-          mem.set(child, index);
-          return child;
-        }
-      }
+      if (isDifference(row))
+        index.differences.add(position);
       else
-        return findPreviousIn(child);
+        index.differences.remove(position);
     }
-
-    mem.reset();
-    TreeNode parent = findPreviousParent(node);
-    if (parent != null)
-      return findPreviousIn(parent);
-
-    return findPreviousIn(root);
   }
 
   /**
-   * Searches the index of the given child node.
-   *
-   * @param pChild Child to search for
-   * @return the index, or -1 if not found
+   * Has to be called, after new children were created in the tree
    */
-  private int indexOf(@NonNull TreeNode pChild)
+  public void structureChanged()
   {
-    int index = -1;
-    TreeNode p = pChild.getParent();
-    for (int i = 0; i < p.getChildCount(); i++)
-    {
-      if (p.getChildAt(i) == pChild)
-      {
-        index = i;
-        break;
-      }
-    }
-    return index;
+    index = null;
   }
 
   /**
-   * Searches the next node in parent
-   *
-   * @param pChild Child to indicate the current position
-   * @return the next node or the root node
+   * @return the index of the current tree, created if necessary
    */
-  @Nullable
-  private TreeNode findNextParent(@NonNull TreeNode pChild)
+  @NonNull
+  private Index getIndex()
   {
-    TreeNode p = pChild.getParent();
-
-    if (p == null)
-      return root;
-
-    int index = indexOf(pChild) + 1;
-    if (index < p.getChildCount())
-      return p.getChildAt(index);
-
-    return findNextParent(p);
+    if (index == null)
+      index = new Index();
+    return index;
   }
 
   /**
-   * Searches the previous node in parent
+   * Determines, if the given node should be navigated to
    *
-   * @param pChild Child to indicate the current position
-   * @return the previous node or the root node
-   */
-  @Nullable
-  private TreeNode findPreviousParent(@NonNull TreeNode pChild)
-  {
-    TreeNode p = pChild.getParent();
-
-    if (p == null)
-      return root;
-
-    int index = indexOf(pChild) - 1;
-    if (index >= 0)
-      return p.getChildAt(index);
-
-    return findPreviousParent(p);
-  }
-
-  /**
-   * @return the first node of the root node, or null if the root has no children
-   */
-  @Nullable
-  private IDiffNode findFirstNode()
-  {
-    if (root.getChildCount() > 0)
-      return (IDiffNode) root.getChildAt(0);
-
-    return null;
-  }
-
-  /**
-   * @return the last node of the root node, or null if the root has no children
+   * @param pNode Node to check
+   * @return true, if it is a leaf in a "different" state, or a node with estimated differences, whose children were not loaded yet
    */
-  @Nullable
-  private IDiffNode findLastNode()
+  private boolean isDifference(@NonNull TreeNode pNode)
   {
-    int childCount = root.getChildCount();
-    if (childCount > 0)
-      return (IDiffNode) root.getChildAt(childCount - 1);
-    return null;
+    IDiffNode node = (IDiffNode) pNode;
+    if (!node.isLoaded())
+      return node.countDifferences() > 0;
+    return pNode.isLeaf() && isDifferent(node.getPair());
   }
 
   /**
@@ -295,33 +173,62 @@ class NavigationHandler
   }
 
   /**
-   * Helper, remembers the last delivered node with differences,
-   * as well as its index in its parent.
+   * Positions of all walked nodes of the tree in pre-order, and the positions of all nodes with differences.
+   * The subtree of a node, that does not contain any difference, is not walked.
    */
-  private static class Memory
+  private class Index
   {
-    private TreeNode difference;
-    private int indexInParent = -1;
+    private final List<TreeNode> nodes = new ArrayList<>();
+    // position of the last node within the subtree of every position
+    private final List<Integer> ends = new ArrayList<>();
+    private final Map<TreeNode, Integer> positions = new IdentityHashMap<>();
+    private final TreeSet<Integer> differences = new TreeSet<>();
+
+    /**
+     * Walks all subtrees of the tree, that contain differences
+     */
+    Index()
+    {
+      add(root);
+    }
 
     /**
-     * Sets the given node and the appropriate index
+     * Adds the given node and walks its children, if they contain any difference
      *
-     * @param pNode          Node to set
-     * @param pIndexInParent Index to set, -1 if no index available
+     * @param pNode Node to add
      */
-    public void set(@Nullable TreeNode pNode, int pIndexInParent)
+    private void add(@NonNull TreeNode pNode)
     {
-      difference = pNode;
-      indexInParent = pIndexInParent;
+      int position = nodes.size();
+      nodes.add(pNode);
+      ends.add(position);
+      positions.put(pNode, position);
+      if (isDifference(pNode))
+        differences.add(position);
+
+      IDiffNode node = (IDiffNode) pNode;
+      if (node.isLoaded() && node.countDifferences() > 0)
+        for (int i = 0; i < pNode.getChildCount(); i++)
+          add(pNode.getChildAt(i));
+
+      ends.set(position, nodes.size() - 1);
     }
 
     /**
-     * Resets everything inside
+     * Determines the position of the given node. Nodes of a subtree, that was not walked, get the position of the root of this subtree.
+     *
+     * @param pNode Node to search for
+     * @return the position of the node, or -1 if the node is null or not part of the tree
      */
-    public void reset()
+    int positionOf(@Nullable TreeNode pNode)
     {
-      difference = null;
-      indexInParent = -1;
+      for (TreeNode node = pNode; node != null; node = node.getParent())
+      {
+        Integer position = positions.get(node);
+        if (position != null)
+          return position;
+      }
+      return -1;
     }
   }
 
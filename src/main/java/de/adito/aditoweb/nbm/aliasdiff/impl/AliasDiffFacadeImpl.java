@@ -3,6 +3,7 @@ package de.adito.aditoweb.nbm.aliasdiff.impl;
 import com.google.common.base.Strings;
 import de.adito.aditoweb.database.IAliasConfigInfo;
 import de.adito.aditoweb.designer.dataobjects.data.db.*;
+import de.adito.aditoweb.designer.dataobjects.data.miscobjects.AliasDefinitionDataObject;
 import de.adito.aditoweb.filesystem.datamodelfs.misc.IContextualAliasConfigResolver;
 import de.adito.aditoweb.nbm.aditonetbeansutil.misc.DataObjectUtil;
 import de.adito.aditoweb.nbm.aliasdiff.dialog.*;
@@ -14,30 +15,43 @@ import de.adito.aditoweb.nbm.aliasdiff.impl.update.StructureToDBPerformer;
 import de.adito.aditoweb.nbm.designer.commonclasses.util.SaveUtil;
 import de.adito.aditoweb.nbm.designer.commoninterface.dataobjects.IDesignerDataObject;
 import de.adito.aditoweb.nbm.entitydbeditor.dataobjects.EntityGroupDBDataObject;
-import de.adito.aditoweb.system.crmcomponents.datamodels.aliasdefsubs.AliasDefDBDataModel;
+import de.adito.aditoweb.system.crmcomponents.datamodels.aliasdefsubs.*;
 import de.adito.aditoweb.system.crmcomponents.datamodels.entity.database.*;
 import de.adito.aditoweb.system.crmcomponents.majordatamodels.AliasDefinitionDataModel;
 import de.adito.notification.INotificationFacade;
 import de.adito.propertly.core.spi.*;
 import lombok.*;
+import lombok.extern.java.Log;
 import org.jetbrains.annotations.Nullable;
 import org.netbeans.api.progress.*;
-import org.netbeans.api.project.Project;
+import org.netbeans.api.project.*;
+import org.netbeans.api.queries.VisibilityQuery;
+import org.openide.*;
+import org.openide.filesystems.FileObject;
+import org.openide.loaders.*;
 import org.openide.util.*;
 import org.openide.util.lookup.ServiceProvider;
+import org.openide.windows.WindowManager;
 
-import java.awt.event.ActionEvent;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.List;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
+import java.util.logging.Level;
 
 /**
  * GUI implementation of {@link IAliasDiffFacade}
  *
  * @author w.glanzer, 12.07.2022
  */
+@Log
 @ServiceProvider(service = IAliasDiffFacade.class)
 public class AliasDiffFacadeImpl implements IAliasDiffFacade
 {
+  private static final RequestProcessor DIFF_PROCESSOR = new RequestProcessor(AliasDiffFacadeImpl.class.getName(), 1);
   private final IEntityDBFactory entityDBFactory = Lookup.getDefault().lookup(IEntityDBFactory.class);
   private final IAliasConfigResolverProvider aliasConfigResolverProvider = Lookup.getDefault().lookup(IAliasConfigResolverProvider.class);
 
@@ -53,7 +67,11 @@ public class AliasDiffFacadeImpl implements IAliasDiffFacade
     if (remoteAliasSupplier == null)
       return;
 
-    startDiff(project, remoteAliasSupplier, DiffNodeCreatorFactory.forWholeAliasDBDiff(entityDBFactory, remoteAliasSupplier, group), new DBUpdateHandler());
+    // a whole alias contains a lot of tables, so their columns are only compared if the user expands them
+    DiffProgressPanel progressPanel = new DiffProgressPanel();
+    ProgressRunnable<IDiffNode> operation = DiffNodeCreatorFactory.forWholeAliasDBDiff(entityDBFactory, remoteAliasSupplier, group, true,
+                                                                                       progressPanel);
+    startDiff(project, remoteAliasSupplier, operation, new DBUpdateHandler(), progressPanel);
   }
 
   @Override
@@ -67,32 +85,176 @@ public class AliasDiffFacadeImpl implements IAliasDiffFacade
     if (remoteAliasSupplier == null)
       return;
 
-    startDiff(project, remoteAliasSupplier, DiffNodeCreatorFactory.forSomeTableDBDiff(entityDBFactory, remoteAliasSupplier, pTableDataObjects), new DBUpdateHandler());
+    DiffProgressPanel progressPanel = new DiffProgressPanel();
+    ProgressRunnable<IDiffNode> operation = DiffNodeCreatorFactory.forSomeTableDBDiff(entityDBFactory, remoteAliasSupplier, pTableDataObjects,
+                                                                                      progressPanel);
+    startDiff(project, remoteAliasSupplier, operation, new DBUpdateHandler(), progressPanel);
+  }
+
+  @NonNull
+  @Override
+  public DiffResult executeDatabaseDiff(@NonNull IEntityGroupDBDataObject pEntityGroup, @NonNull IAliasConfigInfo pRemoteAlias) throws Exception
+  {
+    EntityGroupDBDataModel group = pEntityGroup.getProperty().getValue();
+    if (group == null)
+      throw new IllegalArgumentException("Missing model of alias " + pEntityGroup.getName());
+
+    return DiffNodeCreatorFactory.diffWholeAliasWithDB(entityDBFactory, pRemoteAlias, group);
+  }
+
+  @Override
+  public void executeProjectDatabaseDiffWithGUI(@NonNull Project pProject)
+  {
+    String title = NbBundle.getMessage(AliasDiffFacadeImpl.class, "LBL_ProjectDiff", ProjectUtils.getInformation(pProject).getDisplayName());
+    Map<String, Callable<DiffResult>> diffs = collectProjectDiffs(pProject);
+    if (diffs.isEmpty())
+    {
+      INotificationFacade.INSTANCE.notify(title, NbBundle.getMessage(AliasDiffFacadeImpl.class, "TXT_ProjectDiffNoAliases"), true, null);
+      return;
+    }
+
+    // the aliases are read from the models of the project, so the user must not edit them until the aliases have been compared
+    ProjectDiffSummaryPanel summaryPanel = new ProjectDiffSummaryPanel(diffs.keySet());
+    AtomicBoolean cancelled = new AtomicBoolean();
+    CompletableFuture<Void> future = ProjectDiffRunner.run(diffs, summaryPanel.getListener(), cancelled::get);
+
+    DialogDescriptor descriptor = new DialogDescriptor(summaryPanel, title, true, new Object[]{DialogDescriptor.OK_OPTION},
+                                                       DialogDescriptor.OK_OPTION, DialogDescriptor.BOTTOM_ALIGN, null, null);
+    Dialog dlg = DialogDisplayer.getDefault().createDialog(descriptor);
+    dlg.addWindowListener(new WindowAdapter()
+    {
+      @Override
+      public void windowClosed(WindowEvent e)
+      {
+        // aliases that have not been started yet are not needed anymore, but the running ones still read the models
+        cancelled.set(true);
+        if (!future.isDone())
+          ProgressUtils.showProgressDialogAndRun(future::join, NbBundle.getMessage(AliasDiffFacadeImpl.class, "PROGRESS_CancelProjectDiff"));
+      }
+    });
+    dlg.pack();
+    dlg.setLocationRelativeTo(WindowManager.getDefault().getMainWindow());
+    dlg.setVisible(true);
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<Void> executeProjectDatabaseDiff(@NonNull Project pProject, @NonNull IProjectDiffListener pListener)
+  {
+    return ProjectDiffRunner.run(collectProjectDiffs(pProject), pListener);
+  }
+
+  /**
+   * Creates the comparisons for all database aliases of the given project.
+   * Every comparison resolves its own remote alias, so that each alias is read on its own connection.
+   *
+   * @param pProject Project to read the aliases from
+   * @return the comparisons, keyed and sorted by the name of the alias
+   */
+  @NonNull
+  private Map<String, Callable<DiffResult>> collectProjectDiffs(@NonNull Project pProject)
+  {
+    Map<String, Callable<DiffResult>> diffs = new LinkedHashMap<>();
+    findDatabaseAliases(pProject).forEach((pName, pGroup) -> {
+      RemoteAliasSupplier remoteAliasSupplier = RemoteAliasSupplier.create(pProject, aliasConfigResolverProvider, pGroup);
+      if (remoteAliasSupplier != null)
+        diffs.put(pName, () -> DiffNodeCreatorFactory.diffWholeAliasWithDB(entityDBFactory, remoteAliasSupplier.get(), pGroup));
+    });
+    return diffs;
   }
 
   /**
-   * Starts the diff process and then displays a dialog.
-   * This dialog allows the user to apply changes to the DB / local
-   * and then executes them when clicking OK.
+   * Searches all alias definitions of the given project, that describe a database.
+   * The definitions are recognized by the type of their data object, so their location within the project does not matter.
+   * They are located directly below a top level folder of the project, so only those folders are examined.
+   *
+   * @param pProject Project to search in
+   * @return the entity groups of the aliases, keyed and sorted by the name of the alias
+   */
+  @NonNull
+  private Map<String, EntityGroupDBDataModel> findDatabaseAliases(@NonNull Project pProject)
+  {
+    Map<String, EntityGroupDBDataModel> aliases = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (FileObject folder : getVisibleChildFolders(pProject.getProjectDirectory()))
+    {
+      for (FileObject child : getVisibleChildFolders(folder))
+      {
+        try
+        {
+          DataObject dataObject = DataObject.find(child);
+          if (dataObject instanceof AliasDefinitionDataObject)
+          {
+            AliasDefinitionDataObject aliasDefinition = (AliasDefinitionDataObject) dataObject;
+            AbstractAliasDefSubDataModel<?> subModel = aliasDefinition.observeSubModel().blockingFirst().orElse(null);
+            if (subModel instanceof AliasDefDBDataModel && ((AliasDefDBDataModel) subModel).getEntityGroup() != null)
+              aliases.put(aliasDefinition.getName(), ((AliasDefDBDataModel) subModel).getEntityGroup());
+          }
+        }
+        catch (DataObjectNotFoundException e)
+        {
+          log.log(Level.FINE, "", e);
+        }
+      }
+    }
+
+    return aliases;
+  }
+
+  /**
+   * Returns the child folders of the given folder, that are visible to the user (e.g. no VCS or build folders)
+   *
+   * @param pFolder Folder to read
+   * @return the visible child folders
+   */
+  @NonNull
+  private List<FileObject> getVisibleChildFolders(@NonNull FileObject pFolder)
+  {
+    List<FileObject> folders = new ArrayList<>();
+    for (FileObject child : pFolder.getChildren())
+      if (child.isFolder() && VisibilityQuery.getDefault().isVisible(child))
+        folders.add(child);
+    return folders;
+  }
+
+  /**
+   * Starts the diff process in the background and displays a dialog immediately.
+   * The dialog shows the progress of the diff and the tables, that differ, until the diff is complete. After that,
+   * it allows the user to apply changes to the DB / local and then executes them when clicking OK.
+   * Closing the dialog cancels the diff.
    *
    * @param pProject             Project that was the origin of the diff event
    * @param pRemoteAliasSupplier Supplier to retrieve the target remote alias
    * @param pOperation           Operation that returns a diff node to present in the dialog
    * @param pUpdateHandler       Update Handler that determines the actions, that are possible
+   * @param pProgressPanel       Panel, that gets informed about the progress by the operation
    */
   private void startDiff(@NonNull Project pProject, @NonNull Supplier<IAliasConfigInfo> pRemoteAliasSupplier,
-                         @NonNull ProgressRunnable<IDiffNode> pOperation, @NonNull IUpdateHandler pUpdateHandler)
+                         @NonNull ProgressRunnable<IDiffNode> pOperation, @NonNull IUpdateHandler pUpdateHandler,
+                         @NonNull DiffProgressPanel pProgressPanel)
   {
-    IDiffNode rootNode = BaseProgressUtils.showProgressDialogAndRun(pOperation,
-                                                                    NbBundle.getMessage(AliasDiffFacadeImpl.class, "PROGRESS_ExecDBDiffWithTables"),
-                                                                    false);
-
-    // cancelled?
-    if (rootNode == null)
-      return;
-
-    // Show the dialog
-    DiffPresenter.show(pProject, rootNode, pUpdateHandler, e -> {
+    CompletableFuture<IDiffNode> rootNodeFuture = CompletableFuture.supplyAsync(() -> {
+      ProgressHandle handle = ProgressHandle.createHandle(NbBundle.getMessage(AliasDiffFacadeImpl.class, "PROGRESS_ExecDBDiffWithTables"));
+      handle.start();
+      try
+      {
+        return pOperation.run(handle);
+      }
+      finally
+      {
+        handle.finish();
+      }
+    }, DIFF_PROCESSOR);
+
+    // the dialog cancels the future, if it was closed before the diff has finished.
+    // This does not stop the diff itself, so the diff gets cancelled too, otherwise the next diff would have to wait for it.
+    rootNodeFuture.whenComplete((pNode, pEx) -> {
+      if (rootNodeFuture.isCancelled())
+        pProgressPanel.cancel();
+    });
+
+    // Show the dialog, the root node is complete as soon as OK can be clicked
+    DiffPresenter.show(pProject, rootNodeFuture, pProgressPanel, pUpdateHandler, e -> {
+      IDiffNode rootNode = rootNodeFuture.join();
       EDirection remoteSide = rootNode.isRemote(EDirection.RIGHT) ? EDirection.RIGHT : EDirection.LEFT;
 
       // save everything the user changed in the dialog
@@ -149,15 +311,20 @@ public class AliasDiffFacadeImpl implements IAliasDiffFacade
   {
     try
     {
-      //noinspection unchecked
-      StructureToDBPerformer.perform(pRemoteAliasSupplier, Optional.ofNullable(pNode.getHierarchy(pRemote))
+      IHierarchy<?> hierarchy = pNode.getHierarchy(pRemote);
+      EntityGroupDBDataModel entityGroup = Optional.ofNullable(hierarchy)
           .map(IHierarchy::getValue)
           .filter(AliasDefinitionDataModel.class::isInstance)
           .map(pModel -> ((AliasDefinitionDataModel) pModel).getAliasDefinitionSub())
           .filter(AliasDefDBDataModel.class::isInstance)
           .map(pModel -> ((AliasDefDBDataModel) pModel).getEntityGroup())
-          .map(pModel -> (EntityGroupDBDataObject) DataObjectUtil.get(pModel))
-          .orElseThrow(() -> new IllegalStateException("Failed to find valid alias definition for node " + pNode.getRootName(pRemote))));
+          .orElseThrow(() -> new IllegalStateException("Failed to find valid alias definition for node " + pNode.getRootName(pRemote)));
+
+      // the tables, that were equal, are not part of the remote model yet, but the database gets synchronized with the whole model
+      entityDBFactory.addDeferredTables(hierarchy, entityGroup);
+
+      //noinspection unchecked
+      StructureToDBPerformer.perform(pRemoteAliasSupplier, (EntityGroupDBDataObject) DataObjectUtil.get(entityGroup));
     }
     catch (Exception e)
     {
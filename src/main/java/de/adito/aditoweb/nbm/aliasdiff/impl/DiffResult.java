@@ -0,0 +1,212 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.*;
+import de.adito.aditoweb.nbm.aliasdiff.dialog.diffimpl.EDiff;
+import de.adito.propertly.core.spi.IProperty;
+import lombok.*;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.tree.TreeNode;
+import java.util.*;
+
+/**
+ * Immutable result of a diff, that does not need any GUI.
+ * Contains every entry of the diff tree in pre-order, stored in flat arrays that are indexed by the position of the entry.
+ * The entries do not reference the compared data models, so the models can be released as soon as the result was created.
+ *
+ * @author agent, 17.10.2026
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class DiffResult
+{
+  private static final EDiff[] DIFFS = EDiff.values();
+  private static final Set<EDiff> DIFFERENT = EnumSet.of(EDiff.DIFFERENT, EDiff.MISSING, EDiff.DELETED);
+
+  /**
+   * Paths of the entries, the names of all parents and the entry itself separated by "/"
+   */
+  @NonNull
+  private final String[] paths;
+
+  /**
+   * Position of the parent of every entry, -1 for entries directly below the root
+   */
+  @NonNull
+  private final int[] parents;
+
+  /**
+   * Ordinals of the {@link EDiff} of every entry on the left and the right side
+   */
+  @NonNull
+  private final byte[] leftDiffs;
+  @NonNull
+  private final byte[] rightDiffs;
+
+  /**
+   * Values of every entry on the left and the right side, null for data models and missing values
+   */
+  @NonNull
+  private final Object[] leftValues;
+  @NonNull
+  private final Object[] rightValues;
+
+  /**
+   * Creates the result of the given diff tree
+   *
+   * @param pRoot root of the diff tree, is not part of the result
+   * @return the result
+   */
+  @NonNull
+  public static DiffResult of(@NonNull IDiffNode pRoot)
+  {
+    Builder builder = new Builder();
+    for (int i = 0; i < pRoot.getChildCount(); i++)
+      builder.add(pRoot.getChildAt(i), "", -1);
+    return builder.build();
+  }
+
+  /**
+   * @return the count of entries
+   */
+  public int size()
+  {
+    return paths.length;
+  }
+
+  /**
+   * @return true, if both sides are equal
+   */
+  public boolean isEmpty()
+  {
+    return paths.length == 0;
+  }
+
+  /**
+   * Counts the entries, that are different, missing or deleted on one of the sides.
+   * Is the same count the diff dialog shows for the same tree.
+   *
+   * @return the count of differences
+   */
+  public int countDifferences()
+  {
+    int count = 0;
+    for (int i = 0; i < paths.length; i++)
+      if (DIFFERENT.contains(getDiff(i, EDirection.LEFT)) || DIFFERENT.contains(getDiff(i, EDirection.RIGHT)))
+        count++;
+    return count;
+  }
+
+  /**
+   * @param pIndex Position of the entry
+   * @return the path of the entry, the names of all parents and the entry itself separated by "/"
+   */
+  @NonNull
+  public String getPath(int pIndex)
+  {
+    return paths[pIndex];
+  }
+
+  /**
+   * @param pIndex Position of the entry
+   * @return the position of the parent entry, -1 if the entry is located directly below the root
+   */
+  public int getParent(int pIndex)
+  {
+    return parents[pIndex];
+  }
+
+  /**
+   * @param pIndex     Position of the entry
+   * @param pDirection Side to read
+   * @return the type of difference on the given side
+   */
+  @NonNull
+  public EDiff getDiff(int pIndex, @NonNull EDirection pDirection)
+  {
+    return DIFFS[pDirection == EDirection.LEFT ? leftDiffs[pIndex] : rightDiffs[pIndex]];
+  }
+
+  /**
+   * @param pIndex     Position of the entry
+   * @param pDirection Side to read
+   * @return the value on the given side, null for data models and missing values
+   */
+  @Nullable
+  public Object getValue(int pIndex, @NonNull EDirection pDirection)
+  {
+    return pDirection == EDirection.LEFT ? leftValues[pIndex] : rightValues[pIndex];
+  }
+
+  /**
+   * Collects the entries of a diff tree
+   */
+  private static class Builder
+  {
+    private final List<String> paths = new ArrayList<>();
+    private final List<Integer> parents = new ArrayList<>();
+    private final List<EDiff> leftDiffs = new ArrayList<>();
+    private final List<EDiff> rightDiffs = new ArrayList<>();
+    private final List<Object> leftValues = new ArrayList<>();
+    private final List<Object> rightValues = new ArrayList<>();
+
+    /**
+     * Adds the given node and all of its children
+     *
+     * @param pNode       Node to add
+     * @param pParentPath Path of the parent, empty for the root
+     * @param pParent     Position of the parent, -1 for the root
+     */
+    void add(@NonNull TreeNode pNode, @NonNull String pParentPath, int pParent)
+    {
+      IDiffNode node = (IDiffNode) pNode;
+      String name = node.getPair().nameForIdentification();
+      String path = pParentPath.isEmpty() ? name : pParentPath + "/" + name;
+
+      int index = paths.size();
+      paths.add(path);
+      parents.add(pParent);
+      leftDiffs.add(node.getDiff(EDirection.LEFT));
+      rightDiffs.add(node.getDiff(EDirection.RIGHT));
+      leftValues.add(getValue(node, EDirection.LEFT));
+      rightValues.add(getValue(node, EDirection.RIGHT));
+
+      // the children of nodes, that are compared on demand, are created here
+      node.load();
+      for (int i = 0; i < pNode.getChildCount(); i++)
+        add(pNode.getChildAt(i), path, index);
+    }
+
+    /**
+     * @return the result with all added entries
+     */
+    @NonNull
+    DiffResult build()
+    {
+      int size = paths.size();
+      int[] parentArray = new int[size];
+      byte[] leftDiffArray = new byte[size];
+      byte[] rightDiffArray = new byte[size];
+      for (int i = 0; i < size; i++)
+      {
+        parentArray[i] = parents.get(i);
+        leftDiffArray[i] = (byte) leftDiffs.get(i).ordinal();
+        rightDiffArray[i] = (byte) rightDiffs.get(i).ordinal();
+      }
+
+      return new DiffResult(paths.toArray(new String[0]), parentArray, leftDiffArray, rightDiffArray, leftValues.toArray(), rightValues.toArray());
+    }
+
+    /**
+     * @param pNode      Node to read
+     * @param pDirection Side to read
+     * @return the value of the property on the given side, null for data models
+     */
+    @Nullable
+    private static Object getValue(@NonNull IDiffNode pNode, @NonNull EDirection pDirection)
+    {
+      Object managedObject = pNode.getPair().getManagedObject(pDirection);
+      return managedObject instanceof IProperty ? ((IProperty<?, ?>) managedObject).getValue() : null;
+    }
+  }
+
+}
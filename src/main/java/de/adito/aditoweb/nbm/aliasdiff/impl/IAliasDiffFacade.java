@@ -1,9 +1,12 @@
 package de.adito.aditoweb.nbm.aliasdiff.impl;
 
+import de.adito.aditoweb.database.IAliasConfigInfo;
 import de.adito.aditoweb.designer.dataobjects.data.db.*;
 import lombok.NonNull;
+import org.netbeans.api.project.Project;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Facade to start alias definition diff actions
@@ -28,4 +31,37 @@ public interface IAliasDiffFacade
    */
   void executeDatabaseDiffWithGUI(@NonNull IEntityGroupDBDataObject pEntityGroup, @NonNull Set<IEntityDBDataObject<?>> pTableDataObjects);
 
+  /**
+   * Compares the whole given alias with the given database, without showing any GUI.
+   * Can be called from any thread, but not concurrently for the same alias.
+   *
+   * @param pEntityGroup Group to extract all tables from
+   * @param pRemoteAlias Configuration of the database to compare with
+   * @return the result of the comparison
+   * @throws Exception if the database could not be read or the models could not be compared
+   */
+  @NonNull
+  DiffResult executeDatabaseDiff(@NonNull IEntityGroupDBDataObject pEntityGroup, @NonNull IAliasConfigInfo pRemoteAlias)
+      throws Exception; //NOSONAR generic exception handling is okay here..
+
+  /**
+   * Compares all database aliases of the given project with their databases and shows the summary in a single view.
+   * The summary gets updated as soon as the comparison of an alias has finished.
+   *
+   * @param pProject Project to compare the aliases of
+   */
+  void executeProjectDatabaseDiffWithGUI(@NonNull Project pProject);
+
+  /**
+   * Compares all database aliases of the given project with their databases, without showing any GUI.
+   * The aliases are compared concurrently, each one on its own database connection.
+   * The models of the project are read while the future is running, so the caller has to make sure, that they are not modified in the meantime.
+   *
+   * @param pProject  Project to compare the aliases of
+   * @param pListener Listener that gets informed as soon as an alias has been compared
+   * @return future that completes, after all aliases have been compared. Cancelling it skips the aliases that have not been started yet.
+   */
+  @NonNull
+  CompletableFuture<Void> executeProjectDatabaseDiff(@NonNull Project pProject, @NonNull IProjectDiffListener pListener);
+
 }
@@ -0,0 +1,38 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl;
+
+import lombok.NonNull;
+
+/**
+ * Gets informed about the progress of a diff over all aliases of a project.
+ * The methods are called from the threads that compare the aliases, so they may be called concurrently.
+ *
+ * @author agent, 17.10.2026
+ * @see IAliasDiffFacade#executeProjectDatabaseDiff(org.netbeans.api.project.Project, IProjectDiffListener)
+ */
+public interface IProjectDiffListener
+{
+
+  /**
+   * Gets called, if the comparison of an alias started
+   *
+   * @param pAliasName Name of the alias
+   */
+  void diffStarted(@NonNull String pAliasName);
+
+  /**
+   * Gets called, if an alias was compared successfully
+   *
+   * @param pAliasName Name of the alias
+   * @param pResult    Result of the comparison
+   */
+  void diffFinished(@NonNull String pAliasName, @NonNull DiffResult pResult);
+
+  /**
+   * Gets called, if an alias could not be compared
+   *
+   * @param pAliasName Name of the alias
+   * @param pException Exception that occurred during the comparison
+   */
+  void diffFailed(@NonNull String pAliasName, @NonNull Exception pException);
+
+}
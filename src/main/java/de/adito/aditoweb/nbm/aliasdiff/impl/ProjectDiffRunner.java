@@ -0,0 +1,110 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl;
+
+import lombok.*;
+import lombok.extern.java.Log;
+import org.openide.util.RequestProcessor;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+
+/**
+ * Compares multiple aliases at once.
+ * Every alias gets compared on its own worker with its own database connection, the count of aliases that are
+ * compared at the same time is limited for all diffs together. The limit can be configured
+ * with the system property {@value #CONCURRENCY_PROPERTY}.
+ *
+ * @author agent, 17.10.2026
+ */
+@Log
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProjectDiffRunner
+{
+  public static final String CONCURRENCY_PROPERTY = "de.adito.aliasdiff.project.concurrency";
+  private static final int DEFAULT_CONCURRENCY = 4;
+  public static final int CONCURRENCY = Math.max(1, Integer.getInteger(CONCURRENCY_PROPERTY, DEFAULT_CONCURRENCY));
+  private static final RequestProcessor PROCESSOR = new RequestProcessor(ProjectDiffRunner.class.getName(), CONCURRENCY);
+
+  /**
+   * Starts the comparison of all given aliases.
+   * Cancelling the returned future skips all aliases, that have not been started yet.
+   *
+   * @param pDiffs    Comparisons to execute, keyed by the name of the alias
+   * @param pListener Listener that gets informed as soon as an alias has been compared
+   * @return future that completes, after all aliases have been compared
+   */
+  @NonNull
+  public static CompletableFuture<Void> run(@NonNull Map<String, Callable<DiffResult>> pDiffs, @NonNull IProjectDiffListener pListener)
+  {
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    run(pDiffs, pListener, result::isDone).thenRun(() -> result.complete(null));
+    return result;
+  }
+
+  /**
+   * Starts the comparison of all given aliases.
+   * In contrast to {@link #run(Map, IProjectDiffListener)}, the returned future does not complete before the aliases,
+   * that are compared at the moment, have finished. So the models of the aliases are not read anymore, as soon as it completes.
+   *
+   * @param pDiffs     Comparisons to execute, keyed by the name of the alias
+   * @param pListener  Listener that gets informed as soon as an alias has been compared
+   * @param pCancelled Determines, if the aliases that have not been started yet should be skipped
+   * @return future that completes, after every alias was either compared or skipped
+   */
+  @NonNull
+  public static CompletableFuture<Void> run(@NonNull Map<String, Callable<DiffResult>> pDiffs, @NonNull IProjectDiffListener pListener,
+                                            @NonNull BooleanSupplier pCancelled)
+  {
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    if (pDiffs.isEmpty())
+    {
+      result.complete(null);
+      return result;
+    }
+
+    AtomicInteger remaining = new AtomicInteger(pDiffs.size());
+    pDiffs.forEach((pName, pDiff) -> PROCESSOR.post(() -> {
+      try
+      {
+        if (!pCancelled.getAsBoolean())
+          diff(pName, pDiff, pListener);
+      }
+      finally
+      {
+        if (remaining.decrementAndGet() == 0)
+          result.complete(null);
+      }
+    }));
+
+    return result;
+  }
+
+  /**
+   * Compares a single alias and informs the listener
+   *
+   * @param pName     Name of the alias
+   * @param pDiff     Comparison to execute
+   * @param pListener Listener to inform
+   */
+  private static void diff(@NonNull String pName, @NonNull Callable<DiffResult> pDiff, @NonNull IProjectDiffListener pListener)
+  {
+    pListener.diffStarted(pName);
+
+    DiffResult result;
+    try
+    {
+      result = pDiff.call();
+    }
+    catch (Exception e)
+    {
+      log.log(Level.FINE, "Failed to compare alias " + pName, e);
+      pListener.diffFailed(pName, e);
+      return;
+    }
+
+    pListener.diffFinished(pName, result);
+  }
+
+}
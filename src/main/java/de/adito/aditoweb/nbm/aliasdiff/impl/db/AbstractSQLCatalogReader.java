@@ -0,0 +1,139 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import lombok.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Catalog reader, that reads the metadata with plain SQL queries.
+ * The primary key query has to return the columns TABLE_NAME and COLUMN_NAME, ordered by table and key sequence.
+ * The index query has to return the columns TABLE_NAME, INDEX_NAME, NON_UNIQUE (0 or 1) and COLUMN_NAME, ordered by table, index and
+ * position inside the index. Every question mark of the queries gets the schema (or null for the default schema) as parameter,
+ * except the last one, if the query was requested for a single table - this one gets the table name.
+ *
+ * @author agent, 17.10.2026
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public abstract class AbstractSQLCatalogReader implements ICatalogReader
+{
+  /**
+   * Lowercased prefixes of the product names, that this reader is responsible for
+   */
+  private final Set<String> productNames;
+
+  @Override
+  public boolean canRead(@NonNull String pDatabaseProductName)
+  {
+    String productName = pDatabaseProductName.toLowerCase(Locale.ROOT);
+    return productNames.stream().anyMatch(productName::startsWith);
+  }
+
+  @NonNull
+  @Override
+  public Map<String, List<String>> readPrimaryKeys(@NonNull Connection pConnection, @Nullable String pSchema, @Nullable String pTable)
+      throws SQLException
+  {
+    Map<String, List<String>> result = new HashMap<>();
+    try (PreparedStatement stmt = prepare(pConnection, getPrimaryKeySql(pTable != null), pSchema, pTable);
+         ResultSet rs = stmt.executeQuery())
+    {
+      while (rs.next())
+        result.computeIfAbsent(rs.getString("TABLE_NAME"), pKey -> new ArrayList<>()).add(rs.getString("COLUMN_NAME"));
+    }
+    return result;
+  }
+
+  @NonNull
+  @Override
+  public Map<String, List<BulkTableMetadata.Index>> readIndexes(@NonNull Connection pConnection, @Nullable String pSchema, @Nullable String pTable)
+      throws SQLException
+  {
+    Map<String, List<BulkTableMetadata.Index>> result = new HashMap<>();
+    try (PreparedStatement stmt = prepare(pConnection, getIndexSql(pTable != null), pSchema, pTable);
+         ResultSet rs = stmt.executeQuery())
+    {
+      String currentTable = null;
+      String currentIndex = null;
+      boolean currentUnique = false;
+      List<String> currentColumns = new ArrayList<>();
+
+      while (rs.next())
+      {
+        String table = rs.getString("TABLE_NAME");
+        String index = rs.getString("INDEX_NAME");
+        String column = rs.getString("COLUMN_NAME");
+
+        // the rows are ordered, so the previous index is complete as soon as the table or index changes
+        if (!Objects.equals(table, currentTable) || !Objects.equals(index, currentIndex))
+        {
+          if (currentTable != null && !currentColumns.isEmpty())
+            result.computeIfAbsent(currentTable, pKey -> new ArrayList<>()).add(new BulkTableMetadata.Index(currentIndex, currentUnique,
+                                                                                                            List.copyOf(currentColumns)));
+          currentTable = table;
+          currentIndex = index;
+          currentUnique = rs.getInt("NON_UNIQUE") == 0;
+          currentColumns.clear();
+        }
+
+        // expression indices do not have a column name
+        if (column != null)
+          currentColumns.add(column);
+      }
+
+      if (currentTable != null && !currentColumns.isEmpty())
+        result.computeIfAbsent(currentTable, pKey -> new ArrayList<>()).add(new BulkTableMetadata.Index(currentIndex, currentUnique,
+                                                                                                        List.copyOf(currentColumns)));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the query, that reads the primary keys
+   *
+   * @param pSingleTable true, if the query should be restricted to a single table. The table name will be the last parameter
+   * @return the query
+   */
+  @NonNull
+  protected abstract String getPrimaryKeySql(boolean pSingleTable);
+
+  /**
+   * Returns the query, that reads the indices
+   *
+   * @param pSingleTable true, if the query should be restricted to a single table. The table name will be the last parameter
+   * @return the query
+   */
+  @NonNull
+  protected abstract String getIndexSql(boolean pSingleTable);
+
+  /**
+   * Prepares the given query and sets its parameters
+   *
+   * @param pConnection Connection to prepare the statement on
+   * @param pSql        Query
+   * @param pSchema     Schema, that is set for every parameter except the table parameter
+   * @param pTable      Table, that is set as the last parameter, or null if the query reads all tables
+   * @return the prepared statement
+   * @throws SQLException if the statement could not be prepared
+   */
+  @NonNull
+  private static PreparedStatement prepare(@NonNull Connection pConnection, @NonNull String pSql, @Nullable String pSchema, @Nullable String pTable)
+      throws SQLException
+  {
+    PreparedStatement stmt = pConnection.prepareStatement(pSql);
+    try
+    {
+      int parameterCount = (int) pSql.chars().filter(pChar -> pChar == '?').count();
+      for (int i = 1; i <= parameterCount; i++)
+        stmt.setString(i, pTable != null && i == parameterCount ? pTable : pSchema);
+      return stmt;
+    }
+    catch (SQLException e)
+    {
+      stmt.close();
+      throw e;
+    }
+  }
+
+}
@@ -0,0 +1,597 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import de.adito.aditoweb.common.IDBTypes;
+import de.adito.aditoweb.core.util.Utility;
+import de.adito.aditoweb.database.IAliasConfigInfo;
+import de.adito.aditoweb.nbm.designerdb.api.*;
+import lombok.NonNull;
+import lombok.extern.java.Log;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the metadata of all tables of a schema with a handful of {@link DatabaseMetaData} calls.
+ * Instead of asking the database for each table (and each column) separately, the columns, primary keys and indices
+ * are requested once for the whole schema and then grouped by table in memory.
+ *
+ * @author agent, 17.10.2026
+ * @see BulkTableMetadata
+ */
+@Log
+public class BulkMetadataReader
+{
+  private static final String[] TABLE_TYPES = {"TABLE"};
+  private static final String[] TABLE_AND_VIEW_TYPES = {"TABLE", "VIEW"};
+
+  /**
+   * Reads the metadata of the given tables.
+   * If all tables should be read, the whole schema will be read at once. Otherwise only the given tables will be read, table by table,
+   * so that reading a few tables does not depend on the size of the database.
+   *
+   * @param pAlias        information about the db connection
+   * @param pTables       Names of the tables to read (case insensitive), or null if all tables should be read.
+   *                      Tables that do not exist in the database will not be part of the result.
+   * @param pSchema       Name of the schema, or null if the default schema of the connection should be used
+   * @param pIncludeViews true, if views should be read too
+   * @return the metadata of the tables, in the order of the given table names
+   * @throws DatabaseException if something failed
+   */
+  @NonNull
+  public List<BulkTableMetadata> read(@NonNull IAliasConfigInfo pAlias, @Nullable Collection<String> pTables, @Nullable String pSchema,
+                                      boolean pIncludeViews) throws DatabaseException
+  {
+    if (pTables != null)
+    {
+      boolean isLowerCased = isLowerCased(pAlias);
+      List<BulkTableMetadata> tables = ParallelTableReader.read(pAlias, new ArrayList<>(pTables), (pCon, pTable) ->
+          new Session(pCon, isLowerCased, pSchema).readTable(pTable, pIncludeViews));
+      return tables.stream()
+          .filter(Objects::nonNull)
+          .collect(Collectors.toList());
+    }
+
+    List<BulkTableMetadata> tables = new ArrayList<>();
+    read(pAlias, null, pSchema, pIncludeViews, tables::add);
+    return tables;
+  }
+
+  /**
+   * Reads the metadata of the given tables and hands every table over to the given consumer, as soon as it was read,
+   * so that the tables can be processed while the others are still being read. If the whole schema is read, the columns
+   * of all tables are read at once, so the tables are passed after all columns were read.
+   * The consumer is called on the calling thread, in the order in which the tables were read.
+   *
+   * @param pAlias         information about the db connection
+   * @param pTables        Names of the tables to read (case insensitive), or null if all tables should be read.
+   *                       Tables that do not exist in the database will not be passed to the consumer.
+   * @param pSchema        Name of the schema, or null if the default schema of the connection should be used
+   * @param pIncludeViews  true, if views should be read too
+   * @param pTableConsumer Consumer, that gets the metadata of every table
+   * @throws DatabaseException if something failed
+   */
+  public void read(@NonNull IAliasConfigInfo pAlias, @Nullable Collection<String> pTables, @Nullable String pSchema, boolean pIncludeViews,
+                   @NonNull Consumer<BulkTableMetadata> pTableConsumer) throws DatabaseException
+  {
+    boolean isLowerCased = isLowerCased(pAlias);
+    if (pTables != null)
+    {
+      ParallelTableReader.ITableReader<BulkTableMetadata> tableReader = (pCon, pTable) -> new Session(pCon, isLowerCased, pSchema)
+          .readTable(pTable, pIncludeViews);
+      ParallelTableReader.read(pAlias, new ArrayList<>(pTables), tableReader, (pTable, pIndex) -> {
+        if (pTable != null)
+          pTableConsumer.accept(pTable);
+      });
+      return;
+    }
+
+    try
+    {
+      DatabaseAccessProvider.getInstance().getConnectionManagement().withJDBCConnection(pAlias, pCon -> {
+        assert pCon != null;
+        new Session(pCon, isLowerCased, pSchema).read(pIncludeViews, pTableConsumer);
+        return null;
+      });
+    }
+    catch (SQLException e)
+    {
+      throw new DatabaseException("Failed to read metadata of " + pAlias.getDefinitionName(), e);
+    }
+  }
+
+  /**
+   * Determines, if the database of the given alias stores its unquoted identifiers in lower case
+   *
+   * @param pAlias Alias to check
+   * @return true, if the names have to be lower cased
+   */
+  static boolean isLowerCased(@NonNull IAliasConfigInfo pAlias)
+  {
+    return pAlias.getDatabaseType() == IDBTypes.POSTGRESQL_8_1;
+  }
+
+  /**
+   * Determines the name of the schema, that should be read
+   *
+   * @param pConnection Connection to the database
+   * @param pLowerCased true, if the database stores its names in lower case
+   * @param pSchema     Name of the schema, or null if the default schema of the connection should be used
+   * @return the schema or null, if it can't be determined
+   */
+  @Nullable
+  static String resolveSchema(@NonNull Connection pConnection, boolean pLowerCased, @Nullable String pSchema)
+  {
+    String schema = pSchema == null || pSchema.trim().isEmpty() ? getDefaultSchema(pConnection) : pSchema;
+    return pLowerCased && schema != null ? schema.toLowerCase(Locale.ROOT) : schema;
+  }
+
+  /**
+   * Returns the schema, that the given connection uses by default
+   *
+   * @param pConnection Connection to read the schema from
+   * @return the schema or null, if it can't be determined
+   */
+  @Nullable
+  private static String getDefaultSchema(@NonNull Connection pConnection)
+  {
+    try
+    {
+      return pConnection.getSchema();
+    }
+    catch (SQLException | AbstractMethodError e) // AbstractMethodError: Driver is older than JDBC 4.1
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the catalog, that the given connection uses.
+   * Databases like MySQL and MariaDB do not have schemas but catalogs, so the catalog has to be set for every metadata call.
+   * Otherwise the tables of all databases on the server would be read.
+   *
+   * @param pConnection Connection to read the catalog from
+   * @return the catalog or null, if it can't be determined
+   */
+  @Nullable
+  static String getCatalog(@NonNull Connection pConnection)
+  {
+    try
+    {
+      String catalog = pConnection.getCatalog();
+      return catalog == null || catalog.trim().isEmpty() ? null : catalog;
+    }
+    catch (SQLException e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Normalizes the default value of a column, as it was returned by the database
+   *
+   * @param pColumnDef the value of the COLUMN_DEF column
+   * @return the default value, or null if the column has no default value
+   */
+  @Nullable
+  static String normalizeDefaultValue(@Nullable String pColumnDef)
+  {
+    // we do not want NULL here, if the database returned it
+    if (Utility.isNullOrEmptyTrimmedString(pColumnDef) || "null".equalsIgnoreCase(pColumnDef.trim()))
+      return null;
+
+    // sometimes the value may be in brackets
+    if (pColumnDef.startsWith("(") && pColumnDef.endsWith(")"))
+      return pColumnDef.substring(1, pColumnDef.length() - 1);
+
+    return pColumnDef;
+  }
+
+  /**
+   * Contains everything that is needed during a single read on a single connection
+   */
+  private static class Session
+  {
+    private final Connection connection;
+    private final DatabaseMetaData metaData;
+    private final String catalog;
+    private final String schema;
+    private final ICatalogReader catalogReader;
+
+    public Session(@NonNull Connection pConnection, boolean pLowerCased, @Nullable String pSchema) throws SQLException
+    {
+      connection = pConnection;
+      metaData = pConnection.getMetaData();
+      catalog = getCatalog(pConnection);
+      schema = resolveSchema(pConnection, pLowerCased, pSchema);
+      catalogReader = ICatalogReader.find(metaData.getDatabaseProductName());
+    }
+
+    /**
+     * Reads the metadata of all tables of the schema.
+     * The primary keys and indices are read first, because they are small compared to the columns. Not every driver returns
+     * the columns ordered by table name, so the columns of all tables are grouped first and the tables are passed to the consumer
+     * after all columns were read.
+     *
+     * @param pIncludeViews  true, if views should be read too
+     * @param pTableConsumer Consumer, that gets the metadata of every found table
+     * @throws SQLException if the database could not be read
+     */
+    public void read(boolean pIncludeViews, @NonNull Consumer<BulkTableMetadata> pTableConsumer) throws SQLException
+    {
+      Map<String, Boolean> tables = readTables(null, pIncludeViews);
+      if (tables.isEmpty())
+        return;
+
+      Map<String, List<String>> primaryKeys = readPrimaryKeys(null, tables);
+      Map<String, List<BulkTableMetadata.Index>> indexes = readIndexes(null, tables);
+      Map<String, List<BulkTableMetadata.Column>> columns = readColumns(null, tables.keySet());
+
+      // tables without any visible column are passed too
+      for (Map.Entry<String, Boolean> table : tables.entrySet())
+        pTableConsumer.accept(createTable(table.getKey(), table.getValue(), columns.getOrDefault(table.getKey(), List.of()), primaryKeys, indexes));
+    }
+
+    /**
+     * Reads the metadata of a single table
+     *
+     * @param pName         Name of the table, case insensitive
+     * @param pIncludeViews true, if views should be read too
+     * @return the metadata of the table, or null if it does not exist
+     * @throws SQLException if the database could not be read
+     */
+    @Nullable
+    public BulkTableMetadata readTable(@NonNull String pName, boolean pIncludeViews) throws SQLException
+    {
+      // the pattern is case sensitive, so try the name as given and how the database would store it
+      Map<String, Boolean> tables = Map.of();
+      for (String candidate : new LinkedHashSet<>(List.of(pName, pName.toUpperCase(Locale.ROOT), pName.toLowerCase(Locale.ROOT))))
+      {
+        tables = selectTables(readTables(escapePattern(candidate), pIncludeViews), List.of(pName));
+        if (!tables.isEmpty())
+          break;
+      }
+
+      if (tables.isEmpty())
+        return null;
+
+      String name = tables.keySet().iterator().next();
+      boolean view = tables.get(name);
+
+      Map<String, List<String>> primaryKeys = view ? Map.of() : readPrimaryKeys(name, tables);
+      Map<String, List<BulkTableMetadata.Index>> indexes = view ? Map.of() : readIndexes(name, tables);
+      return new BulkTableMetadata(name, view, readColumns(escapePattern(name), tables.keySet()).getOrDefault(name, List.of()),
+                                   primaryKeys.getOrDefault(name, List.of()), indexes.getOrDefault(name, List.of()));
+    }
+
+    /**
+     * Escapes the wildcards of the given name, so that it can be used as pattern, that only matches the name itself
+     *
+     * @param pName Name of a table
+     * @return the pattern
+     * @throws SQLException if the database could not be read
+     */
+    @NonNull
+    private String escapePattern(@NonNull String pName) throws SQLException
+    {
+      String escape = metaData.getSearchStringEscape();
+      if (escape == null || escape.isEmpty())
+        return pName;
+
+      return pName.replace(escape, escape + escape)
+          .replace("_", escape + "_")
+          .replace("%", escape + "%");
+    }
+
+    /**
+     * Reads the names of the tables (and views) of our schema
+     *
+     * @param pTablePattern Pattern of the table names to read, null to read all tables
+     * @param pIncludeViews true, if views should be read too
+     * @return map of all table names (as they are stored in the database) and if they are a view
+     * @throws SQLException if the database could not be read
+     */
+    @NonNull
+    private Map<String, Boolean> readTables(@Nullable String pTablePattern, boolean pIncludeViews) throws SQLException
+    {
+      Map<String, Boolean> tables = new LinkedHashMap<>();
+      try (ResultSet rs = metaData.getTables(catalog, schema, pTablePattern == null ? "%" : pTablePattern,
+                                             pIncludeViews ? TABLE_AND_VIEW_TYPES : TABLE_TYPES))
+      {
+        while (rs.next())
+          if (isInSchema(rs))
+            tables.put(rs.getString("TABLE_NAME"), "VIEW".equalsIgnoreCase(rs.getString("TABLE_TYPE")));
+      }
+      return tables;
+    }
+
+    /**
+     * Reads the columns of our schema and groups them by the table, they belong to
+     *
+     * @param pTablePattern Pattern of the table names to read, null to read the columns of all tables
+     * @param pTables       Names of the tables to keep
+     * @return the columns, grouped by table name
+     * @throws SQLException if the database could not be read
+     */
+    @NonNull
+    private Map<String, List<BulkTableMetadata.Column>> readColumns(@Nullable String pTablePattern, @NonNull Set<String> pTables) throws SQLException
+    {
+      // not every driver returns the columns ordered by table name and ordinal position, so they are sorted here
+      Map<String, SortedMap<Integer, BulkTableMetadata.Column>> columns = new HashMap<>();
+      try (ResultSet rs = metaData.getColumns(catalog, schema, pTablePattern == null ? "%" : pTablePattern, "%"))
+      {
+        while (rs.next())
+        {
+          String table = rs.getString("TABLE_NAME");
+          if (pTables.contains(table) && isInSchema(rs))
+            columns.computeIfAbsent(table, pKey -> new TreeMap<>()).put(rs.getInt("ORDINAL_POSITION"), createColumn(rs));
+        }
+      }
+
+      Map<String, List<BulkTableMetadata.Column>> result = new HashMap<>();
+      columns.forEach((pTable, pColumns) -> result.put(pTable, new ArrayList<>(pColumns.values())));
+      return result;
+    }
+
+    /**
+     * Reads the primary keys of the given tables.
+     * Uses the {@link ICatalogReader} of the database, if available. Otherwise tries to read all of them at once
+     * and falls back to one call per table, if the driver requires a table name.
+     *
+     * @param pTable  Table to read, null to read all tables
+     * @param pTables Tables to read the primary keys for
+     * @return the names of the primary key columns, grouped by table name
+     * @throws SQLException if the database could not be read
+     */
+    @NonNull
+    private Map<String, List<String>> readPrimaryKeys(@Nullable String pTable, @NonNull Map<String, Boolean> pTables) throws SQLException
+    {
+      if (catalogReader != null)
+      {
+        try
+        {
+          Map<String, List<String>> keys = catalogReader.readPrimaryKeys(connection, schema, pTable);
+          keys.keySet().retainAll(pTables.keySet());
+          return keys;
+        }
+        catch (SQLException e)
+        {
+          log.log(Level.FINE, e, () -> "Failed to read primary keys from the catalog, reading them from the driver metadata");
+        }
+      }
+
+      Map<String, SortedMap<Integer, String>> keys = new HashMap<>();
+      try
+      {
+        readPrimaryKeys(pTable, pTables.keySet(), keys);
+      }
+      catch (SQLException e)
+      {
+        if (pTable != null)
+          throw e;
+
+        log.log(Level.FINE, e, () -> "Driver does not support reading all primary keys at once, reading them per table");
+        keys.clear();
+        for (Map.Entry<String, Boolean> table : pTables.entrySet())
+          if (!table.getValue())
+            readPrimaryKeys(table.getKey(), pTables.keySet(), keys);
+      }
+
+      Map<String, List<String>> result = new HashMap<>();
+      keys.forEach((pTable, pColumns) -> result.put(pTable, new ArrayList<>(pColumns.values())));
+      return result;
+    }
+
+    /**
+     * Reads the primary keys of a single table or all tables
+     *
+     * @param pTable  Table to read, null to read all tables
+     * @param pTables Names of the tables to keep
+     * @param pResult Map to insert the primary key columns into, grouped by table name and sorted by key sequence
+     * @throws SQLException if the database could not be read
+     */
+    private void readPrimaryKeys(@Nullable String pTable, @NonNull Set<String> pTables, @NonNull Map<String, SortedMap<Integer, String>> pResult)
+        throws SQLException
+    {
+      try (ResultSet rs = metaData.getPrimaryKeys(catalog, schema, pTable))
+      {
+        while (rs.next())
+        {
+          String table = rs.getString("TABLE_NAME");
+          if (pTables.contains(table) && isInSchema(rs))
+            pResult.computeIfAbsent(table, pKey -> new TreeMap<>()).put(rs.getInt("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+        }
+      }
+    }
+
+    /**
+     * Reads the indices of the given tables.
+     * Uses the {@link ICatalogReader} of the database, if available. Otherwise tries to read all of them at once
+     * and falls back to one call per table, if the driver requires a table name.
+     *
+     * @param pTable  Table to read, null to read all tables
+     * @param pTables Tables to read the indices for
+     * @return the indices, grouped by table name
+     * @throws SQLException if the database could not be read
+     */
+    @NonNull
+    private Map<String, List<BulkTableMetadata.Index>> readIndexes(@Nullable String pTable, @NonNull Map<String, Boolean> pTables) throws SQLException
+    {
+      if (catalogReader != null)
+      {
+        try
+        {
+          Map<String, List<BulkTableMetadata.Index>> indexes = catalogReader.readIndexes(connection, schema, pTable);
+          indexes.keySet().retainAll(pTables.keySet());
+          return indexes;
+        }
+        catch (SQLException e)
+        {
+          log.log(Level.FINE, e, () -> "Failed to read indices from the catalog, reading them from the driver metadata");
+        }
+      }
+
+      Map<String, Map<String, IndexBuilder>> indexes = new HashMap<>();
+      try
+      {
+        readIndexes(pTable, pTables.keySet(), indexes);
+      }
+      catch (SQLException e)
+      {
+        if (pTable != null)
+          throw e;
+
+        log.log(Level.FINE, e, () -> "Driver does not support reading all indices at once, reading them per table");
+        indexes.clear();
+        for (Map.Entry<String, Boolean> table : pTables.entrySet())
+          if (!table.getValue())
+            readIndexes(table.getKey(), pTables.keySet(), indexes);
+      }
+
+      Map<String, List<BulkTableMetadata.Index>> result = new HashMap<>();
+      indexes.forEach((pTable, pIndexes) -> pIndexes.values().forEach(pBuilder -> result.computeIfAbsent(pTable, pKey -> new ArrayList<>())
+          .add(pBuilder.build())));
+      return result;
+    }
+
+    /**
+     * Reads the indices of a single table or all tables
+     *
+     * @param pTable  Table to read, null to read all tables
+     * @param pTables Names of the tables to keep
+     * @param pResult Map to insert the indices into, grouped by table name and index name
+     * @throws SQLException if the database could not be read
+     */
+    private void readIndexes(@Nullable String pTable, @NonNull Set<String> pTables, @NonNull Map<String, Map<String, IndexBuilder>> pResult)
+        throws SQLException
+    {
+      try (ResultSet rs = metaData.getIndexInfo(catalog, schema, pTable, false, true))
+      {
+        while (rs.next())
+        {
+          String table = rs.getString("TABLE_NAME");
+          String column = rs.getString("COLUMN_NAME");
+
+          // statistics do not describe an index and do not have any columns
+          if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic || column == null || !pTables.contains(table) || !isInSchema(rs))
+            continue;
+
+          String indexName = rs.getString("INDEX_NAME");
+          pResult.computeIfAbsent(table, pKey -> new LinkedHashMap<>())
+              .computeIfAbsent(String.valueOf(indexName), pKey -> new IndexBuilder(indexName, !rs.getBoolean("NON_UNIQUE")))
+              .columns.put((int) rs.getShort("ORDINAL_POSITION"), column);
+        }
+      }
+    }
+
+    /**
+     * Creates the metadata of a single table of the schema
+     *
+     * @param pName        Name of the table, as it is stored in the database
+     * @param pView        true, if the table is a view
+     * @param pColumns     all columns of the table
+     * @param pPrimaryKeys the primary key columns of all tables, grouped by table name
+     * @param pIndexes     the indices of all tables, grouped by table name
+     * @return the metadata
+     */
+    @NonNull
+    private static BulkTableMetadata createTable(@NonNull String pName, boolean pView, @NonNull List<BulkTableMetadata.Column> pColumns,
+                                                 @NonNull Map<String, List<String>> pPrimaryKeys,
+                                                 @NonNull Map<String, List<BulkTableMetadata.Index>> pIndexes)
+    {
+      return new BulkTableMetadata(pName, pView, pColumns, pPrimaryKeys.getOrDefault(pName, List.of()), pIndexes.getOrDefault(pName, List.of()));
+    }
+
+    /**
+     * Creates the column metadata of the current row of the given result set
+     *
+     * @param pRs Result of {@link DatabaseMetaData#getColumns(String, String, String, String)}
+     * @return the column
+     * @throws SQLException if the result could not be read
+     */
+    @NonNull
+    private BulkTableMetadata.Column createColumn(@NonNull ResultSet pRs) throws SQLException
+    {
+      return new BulkTableMetadata.Column(pRs.getString("COLUMN_NAME"), pRs.getInt("DATA_TYPE"), pRs.getInt("COLUMN_SIZE"),
+                                          pRs.getInt("DECIMAL_DIGITS"), pRs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls,
+                                          normalizeDefaultValue(pRs.getString("COLUMN_DEF")));
+    }
+
+    /**
+     * The schema name is a pattern for the database and some drivers ignore the catalog,
+     * so we have to check if the current row really belongs to our catalog and schema
+     *
+     * @param pRs Result set, that contains a TABLE_CAT and a TABLE_SCHEM column
+     * @return true, if the current row belongs to our catalog and schema
+     * @throws SQLException if the result could not be read
+     */
+    private boolean isInSchema(@NonNull ResultSet pRs) throws SQLException
+    {
+      String rowCatalog = pRs.getString("TABLE_CAT");
+      if (catalog != null && rowCatalog != null && !catalog.equalsIgnoreCase(rowCatalog))
+        return false;
+
+      if (schema == null)
+        return true;
+
+      String rowSchema = pRs.getString("TABLE_SCHEM");
+      return rowSchema == null || schema.equalsIgnoreCase(rowSchema);
+    }
+
+    /**
+     * Filters the given tables by the given names
+     *
+     * @param pAllTables all tables of the schema
+     * @param pNames     Names to filter, case insensitive, null if all tables should be kept
+     * @return the filtered tables, in the order of the given names
+     */
+    @NonNull
+    private static Map<String, Boolean> selectTables(@NonNull Map<String, Boolean> pAllTables, @Nullable Collection<String> pNames)
+    {
+      if (pNames == null)
+        return pAllTables;
+
+      Map<String, String> namesByUpperCase = new HashMap<>();
+      pAllTables.keySet().forEach(pName -> namesByUpperCase.put(pName.toUpperCase(Locale.ROOT), pName));
+
+      Map<String, Boolean> result = new LinkedHashMap<>();
+      for (String name : pNames)
+      {
+        String storedName = namesByUpperCase.get(name.toUpperCase(Locale.ROOT));
+        if (storedName != null)
+          result.put(storedName, pAllTables.get(storedName));
+      }
+      return result;
+    }
+
+  }
+
+  /**
+   * Collects the columns of a single index
+   */
+  private static class IndexBuilder
+  {
+    private final String name;
+    private final boolean unique;
+    private final SortedMap<Integer, String> columns = new TreeMap<>();
+
+    public IndexBuilder(@Nullable String pName, boolean pUnique)
+    {
+      name = pName;
+      unique = pUnique;
+    }
+
+    /**
+     * @return the immutable index
+     */
+    @NonNull
+    public BulkTableMetadata.Index build()
+    {
+      return new BulkTableMetadata.Index(name, unique, List.copyOf(columns.values()));
+    }
+  }
+
+}
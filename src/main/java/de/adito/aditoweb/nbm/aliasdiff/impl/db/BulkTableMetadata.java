@@ -0,0 +1,168 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import de.adito.aditoweb.database.general.metainfo.*;
+import de.adito.aditoweb.nbm.designerdb.impl.metadata.online.NBViewMetadata;
+import lombok.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable metadata of a single table or view.
+ * Gets created by the {@link BulkMetadataReader}, that reads the metadata of a whole schema at once,
+ * and contains only the information that is necessary to create the entity structure of a table.
+ * Serializable, so that it can be persisted by the {@link MetadataSnapshotCache}.
+ *
+ * @author agent, 17.10.2026
+ * @see BulkMetadataReader
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BulkTableMetadata implements Serializable
+{
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Name of the table, as it is stored in the database
+   */
+  @NonNull
+  private final String name;
+
+  /**
+   * true, if this metadata describes a view
+   */
+  private final boolean view;
+
+  /**
+   * All columns of this table, in the order of their ordinal position
+   */
+  @NonNull
+  private final List<Column> columns;
+
+  /**
+   * Names of the columns, that are part of the primary key, in the order of their key sequence
+   */
+  @NonNull
+  private final List<String> primaryKeyColumns;
+
+  /**
+   * All indices of this table
+   */
+  @NonNull
+  private final List<Index> indexes;
+
+  /**
+   * Searches the column with the given name
+   *
+   * @param pName Name of the column, case insensitive
+   * @return the column or null, if not found
+   */
+  @Nullable
+  public Column getColumn(@NonNull String pName)
+  {
+    for (Column column : columns)
+      if (column.getName().equalsIgnoreCase(pName))
+        return column;
+    return null;
+  }
+
+  /**
+   * Converts the given {@link ITableMetadata} to its bulk representation.
+   * Used, if the metadata was read through the designer metadata providers.
+   *
+   * @param pTable Table to convert
+   * @return the converted table
+   */
+  @NonNull
+  public static BulkTableMetadata of(@NonNull ITableMetadata pTable)
+  {
+    List<Column> columns = pTable.getColumns().stream()
+        .map(pColumn -> new Column(pColumn.getName(), (int) pColumn.getDatatype(), (int) pColumn.getSize(), (int) pColumn.getScale(),
+                                   pColumn.isNullAllowed(), null))
+        .collect(Collectors.toList());
+    List<String> primaryKeyColumns = pTable.getPrimaryKeyColumns().stream()
+        .map(IColumnMetadata::getName)
+        .collect(Collectors.toList());
+    List<Index> indexes = pTable.getIndexes().stream()
+        .map(pIndex -> new Index(null, pIndex.isUnique(), pIndex.getColumns().stream()
+            .map(IColumnMetadata::getName)
+            .collect(Collectors.toList())))
+        .collect(Collectors.toList());
+    return new BulkTableMetadata(pTable.getName(), pTable instanceof NBViewMetadata, columns, primaryKeyColumns, indexes);
+  }
+
+  /**
+   * Metadata of a single column
+   */
+  @Getter
+  @ToString
+  @RequiredArgsConstructor
+  public static class Column implements Serializable
+  {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Name of the column
+     */
+    @NonNull
+    private final String name;
+
+    /**
+     * Datatype, see {@link java.sql.Types}
+     */
+    private final int datatype;
+
+    /**
+     * Size of the column, or 0 if not available
+     */
+    private final int size;
+
+    /**
+     * Scale of the column, or 0 if not available
+     */
+    private final int scale;
+
+    /**
+     * true, if NULL values may be stored
+     */
+    private final boolean nullAllowed;
+
+    /**
+     * Default value of the column or null, if it has no default value
+     */
+    @Nullable
+    private final String defaultValue;
+  }
+
+  /**
+   * Metadata of a single index
+   */
+  @Getter
+  @ToString
+  @RequiredArgsConstructor
+  public static class Index implements Serializable
+  {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Name of the index, may be null if the database does not name its indices
+     */
+    @Nullable
+    private final String name;
+
+    /**
+     * true, if the index only allows unique values
+     */
+    private final boolean unique;
+
+    /**
+     * Names of the columns, in the order of their position inside the index
+     */
+    @NonNull
+    private final List<String> columns;
+  }
+
+}
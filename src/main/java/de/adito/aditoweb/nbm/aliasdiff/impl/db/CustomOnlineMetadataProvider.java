@@ -1,7 +1,5 @@
 package de.adito.aditoweb.nbm.aliasdiff.impl.db;
 
-import de.adito.aditoweb.common.IDBTypes;
-import de.adito.aditoweb.core.util.Utility;
 import de.adito.aditoweb.database.IAliasConfigInfo;
 import de.adito.aditoweb.database.general.metainfo.ITableMetadata;
 import de.adito.aditoweb.nbm.designerdb.api.*;
@@ -14,7 +12,6 @@ import org.netbeans.modules.db.explorer.metadata.MetadataModelManager;
 import org.netbeans.modules.db.metadata.model.api.*;
 import org.openide.util.NbBundle;
 
-import java.lang.reflect.Constructor;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
@@ -31,8 +28,23 @@ import java.util.stream.Collectors;
 public class CustomOnlineMetadataProvider
 {
   private static final String SCHEMA_NOT_FOUND_STRING = "Failed to retrieve database schema of ";
-  private Constructor<?> nbTableMetadataConstructor;
-  private Constructor<?> nbViewMetadataConstructor;
+
+  /**
+   * Extracts the metadata of all tables of the given schema.
+   * The unique columns and default values of the whole schema are read at once, before the metadata gets created.
+   *
+   * @param pAlias        information about the db connection
+   * @param pSchema       Name of the schema, or null if the default schema is to be used
+   * @param pIncludeViews true, if views should be read too
+   * @return list of table metadata
+   * @throws DatabaseException if something failed
+   */
+  @NonNull
+  public List<ITableMetadata> getTableMetaData(@NonNull IAliasConfigInfo pAlias, @Nullable String pSchema, boolean pIncludeViews)
+      throws DatabaseException
+  {
+    return readTableMeta(pAlias, null, pSchema, pIncludeViews);
+  }
 
   @NonNull
   public List<ITableMetadata> getTableMetaData(@NonNull IAliasConfigInfo pAlias, @NonNull List<String> pTables, @Nullable String pSchema,
@@ -65,13 +77,16 @@ public class CustomOnlineMetadataProvider
       throw new DatabaseException("Failed to initiate database connection");
 
     AtomicReference<List<ITableMetadata>> result = new AtomicReference<>();
+    Map<String, TableDetails> prefetchedDetails = prefetchDetails(pAliasConfigInfo, pTables, pSchema);
 
     try
     {
       MetadataModel metadataModel = MetadataModelManager.get(connection);
       metadataModel.runReadAction(pMetadata -> {
-        // Refresh metadata so that it is up-to-date
-        pMetadata.refresh();
+        // Refresh metadata so that it is up-to-date.
+        // If only some tables are requested, only these tables will be refreshed later, so that we do not depend on the size of the database
+        if (pTables == null)
+          pMetadata.refresh();
 
         // Get schema
         Catalog catalog = pMetadata.getDefaultCatalog();
@@ -99,24 +114,25 @@ public class CustomOnlineMetadataProvider
         schema = MetadataElementHandle.create(schema).resolve(pMetadata);
 
         // create callback
-        CallbackImpl callback = new CallbackImpl(pAliasConfigInfo);
+        CallbackImpl callback = new CallbackImpl(pAliasConfigInfo, prefetchedDetails);
 
         // read tables
         List<ITableMetadata> tables;
         if (pTables != null)
         {
+          refreshTables(schema, pTables);
           tables = new ArrayList<>(pTables.size());
           pTables.forEach(pS -> tables.add(null));
           for (int i = 0; i < pTables.size(); i++)
           {
             Table table = schema.getTable(pTables.get(i));
             if (table != null)
-              tables.set(i, createTableMeta(table, callback));
+              tables.set(i, NBMetadataFactory.createTableMeta(table, callback));
             else
             {
               View view = schema.getView(pTables.get(i));
               if (view != null && pIncludeViews)
-                tables.set(i, createViewMeta(view, callback));
+                tables.set(i, NBMetadataFactory.createViewMeta(view, callback));
             }
           }
         }
@@ -124,10 +140,10 @@ public class CustomOnlineMetadataProvider
         {
           //noinspection FuseStreamOperations We may add elements to the list here later -> wrap in ArrayList so that the list is mutable
           tables = new ArrayList<>(schema.getTables().stream()
-                                       .map(pInnerTable -> createTableMeta(pInnerTable, callback))
+                                       .map(pInnerTable -> NBMetadataFactory.createTableMeta(pInnerTable, callback))
                                        .collect(Collectors.toList()));
           if (pIncludeViews)
-            tables.addAll(schema.getViews().stream().map(pView -> createViewMeta(pView, callback)).collect(Collectors.toList()));
+            tables.addAll(schema.getViews().stream().map(pView -> NBMetadataFactory.createViewMeta(pView, callback)).collect(Collectors.toList()));
         }
 
         // From here on, the callback is invalid and may no longer be used.
@@ -147,56 +163,71 @@ public class CustomOnlineMetadataProvider
   }
 
   /**
-   * Creates the {@link ITableMetadata} for the given db table
+   * Refreshes the metadata of the given tables only, instead of the whole catalog.
+   * If a name is not a known table (e.g. because it was created after the schema was read, or because it is a view),
+   * the schema itself will be refreshed.
    *
-   * @param pTable    Table to create the metadata container for
-   * @param pCallback Callback to use for inner calculations
-   * @return the metadata
+   * @param pSchema Schema that contains the tables
+   * @param pTables Names of the tables to refresh
    */
-  @NonNull
-  private ITableMetadata createTableMeta(@NonNull Table pTable, @Nullable OnlineMetaDataProvider.IMetadataCallback pCallback)
+  private void refreshTables(@NonNull Schema pSchema, @NonNull List<String> pTables)
   {
-    try
+    boolean refreshSchema = false;
+    for (String table : pTables)
     {
-      if (nbTableMetadataConstructor == null)
-      {
-        Class<?> clazz = Class.forName("de.adito.aditoweb.nbm.designerdb.impl.metadata.online.NBTableMetadata");
-        nbTableMetadataConstructor = clazz.getDeclaredConstructor(Table.class, OnlineMetaDataProvider.IMetadataCallback.class);
-        nbTableMetadataConstructor.setAccessible(true);  //NOSONAR needed here
-      }
-
-      return (ITableMetadata) nbTableMetadataConstructor.newInstance(pTable, pCallback);
-    }
-    catch (Exception e)
-    {
-      throw new IllegalStateException(e);
+      if (pSchema.getTable(table) != null)
+        pSchema.refreshTable(table);
+      else
+        refreshSchema = true;
     }
+
+    if (refreshSchema)
+      pSchema.refresh();
   }
 
   /**
-   * Creates the {@link ITableMetadata} for the given db view
+   * Reads the unique columns and default values of the given tables before the metadata gets created.
+   * Otherwise, the callback would need one round trip per table and per column.
+   * If all tables are requested, the whole schema will be read at once. Otherwise the given tables will be read in parallel,
+   * see {@link ParallelTableReader}.
    *
-   * @param pView     View to create the metadata container for
-   * @param pCallback Callback to use for inner calculations
-   * @return the metadata
+   * @param pAliasConfigInfo information about the db connection
+   * @param pTables          Name of the tables or null, if all tables should be read
+   * @param pSchema          Name of the schema, or null if the default schema is to be used
+   * @return the details of all found tables, keyed by the uppercased table name
    */
   @NonNull
-  private ITableMetadata createViewMeta(@NonNull View pView, @Nullable OnlineMetaDataProvider.IMetadataCallback pCallback)
+  private Map<String, TableDetails> prefetchDetails(@NonNull IAliasConfigInfo pAliasConfigInfo, @Nullable List<String> pTables,
+                                                    @Nullable String pSchema)
   {
+    boolean isLowerCased = BulkMetadataReader.isLowerCased(pAliasConfigInfo);
+
     try
     {
-      if (nbViewMetadataConstructor == null)
-      {
-        Class<?> clazz = Class.forName("de.adito.aditoweb.nbm.designerdb.impl.metadata.online.NBViewMetadata");
-        nbViewMetadataConstructor = clazz.getDeclaredConstructor(View.class, OnlineMetaDataProvider.IMetadataCallback.class);
-        nbViewMetadataConstructor.setAccessible(true); //NOSONAR needed here
-      }
+      if (pTables == null)
+        return DatabaseAccessProvider.getInstance().getConnectionManagement().withJDBCConnection(pAliasConfigInfo, pCon -> {
+          assert pCon != null;
+          String schema = BulkMetadataReader.resolveSchema(pCon, isLowerCased, pSchema);
+          return TableDetails.read(pCon.getMetaData(), BulkMetadataReader.getCatalog(pCon), schema, null);
+        });
+
+      List<TableDetails> details = ParallelTableReader.read(pAliasConfigInfo, pTables, (pCon, pTable) -> {
+        String schema = BulkMetadataReader.resolveSchema(pCon, isLowerCased, pSchema);
+        String table = isLowerCased ? pTable.toLowerCase() : pTable;
+        return TableDetails.read(pCon.getMetaData(), BulkMetadataReader.getCatalog(pCon), schema, table).get(pTable.toUpperCase(Locale.ROOT));
+      });
 
-      return (ITableMetadata) nbViewMetadataConstructor.newInstance(pView, pCallback);
+      Map<String, TableDetails> result = new HashMap<>();
+      for (int i = 0; i < pTables.size(); i++)
+        if (details.get(i) != null)
+          result.put(pTables.get(i).toUpperCase(Locale.ROOT), details.get(i));
+      return result;
     }
-    catch (Exception e)
+    catch (DatabaseException | SQLException e)
     {
-      throw new IllegalStateException(e);
+      // the callback will read everything by itself
+      log.log(Level.FINE, e, () -> "Failed to prefetch table details of " + pAliasConfigInfo.getDefinitionName());
+      return Map.of();
     }
   }
 
@@ -207,6 +238,7 @@ public class CustomOnlineMetadataProvider
   private static class CallbackImpl implements OnlineMetaDataProvider.IMetadataCallback
   {
     private IAliasConfigInfo configInfo;
+    private Map<String, TableDetails> prefetchedDetails;
 
     @NonNull
     @Override
@@ -215,16 +247,20 @@ public class CustomOnlineMetadataProvider
       if (!isValid())
         throw new IllegalArgumentException("callback already invalid");
 
+      TableDetails details = prefetchedDetails.get(pTable.toUpperCase(Locale.ROOT));
+      if (details != null && details.uniqueColumns != null)
+        return new ArrayList<>(details.uniqueColumns);
+
       try
       {
         return DatabaseAccessProvider.getInstance().getConnectionManagement().withJDBCConnection(configInfo, pCon -> {
           assert pCon != null;
-          boolean isLowerCased = configInfo.getDatabaseType() == IDBTypes.POSTGRESQL_8_1;
+          boolean isLowerCased = BulkMetadataReader.isLowerCased(configInfo);
           String table = isLowerCased ? pTable.toLowerCase() : pTable;
           String schema = isLowerCased && pSchema != null ? pSchema.toLowerCase() : pSchema;
 
           List<String> result = new ArrayList<>();
-          try (ResultSet rs = pCon.getMetaData().getIndexInfo(null, schema, table, true, true))
+          try (ResultSet rs = pCon.getMetaData().getIndexInfo(BulkMetadataReader.getCatalog(pCon), schema, table, true, true))
           {
             while (rs.next())
               result.add(rs.getString("COLUMN_NAME"));
@@ -247,16 +283,20 @@ public class CustomOnlineMetadataProvider
       if (!isValid())
         throw new IllegalArgumentException("callback already invalid");
 
+      TableDetails details = prefetchedDetails.get(pTable.toUpperCase(Locale.ROOT));
+      if (details != null)
+        return details.defaultValues.get(pColumn.toUpperCase(Locale.ROOT));
+
       try
       {
         String columnDef = DatabaseAccessProvider.getInstance().getConnectionManagement().withJDBCConnection(configInfo, pCon -> {
           assert pCon != null;
-          boolean isLowerCased = configInfo.getDatabaseType() == IDBTypes.POSTGRESQL_8_1;
+          boolean isLowerCased = BulkMetadataReader.isLowerCased(configInfo);
           String table = isLowerCased ? pTable.toLowerCase() : pTable;
           String schema = isLowerCased && pSchema != null ? pSchema.toLowerCase() : pSchema;
           String column = isLowerCased ? pColumn.toLowerCase() : pColumn;
 
-          try (ResultSet col = pCon.getMetaData().getColumns(null, schema, table, column))
+          try (ResultSet col = pCon.getMetaData().getColumns(BulkMetadataReader.getCatalog(pCon), schema, table, column))
           {
             if (col.next())
               return col.getString("COLUMN_DEF");
@@ -265,15 +305,7 @@ public class CustomOnlineMetadataProvider
           return null;
         });
 
-        // we do not want NULL here, if the database returned it
-        if (Utility.isNullOrEmptyTrimmedString(columnDef) || "null".equalsIgnoreCase(columnDef.trim()))
-          return null;
-
-        // sometimes the value may be in brackets
-        if (columnDef.startsWith("(") && columnDef.endsWith(")"))
-          columnDef = columnDef.substring(1, columnDef.length() - 1);
-
-        return columnDef;
+        return BulkMetadataReader.normalizeDefaultValue(columnDef);
       }
       catch (Exception e)
       {
@@ -287,6 +319,7 @@ public class CustomOnlineMetadataProvider
     public void invalidate()
     {
       configInfo = null;
+      prefetchedDetails = Map.of();
     }
 
     /**
@@ -299,4 +332,96 @@ public class CustomOnlineMetadataProvider
     }
   }
 
+  /**
+   * Details of a single table, that would otherwise be requested by the callback
+   */
+  private static class TableDetails
+  {
+    /**
+     * Names of the columns that are part of an unique index, null if they could not be read
+     */
+    private List<String> uniqueColumns;
+
+    /**
+     * Normalized default values of the columns that have one, keyed by the interned, uppercased column name
+     */
+    private final Map<String, String> defaultValues = new HashMap<>(4);
+
+    /**
+     * Reads the details of the given tables with one call per metadata kind
+     *
+     * @param pMetaData     Metadata of the connection
+     * @param pCatalog      Catalog of the connection, or null if the database does not use catalogs
+     * @param pSchema       Schema of the tables
+     * @param pTablePattern Pattern of the table names, as they are stored in the database, or null if all tables of the schema should be read
+     * @return the details of all found tables, keyed by the interned, uppercased table name
+     * @throws SQLException if the database could not be read
+     */
+    @NonNull
+    static Map<String, TableDetails> read(@NonNull DatabaseMetaData pMetaData, @Nullable String pCatalog, @Nullable String pSchema,
+                                          @Nullable String pTablePattern)
+        throws SQLException
+    {
+      Map<String, TableDetails> details = new HashMap<>();
+      try (ResultSet rs = pMetaData.getColumns(pCatalog, pSchema, pTablePattern == null ? "%" : pTablePattern, "%"))
+      {
+        while (rs.next())
+        {
+          if (!isInSchema(rs, pSchema))
+            continue;
+
+          TableDetails table = details.computeIfAbsent(rs.getString("TABLE_NAME").toUpperCase(Locale.ROOT).intern(), pKey -> new TableDetails());
+          String defaultValue = BulkMetadataReader.normalizeDefaultValue(rs.getString("COLUMN_DEF"));
+          if (defaultValue != null)
+            table.defaultValues.put(rs.getString("COLUMN_NAME").toUpperCase(Locale.ROOT).intern(), defaultValue);
+        }
+      }
+
+      // the callback reads the tables by itself, if they were not found
+      if (details.isEmpty())
+        return details;
+
+      try (ResultSet rs = pMetaData.getIndexInfo(pCatalog, pSchema, pTablePattern, true, true))
+      {
+        while (rs.next())
+        {
+          String column = rs.getString("COLUMN_NAME");
+          TableDetails table = details.get(rs.getString("TABLE_NAME").toUpperCase(Locale.ROOT));
+          if (column != null && table != null && isInSchema(rs, pSchema))
+          {
+            if (table.uniqueColumns == null)
+              table.uniqueColumns = new ArrayList<>(2);
+            table.uniqueColumns.add(column.intern());
+          }
+        }
+      }
+      catch (SQLException e)
+      {
+        // some drivers do not support reading the indices of all tables at once -> the callback reads them by itself
+        log.log(Level.FINE, e, () -> "Failed to prefetch unique columns of " + pSchema);
+        return details;
+      }
+
+      // the unique columns of all remaining tables are known now: there are none
+      details.values().stream()
+          .filter(pTable -> pTable.uniqueColumns == null)
+          .forEach(pTable -> pTable.uniqueColumns = List.of());
+      return details;
+    }
+
+    /**
+     * The schema name is a pattern for the database, so we have to check if the current row really belongs to the given schema
+     *
+     * @param pRs     Result set, that contains a TABLE_SCHEM column
+     * @param pSchema Schema to check
+     * @return true, if the current row belongs to the schema
+     * @throws SQLException if the result could not be read
+     */
+    private static boolean isInSchema(@NonNull ResultSet pRs, @Nullable String pSchema) throws SQLException
+    {
+      String rowSchema = pRs.getString("TABLE_SCHEM");
+      return pSchema == null || rowSchema == null || pSchema.equalsIgnoreCase(rowSchema);
+    }
+  }
+
 }
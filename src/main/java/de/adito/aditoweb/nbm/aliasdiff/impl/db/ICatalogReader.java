@@ -0,0 +1,71 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+import org.openide.util.Lookup;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Reads metadata directly from the catalog of a specific database, with one set based query per metadata kind.
+ * Used by the {@link BulkMetadataReader} instead of the generic {@link DatabaseMetaData} calls, that are slow on some drivers.
+ * If no reader is responsible for a database, or a reader fails, the {@link DatabaseMetaData} will be used.
+ *
+ * @author agent, 17.10.2026
+ */
+public interface ICatalogReader
+{
+
+  /**
+   * Searches the reader, that is responsible for the given database
+   *
+   * @param pDatabaseProductName Product name of the database, see {@link DatabaseMetaData#getDatabaseProductName()}
+   * @return the reader or null, if no reader is responsible
+   */
+  @Nullable
+  static ICatalogReader find(@Nullable String pDatabaseProductName)
+  {
+    if (pDatabaseProductName == null)
+      return null;
+
+    return Lookup.getDefault().lookupAll(ICatalogReader.class).stream()
+        .filter(pReader -> pReader.canRead(pDatabaseProductName))
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * Determines, if this reader is responsible for the given database
+   *
+   * @param pDatabaseProductName Product name of the database, see {@link DatabaseMetaData#getDatabaseProductName()}
+   * @return true, if this reader can read the catalog of the database
+   */
+  boolean canRead(@NonNull String pDatabaseProductName);
+
+  /**
+   * Reads the primary keys
+   *
+   * @param pConnection Connection to read from
+   * @param pSchema     Schema to read, null if the default schema of the connection should be used
+   * @param pTable      Name of the table as it is stored in the database, or null if all tables of the schema should be read
+   * @return the names of the primary key columns in the order of their key sequence, grouped by table name
+   * @throws SQLException if the catalog could not be read
+   */
+  @NonNull
+  Map<String, List<String>> readPrimaryKeys(@NonNull Connection pConnection, @Nullable String pSchema, @Nullable String pTable) throws SQLException;
+
+  /**
+   * Reads the indices
+   *
+   * @param pConnection Connection to read from
+   * @param pSchema     Schema to read, null if the default schema of the connection should be used
+   * @param pTable      Name of the table as it is stored in the database, or null if all tables of the schema should be read
+   * @return the indices, grouped by table name
+   * @throws SQLException if the catalog could not be read
+   */
+  @NonNull
+  Map<String, List<BulkTableMetadata.Index>> readIndexes(@NonNull Connection pConnection, @Nullable String pSchema, @Nullable String pTable)
+      throws SQLException;
+
+}
@@ -0,0 +1,46 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import lombok.NonNull;
+import org.openide.util.lookup.ServiceProvider;
+
+import java.util.Set;
+
+/**
+ * Reads the catalog of Microsoft SQL Server databases from the sys.* catalog views
+ *
+ * @author agent, 17.10.2026
+ */
+@ServiceProvider(service = ICatalogReader.class)
+public class MSSQLCatalogReader extends AbstractSQLCatalogReader
+{
+  private static final String INDEX_COLUMNS = "FROM sys.indexes i " +
+      "JOIN sys.tables t ON t.object_id = i.object_id " +
+      "JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id " +
+      "JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id " +
+      "WHERE ic.is_included_column = 0 AND t.schema_id = SCHEMA_ID(COALESCE(CAST(? AS NVARCHAR(128)), SCHEMA_NAME()))";
+
+  public MSSQLCatalogReader()
+  {
+    super(Set.of("microsoft sql server"));
+  }
+
+  @NonNull
+  @Override
+  protected String getPrimaryKeySql(boolean pSingleTable)
+  {
+    return "SELECT t.name AS TABLE_NAME, c.name AS COLUMN_NAME " + INDEX_COLUMNS + " AND i.is_primary_key = 1" +
+        (pSingleTable ? " AND t.name = ?" : "") +
+        " ORDER BY t.name, ic.key_ordinal";
+  }
+
+  @NonNull
+  @Override
+  protected String getIndexSql(boolean pSingleTable)
+  {
+    return "SELECT t.name AS TABLE_NAME, i.name AS INDEX_NAME, CASE WHEN i.is_unique = 1 THEN 0 ELSE 1 END AS NON_UNIQUE, c.name AS COLUMN_NAME " +
+        INDEX_COLUMNS +
+        (pSingleTable ? " AND t.name = ?" : "") +
+        " ORDER BY t.name, i.name, ic.key_ordinal";
+  }
+
+}
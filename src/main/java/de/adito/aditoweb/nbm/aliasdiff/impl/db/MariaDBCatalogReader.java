@@ -0,0 +1,42 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import lombok.NonNull;
+import org.openide.util.lookup.ServiceProvider;
+
+import java.util.Set;
+
+/**
+ * Reads the catalog of MariaDB and MySQL databases from the information_schema
+ *
+ * @author agent, 17.10.2026
+ */
+@ServiceProvider(service = ICatalogReader.class)
+public class MariaDBCatalogReader extends AbstractSQLCatalogReader
+{
+
+  public MariaDBCatalogReader()
+  {
+    super(Set.of("mariadb", "mysql"));
+  }
+
+  @NonNull
+  @Override
+  protected String getPrimaryKeySql(boolean pSingleTable)
+  {
+    return "SELECT TABLE_NAME, COLUMN_NAME FROM information_schema.KEY_COLUMN_USAGE " +
+        "WHERE CONSTRAINT_NAME = 'PRIMARY' AND TABLE_SCHEMA = COALESCE(?, DATABASE())" +
+        (pSingleTable ? " AND TABLE_NAME = ?" : "") +
+        " ORDER BY TABLE_NAME, ORDINAL_POSITION";
+  }
+
+  @NonNull
+  @Override
+  protected String getIndexSql(boolean pSingleTable)
+  {
+    return "SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, COLUMN_NAME FROM information_schema.STATISTICS " +
+        "WHERE TABLE_SCHEMA = COALESCE(?, DATABASE())" +
+        (pSingleTable ? " AND TABLE_NAME = ?" : "") +
+        " ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+  }
+
+}
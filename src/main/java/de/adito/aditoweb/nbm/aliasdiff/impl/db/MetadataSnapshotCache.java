@@ -0,0 +1,395 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import de.adito.aditoweb.database.IAliasConfigInfo;
+import de.adito.aditoweb.nbm.designerdb.api.*;
+import lombok.*;
+import lombok.extern.java.Log;
+import org.jetbrains.annotations.Nullable;
+import org.openide.modules.Places;
+import org.openide.util.RequestProcessor;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.zip.*;
+
+/**
+ * Persists the metadata of whole schemas, read by the {@link BulkMetadataReader}, in the cache directory of NetBeans.
+ * A snapshot is identified by the alias name, the JDBC URL and the schema. It will only be used, if the fingerprint of the schema
+ * (a cheap query on the catalog of the database, see {@link EFingerprintQuery}) did not change since the snapshot was taken.
+ * Databases without a fingerprint query will always be read directly.
+ * <p>
+ * The fingerprint is not cached itself, so every diff opens a connection and executes the fingerprint query,
+ * before the snapshot is used. Databases without a fingerprint query (e.g. Derby or HSQLDB) are never cached,
+ * for them only the product name is read from the connection, before the tables are read by the {@link BulkMetadataReader}.
+ * <p>
+ * The snapshots are written with Java serialization. Only the classes of {@link BulkTableMetadata}, {@link ArrayList},
+ * {@link String} and the boxed primitives may be deserialized, every other class in a snapshot file is rejected,
+ * so that a modified file in the cache directory can not instantiate arbitrary classes.
+ *
+ * @author agent, 17.10.2026
+ */
+@Log
+public class MetadataSnapshotCache
+{
+  private static final RequestProcessor PROCESSOR = new RequestProcessor(MetadataSnapshotCache.class.getName(), 1);
+  private static final String CACHE_DIRECTORY = "aliasdiff/snapshots";
+  private static final ObjectInputFilter SNAPSHOT_FILTER = ObjectInputFilter.Config.createFilter(
+      "maxdepth=8;" + BulkTableMetadata.class.getName() + ";" + BulkTableMetadata.class.getName() + "$*;java.util.ArrayList;java.lang.String;" +
+          "java.lang.Boolean;java.lang.Character;java.lang.Byte;java.lang.Short;java.lang.Integer;java.lang.Long;java.lang.Float;java.lang.Double;" +
+          "java.lang.Number;!*");
+  private final BulkMetadataReader reader;
+  private final Set<String> pendingRefreshes = ConcurrentHashMap.newKeySet();
+
+  public MetadataSnapshotCache(@NonNull BulkMetadataReader pReader)
+  {
+    reader = pReader;
+  }
+
+  /**
+   * Reads the metadata of the given tables and hands every table over to the given consumer, as soon as it was read.
+   * If a valid snapshot exists, the tables will be served from the snapshot, otherwise they will be read from the database.
+   * If the whole schema was read, the snapshot will be written in the background. If only some tables were read,
+   * an outdated snapshot will be refreshed in the background, but a missing snapshot will not be created,
+   * so that diffing a few tables never reads the whole schema.
+   *
+   * @param pAlias        information about the db connection
+   * @param pTables       Names of the tables to read (case insensitive), or null if all tables should be read
+   * @param pSchema       Name of the schema, or null if the default schema of the connection should be used
+   * @param pIncludeViews  true, if views should be read too
+   * @param pTableConsumer Consumer, that gets the metadata of every table, on the calling thread
+   * @throws DatabaseException if something failed
+   * @see BulkMetadataReader#read(IAliasConfigInfo, Collection, String, boolean, Consumer)
+   */
+  public void read(@NonNull IAliasConfigInfo pAlias, @Nullable Collection<String> pTables, @Nullable String pSchema, boolean pIncludeViews,
+                   @NonNull Consumer<BulkTableMetadata> pTableConsumer) throws DatabaseException
+  {
+    Fingerprint fingerprint = readFingerprint(pAlias, pSchema, pIncludeViews);
+    if (fingerprint == null)
+    {
+      reader.read(pAlias, pTables, pSchema, pIncludeViews, pTableConsumer);
+      return;
+    }
+
+    List<BulkTableMetadata> snapshot = load(fingerprint);
+    if (snapshot != null)
+    {
+      select(snapshot, pTables).forEach(pTableConsumer);
+      return;
+    }
+
+    // only a part of the schema is needed now -> refresh an outdated snapshot of the whole schema in the background, so that the next diff can use it
+    if (pTables != null)
+    {
+      if (getFile(fingerprint).isFile() && pendingRefreshes.add(fingerprint.getKey()))
+        PROCESSOR.post(() -> refresh(pAlias, pSchema, pIncludeViews, fingerprint));
+      reader.read(pAlias, pTables, pSchema, pIncludeViews, pTableConsumer);
+      return;
+    }
+
+    List<BulkTableMetadata> tables = new ArrayList<>();
+    reader.read(pAlias, null, pSchema, pIncludeViews, pTable -> {
+      tables.add(pTable);
+      pTableConsumer.accept(pTable);
+    });
+    PROCESSOR.post(() -> store(fingerprint, tables));
+  }
+
+  /**
+   * Reads the whole schema and stores it as snapshot
+   *
+   * @param pAlias        information about the db connection
+   * @param pSchema       Name of the schema
+   * @param pIncludeViews true, if views should be read too
+   * @param pFingerprint  Fingerprint, that was read before the schema was read
+   */
+  private void refresh(@NonNull IAliasConfigInfo pAlias, @Nullable String pSchema, boolean pIncludeViews, @NonNull Fingerprint pFingerprint)
+  {
+    try
+    {
+      store(pFingerprint, reader.read(pAlias, null, pSchema, pIncludeViews));
+    }
+    catch (DatabaseException e)
+    {
+      log.log(Level.FINE, e, () -> "Failed to refresh the metadata snapshot of " + pAlias.getDefinitionName());
+    }
+    finally
+    {
+      pendingRefreshes.remove(pFingerprint.getKey());
+    }
+  }
+
+  /**
+   * Loads the snapshot for the given fingerprint
+   *
+   * @param pFingerprint Fingerprint of the current schema
+   * @return the tables of the snapshot, or null if no snapshot exists or it does not belong to the given fingerprint
+   */
+  @Nullable
+  private List<BulkTableMetadata> load(@NonNull Fingerprint pFingerprint)
+  {
+    File file = getFile(pFingerprint);
+    if (!file.isFile())
+      return null;
+
+    try (ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)))))
+    {
+      in.setObjectInputFilter(SNAPSHOT_FILTER);
+      if (!pFingerprint.getValue().equals(in.readUTF()))
+        return null;
+
+      //noinspection unchecked
+      return (List<BulkTableMetadata>) in.readObject();
+    }
+    catch (IOException | ClassNotFoundException | ClassCastException e)
+    {
+      log.log(Level.FINE, e, () -> "Failed to load metadata snapshot " + file);
+      return null;
+    }
+  }
+
+  /**
+   * Stores the given tables as snapshot for the given fingerprint
+   *
+   * @param pFingerprint Fingerprint, that was read before the tables were read
+   * @param pTables      all tables of the schema
+   */
+  private void store(@NonNull Fingerprint pFingerprint, @NonNull List<BulkTableMetadata> pTables)
+  {
+    File file = getFile(pFingerprint);
+    File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+    try
+    {
+      try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))))
+      {
+        out.writeUTF(pFingerprint.getValue());
+        out.writeObject(toSerializable(pTables));
+      }
+
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException e)
+    {
+      log.log(Level.FINE, e, () -> "Failed to store metadata snapshot " + file);
+      //noinspection ResultOfMethodCallIgnored
+      tempFile.delete();
+    }
+  }
+
+  /**
+   * Copies the given tables, so that only the classes accepted by the {@link #SNAPSHOT_FILTER} are written.
+   * The tables may contain immutable lists, whose serialized form is an internal class of the JDK.
+   *
+   * @param pTables all tables of the schema
+   * @return the copied tables
+   */
+  @NonNull
+  private static ArrayList<BulkTableMetadata> toSerializable(@NonNull List<BulkTableMetadata> pTables)
+  {
+    ArrayList<BulkTableMetadata> result = new ArrayList<>(pTables.size());
+    for (BulkTableMetadata table : pTables)
+    {
+      List<BulkTableMetadata.Index> indexes = new ArrayList<>(table.getIndexes().size());
+      for (BulkTableMetadata.Index index : table.getIndexes())
+        indexes.add(new BulkTableMetadata.Index(index.getName(), index.isUnique(), new ArrayList<>(index.getColumns())));
+      result.add(new BulkTableMetadata(table.getName(), table.isView(), new ArrayList<>(table.getColumns()),
+                                       new ArrayList<>(table.getPrimaryKeyColumns()), indexes));
+    }
+    return result;
+  }
+
+  /**
+   * Reads the fingerprint of the schema
+   *
+   * @param pAlias        information about the db connection
+   * @param pSchema       Name of the schema, or null if the default schema of the connection should be used
+   * @param pIncludeViews true, if views should be read too
+   * @return the fingerprint, or null if the database does not support fingerprints
+   */
+  @Nullable
+  private Fingerprint readFingerprint(@NonNull IAliasConfigInfo pAlias, @Nullable String pSchema, boolean pIncludeViews)
+  {
+    try
+    {
+      return DatabaseAccessProvider.getInstance().getConnectionManagement().withJDBCConnection(pAlias, pCon -> {
+        assert pCon != null;
+        DatabaseMetaData metaData = pCon.getMetaData();
+        EFingerprintQuery query = EFingerprintQuery.find(metaData.getDatabaseProductName());
+        if (query == null)
+          return null;
+
+        String schema = BulkMetadataReader.resolveSchema(pCon, BulkMetadataReader.isLowerCased(pAlias), pSchema);
+        String key = String.join("\n", pAlias.getDefinitionName(), metaData.getURL(), String.valueOf(schema), String.valueOf(pIncludeViews));
+        return new Fingerprint(key, query.execute(pCon, schema));
+      });
+    }
+    catch (DatabaseException | SQLException e)
+    {
+      log.log(Level.FINE, e, () -> "Failed to read the schema fingerprint of " + pAlias.getDefinitionName());
+      return null;
+    }
+  }
+
+  /**
+   * Returns the file, that contains the snapshot for the given fingerprint
+   *
+   * @param pFingerprint Fingerprint
+   * @return the file, may not exist
+   */
+  @NonNull
+  private static File getFile(@NonNull Fingerprint pFingerprint)
+  {
+    try
+    {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(pFingerprint.getKey().getBytes(StandardCharsets.UTF_8));
+      return new File(Places.getCacheSubdirectory(CACHE_DIRECTORY), String.format("%064x", new BigInteger(1, hash)) + ".snapshot");
+    }
+    catch (NoSuchAlgorithmException e)
+    {
+      throw new IllegalStateException(e); // SHA-256 is available in every JRE
+    }
+  }
+
+  /**
+   * Selects the given tables of the snapshot
+   *
+   * @param pSnapshot all tables of the schema
+   * @param pNames    Names of the tables to select, case insensitive, or null if all tables should be returned
+   * @return the selected tables, in the order of the given names
+   */
+  @NonNull
+  private static List<BulkTableMetadata> select(@NonNull List<BulkTableMetadata> pSnapshot, @Nullable Collection<String> pNames)
+  {
+    if (pNames == null)
+      return pSnapshot;
+
+    Map<String, BulkTableMetadata> tablesByUpperCase = new HashMap<>();
+    pSnapshot.forEach(pTable -> tablesByUpperCase.put(pTable.getName().toUpperCase(Locale.ROOT), pTable));
+
+    List<BulkTableMetadata> result = new ArrayList<>(pNames.size());
+    for (String name : pNames)
+    {
+      BulkTableMetadata table = tablesByUpperCase.get(name.toUpperCase(Locale.ROOT));
+      if (table != null)
+        result.add(table);
+    }
+    return result;
+  }
+
+  /**
+   * Identifies the state of a single schema
+   */
+  @Getter
+  @RequiredArgsConstructor
+  private static class Fingerprint
+  {
+    /**
+     * Identifies the schema: alias, URL and schema name
+     */
+    @NonNull
+    private final String key;
+
+    /**
+     * Result of the fingerprint query, changes as soon as the structure of the schema changes
+     */
+    @NonNull
+    private final String value;
+  }
+
+  /**
+   * Queries, that calculate a cheap fingerprint of the structure of a schema.
+   * Each query gets the schema (or null for the default schema) as parameter for every question mark.
+   */
+  @RequiredArgsConstructor
+  enum EFingerprintQuery
+  {
+    ORACLE("oracle", "SELECT COUNT(*), MAX(LAST_DDL_TIME) FROM ALL_OBJECTS " +
+        "WHERE OWNER = COALESCE(CAST(? AS VARCHAR2(128)), SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA'))"),
+
+    MSSQL("microsoft sql server", "SELECT COUNT(*), MAX(o.modify_date), SUM(CAST(CHECKSUM(o.name, o.type, o.modify_date) AS BIGINT)) " +
+        "FROM sys.objects o WHERE o.is_ms_shipped = 0 AND o.schema_id = SCHEMA_ID(COALESCE(CAST(? AS NVARCHAR(128)), SCHEMA_NAME()))"),
+
+    MARIADB("mariadb", EFingerprintQuery.MYSQL_QUERY),
+
+    MYSQL("mysql", EFingerprintQuery.MYSQL_QUERY),
+
+    // indices and constraints are part of the fingerprint, because they can be recreated as unique or primary key with the same name and columns
+    POSTGRESQL("postgresql", "SELECT COUNT(*), SUM(hashtext(c.relname || '.' || a.attname || ':' || a.atttypid || ':' || a.atttypmod || ':' || " +
+        "a.attnotnull || ':' || COALESCE(pg_get_expr(d.adbin, d.adrelid), ''))::bigint), " +
+        "(SELECT COUNT(*) || ':' || COALESCE(SUM(hashtext(ic.relname || ':' || tc.relname || ':' || i.indisunique || ':' || " +
+        "i.indisprimary || ':' || i.indkey::text)::bigint), 0) " +
+        "FROM pg_index i JOIN pg_class ic ON ic.oid = i.indexrelid JOIN pg_class tc ON tc.oid = i.indrelid " +
+        "JOIN pg_namespace inn ON inn.oid = tc.relnamespace WHERE inn.nspname = COALESCE(CAST(? AS text), current_schema())), " +
+        "(SELECT COUNT(*) || ':' || COALESCE(SUM(hashtext(co.conname || ':' || co.contype || ':' || co.conrelid || ':' || " +
+        "COALESCE(co.conkey::text, ''))::bigint), 0) FROM pg_constraint co JOIN pg_namespace cn ON cn.oid = co.connamespace " +
+        "WHERE cn.nspname = COALESCE(CAST(? AS text), current_schema())) " +
+        "FROM pg_attribute a JOIN pg_class c ON c.oid = a.attrelid JOIN pg_namespace n ON n.oid = c.relnamespace " +
+        "LEFT JOIN pg_attrdef d ON d.adrelid = a.attrelid AND d.adnum = a.attnum " +
+        "WHERE a.attnum > 0 AND NOT a.attisdropped AND n.nspname = COALESCE(CAST(? AS text), current_schema())");
+
+    private static final String MYSQL_QUERY = "SELECT COUNT(*), " +
+        "SUM(CRC32(CONCAT_WS('|', TABLE_NAME, COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE, COLUMN_KEY, IFNULL(COLUMN_DEFAULT, '')))), " +
+        "(SELECT SUM(CRC32(CONCAT_WS('|', TABLE_NAME, INDEX_NAME, COLUMN_NAME, NON_UNIQUE))) FROM information_schema.STATISTICS " +
+        "WHERE TABLE_SCHEMA = COALESCE(?, DATABASE())) " +
+        "FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = COALESCE(?, DATABASE())";
+
+    private final String productName;
+    private final String sql;
+
+    /**
+     * Searches the query for the given database
+     *
+     * @param pProductName Product name of the database, see {@link DatabaseMetaData#getDatabaseProductName()}
+     * @return the query or null, if the database is not supported
+     */
+    @Nullable
+    static EFingerprintQuery find(@Nullable String pProductName)
+    {
+      if (pProductName == null)
+        return null;
+
+      String productName = pProductName.toLowerCase(Locale.ROOT);
+      for (EFingerprintQuery query : values())
+        if (productName.startsWith(query.productName))
+          return query;
+      return null;
+    }
+
+    /**
+     * Executes this query
+     *
+     * @param pConnection Connection to execute the query on
+     * @param pSchema     Schema to calculate the fingerprint for, null if the default schema should be used
+     * @return the fingerprint
+     * @throws SQLException if the query failed
+     */
+    @NonNull
+    String execute(@NonNull Connection pConnection, @Nullable String pSchema) throws SQLException
+    {
+      try (PreparedStatement stmt = pConnection.prepareStatement(sql))
+      {
+        // not every driver supports the ParameterMetaData, so count the parameters by ourselves
+        int parameterCount = (int) sql.chars().filter(pChar -> pChar == '?').count();
+        for (int i = 1; i <= parameterCount; i++)
+          stmt.setString(i, pSchema);
+
+        StringBuilder result = new StringBuilder(name());
+        try (ResultSet rs = stmt.executeQuery())
+        {
+          if (rs.next())
+            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++)
+              result.append('|').append(rs.getString(i));
+        }
+        return result.toString();
+      }
+    }
+  }
+
+}
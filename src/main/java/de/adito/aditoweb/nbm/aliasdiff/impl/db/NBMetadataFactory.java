@@ -0,0 +1,116 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import de.adito.aditoweb.database.general.metainfo.ITableMetadata;
+import de.adito.aditoweb.nbm.designerdb.impl.metadata.online.OnlineMetaDataProvider;
+import lombok.*;
+import org.jetbrains.annotations.Nullable;
+import org.netbeans.modules.db.metadata.model.api.*;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+
+/**
+ * Creates the {@link ITableMetadata} implementations of the designer, whose constructors are not accessible.
+ * The constructors are resolved only once, on first use, and are then shared as {@link MethodHandle}s between all threads,
+ * so that the metadata can also be created in parallel.
+ *
+ * @author agent, 17.10.2026
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class NBMetadataFactory
+{
+
+  /**
+   * Creates the {@link ITableMetadata} for the given db table
+   *
+   * @param pTable    Table to create the metadata container for
+   * @param pCallback Callback to use for inner calculations
+   * @return the metadata
+   */
+  @NonNull
+  public static ITableMetadata createTableMeta(@NonNull Table pTable, @Nullable OnlineMetaDataProvider.IMetadataCallback pCallback)
+  {
+    try
+    {
+      return (ITableMetadata) TableConstructorHolder.CONSTRUCTOR.invokeExact(pTable, pCallback);
+    }
+    catch (IllegalStateException e)
+    {
+      throw e;
+    }
+    catch (Throwable e) //NOSONAR the handle may throw anything the constructor throws
+    {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Creates the {@link ITableMetadata} for the given db view
+   *
+   * @param pView     View to create the metadata container for
+   * @param pCallback Callback to use for inner calculations
+   * @return the metadata
+   */
+  @NonNull
+  public static ITableMetadata createViewMeta(@NonNull View pView, @Nullable OnlineMetaDataProvider.IMetadataCallback pCallback)
+  {
+    try
+    {
+      return (ITableMetadata) ViewConstructorHolder.CONSTRUCTOR.invokeExact(pView, pCallback);
+    }
+    catch (IllegalStateException e)
+    {
+      throw e;
+    }
+    catch (Throwable e) //NOSONAR the handle may throw anything the constructor throws
+    {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Resolves the constructor of a metadata class and converts it to a {@link MethodHandle}
+   * with the type (source, callback) -> {@link ITableMetadata}.
+   * If the constructor could not be resolved, the returned handle throws an {@link IllegalStateException} on every call.
+   *
+   * @param pClassName  Name of the metadata class
+   * @param pSourceType Type of the first constructor parameter
+   * @return the handle
+   */
+  @NonNull
+  private static MethodHandle resolveConstructor(@NonNull String pClassName, @NonNull Class<?> pSourceType)
+  {
+    MethodType type = MethodType.methodType(ITableMetadata.class, pSourceType, OnlineMetaDataProvider.IMetadataCallback.class);
+
+    try
+    {
+      Constructor<?> constructor = Class.forName(pClassName).getDeclaredConstructor(type.parameterArray());
+      constructor.setAccessible(true); //NOSONAR needed here
+      return MethodHandles.lookup().unreflectConstructor(constructor).asType(type);
+    }
+    catch (Exception e)
+    {
+      MethodHandle thrower = MethodHandles.throwException(ITableMetadata.class, IllegalStateException.class);
+      return MethodHandles.dropArguments(MethodHandles.insertArguments(thrower, 0, new IllegalStateException(e)), 0, type.parameterList());
+    }
+  }
+
+  /**
+   * Holds the constructor of NBTableMetadata, initialized by the class loader on first access
+   */
+  private static class TableConstructorHolder
+  {
+    private static final MethodHandle CONSTRUCTOR =
+        resolveConstructor("de.adito.aditoweb.nbm.designerdb.impl.metadata.online.NBTableMetadata", Table.class);
+  }
+
+  /**
+   * Holds the constructor of NBViewMetadata, initialized by the class loader on first access
+   */
+  private static class ViewConstructorHolder
+  {
+    private static final MethodHandle CONSTRUCTOR =
+        resolveConstructor("de.adito.aditoweb.nbm.designerdb.impl.metadata.online.NBViewMetadata", View.class);
+  }
+
+}
@@ -0,0 +1,46 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import lombok.NonNull;
+import org.openide.util.lookup.ServiceProvider;
+
+import java.util.Set;
+
+/**
+ * Reads the catalog of Oracle databases from the ALL_* dictionary views.
+ * The getIndexInfo of the Oracle driver can't read more than one table at once and is very slow.
+ *
+ * @author agent, 17.10.2026
+ */
+@ServiceProvider(service = ICatalogReader.class)
+public class OracleCatalogReader extends AbstractSQLCatalogReader
+{
+  private static final String OWNER = "COALESCE(CAST(? AS VARCHAR2(128)), SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA'))";
+
+  public OracleCatalogReader()
+  {
+    super(Set.of("oracle"));
+  }
+
+  @NonNull
+  @Override
+  protected String getPrimaryKeySql(boolean pSingleTable)
+  {
+    return "SELECT cc.TABLE_NAME, cc.COLUMN_NAME FROM ALL_CONSTRAINTS c " +
+        "JOIN ALL_CONS_COLUMNS cc ON cc.OWNER = c.OWNER AND cc.CONSTRAINT_NAME = c.CONSTRAINT_NAME AND cc.TABLE_NAME = c.TABLE_NAME " +
+        "WHERE c.CONSTRAINT_TYPE = 'P' AND c.OWNER = " + OWNER +
+        (pSingleTable ? " AND c.TABLE_NAME = ?" : "") +
+        " ORDER BY cc.TABLE_NAME, cc.POSITION";
+  }
+
+  @NonNull
+  @Override
+  protected String getIndexSql(boolean pSingleTable)
+  {
+    return "SELECT ic.TABLE_NAME, ic.INDEX_NAME, CASE WHEN i.UNIQUENESS = 'UNIQUE' THEN 0 ELSE 1 END AS NON_UNIQUE, ic.COLUMN_NAME " +
+        "FROM ALL_INDEXES i JOIN ALL_IND_COLUMNS ic ON ic.INDEX_OWNER = i.OWNER AND ic.INDEX_NAME = i.INDEX_NAME " +
+        "WHERE i.TABLE_OWNER = " + OWNER +
+        (pSingleTable ? " AND i.TABLE_NAME = ?" : "") +
+        " ORDER BY ic.TABLE_NAME, ic.INDEX_NAME, ic.COLUMN_POSITION";
+  }
+
+}
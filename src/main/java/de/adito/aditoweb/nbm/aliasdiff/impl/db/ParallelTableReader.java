@@ -0,0 +1,317 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import de.adito.aditoweb.database.IAliasConfigInfo;
+import de.adito.aditoweb.nbm.designerdb.api.*;
+import lombok.*;
+import lombok.extern.java.Log;
+import org.jetbrains.annotations.Nullable;
+// explicit imports, because the explorer API contains a DatabaseException too
+import org.netbeans.api.db.explorer.DatabaseConnection;
+import org.netbeans.api.db.explorer.JDBCDriver;
+import org.netbeans.api.db.explorer.JDBCDriverManager;
+import org.openide.util.RequestProcessor;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+import java.util.logging.Level;
+
+/**
+ * Reads information about single tables on multiple database connections at once.
+ * Reading metadata table by table is bound by the latency of the database, so the tables get distributed
+ * across a bounded number of workers. The connection of the alias is shared and not every driver allows concurrent
+ * metadata calls on a single connection, so every worker opens its own JDBC connection with the driver and the
+ * credentials of the alias, and closes it after its last table. The count of workers can be configured
+ * with the system property {@value #PARALLELISM_PROPERTY}. A single table, or tables that could not be read because no
+ * dedicated connection could be opened, are read on the connection of the alias.
+ * The results are handed over to the calling thread as soon as each table was read.
+ *
+ * @author agent, 17.10.2026
+ */
+@Log
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ParallelTableReader
+{
+  public static final String PARALLELISM_PROPERTY = "de.adito.aliasdiff.metadata.parallelism";
+  private static final int DEFAULT_PARALLELISM = 4;
+  private static final int PARALLELISM = Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM));
+  private static final RequestProcessor PROCESSOR = new RequestProcessor(ParallelTableReader.class.getName(), PARALLELISM);
+
+  /**
+   * Reads the given tables in parallel
+   *
+   * @param pAlias  information about the db connection
+   * @param pTables Names of the tables to read
+   * @param pReader Reader, that reads a single table
+   * @return the results of the reader, in the order of the given tables
+   * @throws DatabaseException if a table could not be read
+   */
+  @NonNull
+  public static <T> List<T> read(@NonNull IAliasConfigInfo pAlias, @NonNull List<String> pTables, @NonNull ITableReader<T> pReader)
+      throws DatabaseException
+  {
+    Object[] results = new Object[pTables.size()];
+    read(pAlias, pTables, pReader, (pResult, pIndex) -> results[pIndex] = pResult);
+
+    //noinspection unchecked
+    return (List<T>) Arrays.asList(results);
+  }
+
+  /**
+   * Reads the given tables in parallel and hands every result over to the given consumer, as soon as its table was read.
+   * The consumer is always called on the calling thread, in the order in which the tables were read,
+   * so that it can process the first tables while the others are still being read.
+   *
+   * @param pAlias    information about the db connection
+   * @param pTables   Names of the tables to read
+   * @param pReader   Reader, that reads a single table
+   * @param pConsumer Consumer, that gets the result of the reader (may be null) and the index of its table
+   * @throws DatabaseException if a table could not be read
+   */
+  public static <T> void read(@NonNull IAliasConfigInfo pAlias, @NonNull List<String> pTables, @NonNull ITableReader<T> pReader,
+                              @NonNull ObjIntConsumer<T> pConsumer) throws DatabaseException
+  {
+    AtomicInteger nextIndex = new AtomicInteger();
+    int workerCount = Math.min(PARALLELISM, pTables.size());
+
+    if (workerCount > 1)
+    {
+      DatabaseConnection aliasConnection = DatabaseAccessProvider.getInstance().getConnectionManagement().getConnection(pAlias);
+      if (aliasConnection != null)
+        readInParallel(pAlias, aliasConnection, workerCount, pTables, pReader, pConsumer, nextIndex);
+    }
+
+    // a single table, or no worker was able to open its own connection (e.g. the password is not stored) -> read on the connection of the alias
+    if (nextIndex.get() < pTables.size())
+    {
+      try
+      {
+        DatabaseAccessProvider.getInstance().getConnectionManagement().withJDBCConnection(pAlias, pCon -> {
+          assert pCon != null;
+          readRemaining(pCon, pTables, pReader, pConsumer, nextIndex);
+          return null;
+        });
+      }
+      catch (SQLException e)
+      {
+        throw new DatabaseException("Failed to read the metadata of " + pAlias.getDefinitionName(), e);
+      }
+    }
+  }
+
+  /**
+   * Reads the given tables with the given count of workers, each on its own connection.
+   * Workers, that are not able to open a connection, do not read any table. As soon as a worker fails, the other workers stop
+   * after the table they are currently reading and get cancelled.
+   * The workers pass their results through a queue, so that the consumer is only called on the calling thread.
+   *
+   * @param pAlias           information about the db connection
+   * @param pAliasConnection Connection of the alias, that provides the driver, the URL and the credentials
+   * @param pWorkerCount     count of workers
+   * @param pTables          Names of all tables to read
+   * @param pReader          Reader, that reads a single table
+   * @param pConsumer        Consumer, that gets the result of the reader and the index of its table
+   * @param pNextIndex       Index of the next unread table
+   * @throws DatabaseException if a table could not be read
+   */
+  private static <T> void readInParallel(@NonNull IAliasConfigInfo pAlias, @NonNull DatabaseConnection pAliasConnection, int pWorkerCount,
+                                         @NonNull List<String> pTables, @NonNull ITableReader<T> pReader, @NonNull ObjIntConsumer<T> pConsumer,
+                                         @NonNull AtomicInteger pNextIndex) throws DatabaseException
+  {
+    BlockingQueue<Result<T>> results = new LinkedBlockingQueue<>();
+    Callable<Void> worker = () -> {
+      try
+      {
+        readOnDedicatedConnection(pAlias, pAliasConnection, pTables, pReader, (pResult, pIndex) -> results.add(new Result<>(pIndex, pResult, null)),
+                                  pNextIndex);
+      }
+      catch (SQLException | RuntimeException e)
+      {
+        // stop the other workers, they only finish the table they are currently reading
+        pNextIndex.set(pTables.size());
+        results.add(new Result<>(-1, null, e));
+      }
+      finally
+      {
+        results.add(new Result<>(-1, null, null));
+      }
+      return null;
+    };
+
+    List<Future<Void>> futures = new ArrayList<>(pWorkerCount);
+    boolean completed = false;
+    try
+    {
+      for (int i = 0; i < pWorkerCount; i++)
+        futures.add(PROCESSOR.submit(worker));
+
+      // every worker marks its end with a negative index, a failed worker passes its exception before
+      int finishedWorkers = 0;
+      while (finishedWorkers < pWorkerCount)
+      {
+        Result<T> result = results.take();
+        if (result.failure != null)
+          throw new DatabaseException("Failed to read the metadata of " + pAlias.getDefinitionName(), result.failure);
+        if (result.index < 0)
+          finishedWorkers++;
+        else
+          pConsumer.accept(result.value, result.index);
+      }
+      completed = true;
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new DatabaseException("Interrupted while reading the metadata of " + pAlias.getDefinitionName(), e);
+    }
+    finally
+    {
+      // a worker or the consumer failed -> the remaining tables are not needed anymore
+      if (!completed)
+      {
+        pNextIndex.set(pTables.size());
+        futures.forEach(pFuture -> pFuture.cancel(true));
+      }
+    }
+  }
+
+  /**
+   * Opens a dedicated connection and reads the next unread table on it, until all tables were read.
+   * If the connection could not be opened, no table will be read.
+   *
+   * @param pAlias           information about the db connection
+   * @param pAliasConnection Connection of the alias, that provides the driver, the URL and the credentials
+   * @param pTables          Names of all tables to read
+   * @param pReader          Reader, that reads a single table
+   * @param pConsumer        Consumer, that gets the result of the reader and the index of its table
+   * @param pNextIndex       Index of the next unread table
+   * @throws SQLException if a table could not be read
+   */
+  private static <T> void readOnDedicatedConnection(@NonNull IAliasConfigInfo pAlias, @NonNull DatabaseConnection pAliasConnection,
+                                                    @NonNull List<String> pTables, @NonNull ITableReader<T> pReader,
+                                                    @NonNull ObjIntConsumer<T> pConsumer, @NonNull AtomicInteger pNextIndex) throws SQLException
+  {
+    Connection connection;
+    try
+    {
+      connection = openConnection(pAliasConnection);
+    }
+    catch (Exception e)
+    {
+      log.log(Level.FINE, e, () -> "Failed to open a dedicated connection for " + pAlias.getDefinitionName());
+      return;
+    }
+
+    try (connection)
+    {
+      readRemaining(connection, pTables, pReader, pConsumer, pNextIndex);
+    }
+  }
+
+  /**
+   * Reads the next unread table, until all tables were read.
+   * Every worker takes the next unread table, so that slow tables do not block a whole chunk.
+   *
+   * @param pConnection Connection of the current worker
+   * @param pTables     Names of all tables to read
+   * @param pReader     Reader, that reads a single table
+   * @param pConsumer   Consumer, that gets the result of the reader and the index of its table
+   * @param pNextIndex  Index of the next unread table
+   * @throws SQLException if a table could not be read
+   */
+  private static <T> void readRemaining(@NonNull Connection pConnection, @NonNull List<String> pTables, @NonNull ITableReader<T> pReader,
+                                        @NonNull ObjIntConsumer<T> pConsumer, @NonNull AtomicInteger pNextIndex) throws SQLException
+  {
+    for (int i = pNextIndex.getAndIncrement(); i < pTables.size(); i = pNextIndex.getAndIncrement())
+      pConsumer.accept(pReader.read(pConnection, pTables.get(i)), i);
+  }
+
+  /**
+   * Opens a new JDBC connection to the database of the given connection.
+   * The driver is taken from the NetBeans driver registry, because the drivers are not visible to the {@link DriverManager}.
+   *
+   * @param pConnection Connection of the alias, that provides the driver, the URL and the credentials
+   * @return the new connection, has to be closed by the caller
+   * @throws Exception if the driver could not be loaded or the connection could not be opened
+   */
+  @NonNull
+  private static Connection openConnection(@NonNull DatabaseConnection pConnection)
+      throws Exception //NOSONAR the driver registry throws a generic exception
+  {
+    JDBCDriver[] drivers = JDBCDriverManager.getDefault().getDrivers(pConnection.getDriverClass());
+    if (drivers.length == 0)
+      throw new SQLException("No JDBC driver registered for " + pConnection.getDriverClass());
+
+    Properties properties = new Properties();
+    if (pConnection.getConnectionProperties() != null)
+      properties.putAll(pConnection.getConnectionProperties());
+    if (pConnection.getUser() != null)
+      properties.setProperty("user", pConnection.getUser());
+    if (pConnection.getPassword() != null)
+      properties.setProperty("password", pConnection.getPassword());
+
+    Connection connection = drivers[0].getDriver().connect(pConnection.getDatabaseURL(), properties);
+    if (connection == null)
+      throw new SQLException("The JDBC driver " + pConnection.getDriverClass() + " does not accept the URL " + pConnection.getDatabaseURL());
+
+    // the default schema has to be the same as on the connection of the alias
+    String schema = pConnection.getSchema();
+    if (schema != null && !schema.trim().isEmpty())
+    {
+      try
+      {
+        connection.setSchema(schema);
+      }
+      catch (SQLException | AbstractMethodError e) // AbstractMethodError: Driver is older than JDBC 4.1
+      {
+        log.log(Level.FINE, "Failed to set the schema of a dedicated connection", e);
+      }
+    }
+    return connection;
+  }
+
+  /**
+   * Reads information about a single table
+   *
+   * @param <T> Type of the information
+   */
+  @FunctionalInterface
+  public interface ITableReader<T>
+  {
+    /**
+     * Reads the information of the given table
+     *
+     * @param pConnection Connection of the current worker, must not be closed and must not be used by another thread
+     * @param pTable      Name of the table
+     * @return the information, may be null
+     * @throws SQLException if the database could not be read
+     */
+    @Nullable
+    T read(@NonNull Connection pConnection, @NonNull String pTable) throws SQLException;
+  }
+
+  /**
+   * Result of a worker, that gets passed to the calling thread
+   *
+   * @param <T> Type of the information
+   */
+  @RequiredArgsConstructor
+  private static class Result<T>
+  {
+    /**
+     * Index of the table, or a negative value if the worker has finished or failed
+     */
+    private final int index;
+    @Nullable
+    private final T value;
+
+    /**
+     * Exception, that stopped the worker, or null if the worker did not fail
+     */
+    @Nullable
+    private final Exception failure;
+  }
+
+}
@@ -0,0 +1,48 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import lombok.NonNull;
+import org.openide.util.lookup.ServiceProvider;
+
+import java.util.Set;
+
+/**
+ * Reads the catalog of PostgreSQL databases from pg_catalog
+ *
+ * @author agent, 17.10.2026
+ */
+@ServiceProvider(service = ICatalogReader.class)
+public class PostgreSQLCatalogReader extends AbstractSQLCatalogReader
+{
+  private static final String INDEX_COLUMNS = "FROM pg_index i " +
+      "JOIN pg_class c ON c.oid = i.indrelid " +
+      "JOIN pg_class ic ON ic.oid = i.indexrelid " +
+      "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+      "JOIN LATERAL unnest(CAST(i.indkey AS int2[])) WITH ORDINALITY AS k(attnum, pos) ON true " +
+      "LEFT JOIN pg_attribute a ON a.attrelid = c.oid AND a.attnum = k.attnum " +
+      "WHERE n.nspname = COALESCE(CAST(? AS text), current_schema())";
+
+  public PostgreSQLCatalogReader()
+  {
+    super(Set.of("postgresql"));
+  }
+
+  @NonNull
+  @Override
+  protected String getPrimaryKeySql(boolean pSingleTable)
+  {
+    return "SELECT c.relname AS TABLE_NAME, a.attname AS COLUMN_NAME " + INDEX_COLUMNS + " AND i.indisprimary" +
+        (pSingleTable ? " AND c.relname = ?" : "") +
+        " ORDER BY c.relname, k.pos";
+  }
+
+  @NonNull
+  @Override
+  protected String getIndexSql(boolean pSingleTable)
+  {
+    return "SELECT c.relname AS TABLE_NAME, ic.relname AS INDEX_NAME, CASE WHEN i.indisunique THEN 0 ELSE 1 END AS NON_UNIQUE, " +
+        "a.attname AS COLUMN_NAME " + INDEX_COLUMNS +
+        (pSingleTable ? " AND c.relname = ?" : "") +
+        " ORDER BY c.relname, ic.relname, k.pos";
+  }
+
+}
@@ -2,14 +2,12 @@ package de.adito.aditoweb.nbm.aliasdiff.impl.entity;
 
 import de.adito.aditoweb.common.util.PropertlyUtil;
 import de.adito.aditoweb.core.IAliasKey;
-import de.adito.aditoweb.core.util.Utility;
 import de.adito.aditoweb.database.*;
-import de.adito.aditoweb.database.general.metainfo.*;
-import de.adito.aditoweb.database.general.sqlstatement.DBIDGenerator;
+import de.adito.aditoweb.database.general.metainfo.ITableMetadata;
 import de.adito.aditoweb.designer.dataobjects.DesignerDataModelHierarchy;
-import de.adito.aditoweb.nbm.aliasdiff.impl.db.CustomOnlineMetadataProvider;
-import de.adito.aditoweb.nbm.designerdb.api.DatabaseAccessProvider;
-import de.adito.aditoweb.nbm.designerdb.impl.metadata.online.NBViewMetadata;
+import de.adito.aditoweb.filesystem.propertly.BulkModifyHierarchy;
+import de.adito.aditoweb.nbm.aliasdiff.impl.db.*;
+import de.adito.aditoweb.nbm.designerdb.api.*;
 import de.adito.aditoweb.system.crmcomponents.*;
 import de.adito.aditoweb.system.crmcomponents.datamodels.aliasdefsubs.AliasDefDBDataModel;
 import de.adito.aditoweb.system.crmcomponents.datamodels.entity.IEntityDataModel;
@@ -17,22 +15,30 @@ import de.adito.aditoweb.system.crmcomponents.datamodels.entity.database.*;
 import de.adito.aditoweb.system.crmcomponents.datamodels.entity.provider.IEntityProvider;
 import de.adito.aditoweb.system.crmcomponents.majordatamodels.AliasDefinitionDataModel;
 import de.adito.propertly.core.api.Hierarchy;
+import de.adito.propertly.core.spi.*;
 import lombok.NonNull;
+import lombok.extern.java.Log;
 import org.jetbrains.annotations.Nullable;
 import org.openide.util.lookup.ServiceProvider;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 /**
- * Factory based on the {@link CustomOnlineMetadataProvider}
+ * Factory based on the {@link BulkMetadataReader}, falls back to the {@link CustomOnlineMetadataProvider}
  *
  * @author w.glanzer, 12.07.2022
  */
+@Log
 @ServiceProvider(service = IEntityDBFactory.class)
 public class EntityDBFactoryImpl implements IEntityDBFactory
 {
 
   private static final CustomOnlineMetadataProvider customOnlineMetadataProvider = new CustomOnlineMetadataProvider();
+  private static final MetadataSnapshotCache metadataSnapshotCache = new MetadataSnapshotCache(new BulkMetadataReader());
+  // snapshots of the tables, that were not added to a created model yet, keyed by the hierarchy of the model
+  private final Map<IHierarchy<?>, List<SchemaSnapshot.Table>> deferredTables = Collections.synchronizedMap(new WeakHashMap<>());
 
   @NonNull
   @Override
@@ -48,6 +54,62 @@ public class EntityDBFactoryImpl implements IEntityDBFactory
     return extractFromAlias(pConfig, pTables);
   }
 
+  @Override
+  public void read(@NonNull IAliasConfigInfo pConfig, @Nullable Set<String> pTables, @NonNull Consumer<SchemaSnapshot.Table> pTableConsumer)
+      throws EntityDBModelCreationException
+  {
+    try
+    {
+      readTables(pConfig, pTables, pMetadata -> pTableConsumer.accept(SchemaSnapshot.Table.of(pMetadata)));
+    }
+    catch (Exception e)
+    {
+      throw new EntityDBModelCreationException("Failed to read tables from alias", e);
+    }
+  }
+
+  @NonNull
+  @Override
+  public EntityGroupDBDataModel create(@NonNull String pName, @NonNull Collection<SchemaSnapshot.Table> pTables)
+  {
+    EntityGroupDBDataModel root = createNewGroupModel(pName);
+    for (SchemaSnapshot.Table table : SchemaSnapshot.of(pTables).getTables())
+      addTable(root, table);
+
+    return root;
+  }
+
+  @NonNull
+  @Override
+  public EntityGroupDBDataModel create(@NonNull String pName, @NonNull Collection<SchemaSnapshot.Table> pTables,
+                                       @NonNull Collection<SchemaSnapshot.Table> pDeferredTables)
+  {
+    EntityGroupDBDataModel root = create(pName, pTables);
+    if (!pDeferredTables.isEmpty())
+      deferredTables.put(root.getPit().getHierarchy(), List.copyOf(pDeferredTables));
+    return root;
+  }
+
+  @Override
+  public void addDeferredTables(@NonNull IHierarchy<?> pHierarchy, @NonNull EntityGroupDBDataModel pModel)
+  {
+    // the diff works on a copy of the created model
+    IHierarchy<?> source = pHierarchy instanceof BulkModifyHierarchy ? ((BulkModifyHierarchy<?>) pHierarchy).getSourceHierarchy() : pHierarchy;
+    List<SchemaSnapshot.Table> tables = deferredTables.remove(source);
+    if (tables == null)
+      return;
+
+    // tables, that were added in the meantime (e.g. the user copied a local table), are kept
+    IEntityProvider.Entities entities = PropertlyUtil.getInited(pModel, IEntityProvider.entities);
+    Set<String> existingTables = new HashSet<>();
+    for (IProperty<?, ?> table : entities.getPit().getProperties())
+      existingTables.add(table.getName().toUpperCase(Locale.ROOT));
+
+    for (SchemaSnapshot.Table table : SchemaSnapshot.of(tables).getTables())
+      if (existingTables.add(table.getName().toUpperCase(Locale.ROOT)))
+        addTable(pModel, table);
+  }
+
   /**
    * Creates a new {@link EntityGroupDBDataModel} based on the database of the given config.
    * Will extract only tables that are identified in the given set.
@@ -59,31 +121,57 @@ public class EntityDBFactoryImpl implements IEntityDBFactory
    * @throws EntityDBModelCreationException if something failed during creation
    */
   @NonNull
-  private EntityGroupDBDataModel extractFromAlias(@NonNull IAliasConfigInfo pConfig, @Nullable Set<String> pTables) throws EntityDBModelCreationException
+  private EntityGroupDBDataModel extractFromAlias(@NonNull IAliasConfigInfo pConfig, @Nullable Set<String> pTables)
+      throws EntityDBModelCreationException
   {
-    try
-    {
-      // read the table metadata
-      List<ITableMetadata> tables;
-      if (pTables != null)
-        tables = customOnlineMetadataProvider.getTableMetaData(pConfig, new ArrayList<>(pTables), pConfig.getProperty(IAliasKey.SCHEMA), true);
-      else
-        tables = DatabaseAccessProvider.getInstance().getMetadataProvider().getOnline().getTableMetaData(pConfig, true);
+    List<SchemaSnapshot.Table> tables = new ArrayList<>();
+    read(pConfig, pTables, tables::add);
+
+    // create entity model
+    return create(pConfig.getDefinitionName(), tables);
+  }
 
-      // create entity model
-      EntityGroupDBDataModel root = createNewGroupModel(pConfig.getDefinitionName());
-      tables.stream()
-          .filter(Objects::nonNull)
-          //sort, so that the returning model is not in random order
-          .sorted(Comparator.comparing(ITableMetadata::getName, String.CASE_INSENSITIVE_ORDER))
-          .forEach(pTable -> addTable(root, pTable));
+  /**
+   * Reads the metadata of the given tables with the {@link BulkMetadataReader}, served from the {@link MetadataSnapshotCache} if possible.
+   * If the bulk read fails, the {@link CustomOnlineMetadataProvider} will be used instead, which prefetches the details of the tables too.
+   * Every table is passed to the consumer only once, even if the bulk read failed after some tables were already read.
+   *
+   * @param pConfig        Alias to read from
+   * @param pTables        Tables that should be read, or null if all tables should be read
+   * @param pTableConsumer Consumer, that gets the metadata of every found table as soon as it was read
+   * @throws DatabaseException if the metadata could not be read at all
+   */
+  private void readTables(@NonNull IAliasConfigInfo pConfig, @Nullable Set<String> pTables, @NonNull Consumer<BulkTableMetadata> pTableConsumer)
+      throws DatabaseException
+  {
+    String schema = pConfig.getProperty(IAliasKey.SCHEMA);
+    Set<String> passedTables = new HashSet<>();
 
-      return root;
+    try
+    {
+      metadataSnapshotCache.read(pConfig, pTables, schema, true, pTable -> {
+        passedTables.add(pTable.getName().toUpperCase(Locale.ROOT));
+        pTableConsumer.accept(pTable);
+      });
+      return;
     }
-    catch (Exception e)
+    catch (DatabaseException e)
     {
-      throw new EntityDBModelCreationException("Failed to read tables from alias", e);
+      log.log(Level.WARNING, e, () -> "Failed to read metadata of " + pConfig.getDefinitionName() + " in bulk, " +
+          "falling back to the online metadata provider");
     }
+
+    List<ITableMetadata> tables;
+    if (pTables != null)
+      tables = customOnlineMetadataProvider.getTableMetaData(pConfig, new ArrayList<>(pTables), schema, true);
+    else
+      tables = customOnlineMetadataProvider.getTableMetaData(pConfig, schema, true);
+
+    tables.stream()
+        .filter(Objects::nonNull)
+        .filter(pTable -> !passedTables.contains(pTable.getName().toUpperCase(Locale.ROOT)))
+        .map(BulkTableMetadata::of)
+        .forEach(pTableConsumer);
   }
 
   /**
@@ -93,7 +181,7 @@ public class EntityDBFactoryImpl implements IEntityDBFactory
    * @return the newly created GroupDBDataModel
    */
   @NonNull
-  private EntityGroupDBDataModel createNewGroupModel(@NonNull String pName)
+  static EntityGroupDBDataModel createNewGroupModel(@NonNull String pName)
   {
     AliasDefinitionDataModel alias = new DataModelFactory().create(pName, AliasDefinitionDataModel.class);
 
@@ -110,152 +198,53 @@ public class EntityDBFactoryImpl implements IEntityDBFactory
   }
 
   /**
-   * Appends the given {@link ITableMetadata} information to the given {@link EntityGroupDBDataModel}
+   * Appends the given {@link SchemaSnapshot.Table} information to the given {@link EntityGroupDBDataModel}
    *
    * @param pModel Model to append to
-   * @param pTable Metadata that should be appended
+   * @param pTable Snapshot of the table that should be appended
+   * @return the created table
    */
-  private void addTable(@NonNull EntityGroupDBDataModel pModel, @NonNull ITableMetadata pTable)
+  @NonNull
+  static EntityDBDataModel addTable(@NonNull EntityGroupDBDataModel pModel, @NonNull SchemaSnapshot.Table pTable)
   {
     IEntityProvider.Entities entities = PropertlyUtil.getInited(pModel, IEntityProvider.entities);
-    EntityDBDataModel table = entities.addProperty(pTable.getName(), pTable instanceof NBViewMetadata ?
+    EntityDBDataModel table = entities.addProperty(pTable.getName(), pTable.isView() ?
         new EntityDBViewDataModel() : new EntityDBDataModel()).getValue();
     assert table != null;
 
-    // Meta-Infos
-    List<String> uniqueColumns = getUniqueColumns(pTable.getIndexes());
-    List<String> indexColumns = getIndexedColumns(pTable.getIndexes());
-    String idColumn = getIDColumn(pTable);
-
     // Columns
-    pTable.getColumns().forEach(pColumn -> addColumn(table, pColumn, uniqueColumns.contains(pColumn.getName()),
-                                                     pTable.getPrimaryKeyColumns().contains(pColumn), indexColumns.contains(pColumn.getName())));
+    for (int i = 0; i < pTable.getColumnCount(); i++)
+      addColumn(table, pTable, i);
 
     // Own Properties
-    table.getPit().setValue(EntityDBDataModel.idColumn, idColumn);
-    table.getPit().setValue(EntityDBDataModel.idGeneratorType, getIDGeneratorType(pTable, idColumn));
+    table.getPit().setValue(EntityDBDataModel.idColumn, pTable.getIdColumn());
+    table.getPit().setValue(EntityDBDataModel.idGeneratorType, pTable.getIdGeneratorType());
     table.getPit().setValue(EntityDBDataModel.idGeneratorInterval, 1);
+    return table;
   }
 
   /**
-   * Appends the given {@link IColumnMetadata} information to the given {@link EntityDBDataModel}
+   * Appends a single column of the given {@link SchemaSnapshot.Table} to the given {@link EntityDBDataModel}
    *
-   * @param pModel        Model to append to
-   * @param pColumn       Metadata that should be appended
-   * @param pIsUnique     Determines if this column is unique
-   * @param pIsPrimaryKey Determines if this column is part of the primary key
-   * @param pIsIndex      Determines if this column is part of an index
+   * @param pModel Model to append to
+   * @param pTable Snapshot of the table, that contains the column
+   * @param pIndex Position of the column inside the table
    */
-  private void addColumn(@NonNull EntityDBDataModel pModel, @NonNull IColumnMetadata pColumn,
-                         boolean pIsUnique, boolean pIsPrimaryKey, boolean pIsIndex)
+  private static void addColumn(@NonNull EntityDBDataModel pModel, @NonNull SchemaSnapshot.Table pTable, int pIndex)
   {
     IEntityDataModel.EntityFields fields = PropertlyUtil.getInited(pModel, IEntityDataModel.entityFields);
-    EntityFieldDBDataModel column = fields.addProperty(pColumn.getName(), pModel instanceof EntityDBViewDataModel ?
+    EntityFieldDBDataModel column = fields.addProperty(pTable.getColumnName(pIndex), pModel instanceof EntityDBViewDataModel ?
         new EntityFieldViewDBDataModel() : new EntityFieldDBDataModel()).getValue();
     assert column != null;
 
     // Own Properties
-    column.getPit().setValue(EntityFieldDBDataModel.columnType, pColumn.getDatatype());
-    column.getPit().setValue(EntityFieldDBDataModel.size, pColumn.getSize());
-    column.getPit().setValue(EntityFieldDBDataModel.scale, (int) pColumn.getScale());
-    column.getPit().setValue(EntityFieldDBDataModel.isUnique, pIsUnique);
-    column.getPit().setValue(EntityFieldDBDataModel.notNull, !pColumn.isNullAllowed());
-    column.getPit().setValue(EntityFieldDBDataModel.primaryKey, pIsPrimaryKey);
-    column.getPit().setValue(EntityFieldDBDataModel.index, pIsIndex);
-  }
-
-  /**
-   * Returns a list of columns that are unique, based on the information about indices.
-   *
-   * @param pIndexes the indices of the searched tables
-   * @return the list with column names
-   */
-  @NonNull
-  private List<String> getUniqueColumns(@NonNull List<IIndexMetadata> pIndexes)
-  {
-    List<String> unique = new ArrayList<>();
-
-    for (IIndexMetadata index : pIndexes)
-    {
-      List<IColumnMetadata> columns = index.getColumns();
-      if (columns.size() == 1 && index.isUnique())
-        unique.add(columns.get(0).getName());
-    }
-
-    return unique;
-  }
-
-  /**
-   * Returns a list of columns names that are part of an index.
-   * Primary Keys will be ignored
-   *
-   * @param pIndexes the indices of a table
-   * @return the list with column names
-   */
-  @NonNull
-  private List<String> getIndexedColumns(@NonNull List<IIndexMetadata> pIndexes)
-  {
-    List<String> indexed = new ArrayList<>();
-
-    for (IIndexMetadata index : pIndexes)
-    {
-      List<IColumnMetadata> columns = index.getColumns();
-      if (columns.size() == 1)
-        indexed.add(columns.get(0).getName());
-    }
-
-    return indexed;
-  }
-
-  /**
-   * Returns the idColumn of a table.
-   * Either a single primary key, or a single-columnn, unique index that does not allow null values.
-   *
-   * @param pTable the metadata to get the id column for
-   * @return the id column or an empty string
-   */
-  @NonNull
-  private String getIDColumn(@NonNull ITableMetadata pTable)
-  {
-    List<IColumnMetadata> keys = pTable.getPrimaryKeyColumns();
-    if (keys.size() == 1) // only return, if the primary key is single-column-based
-      return keys.get(0).getName();
-
-    List<IIndexMetadata> indexes = pTable.getIndexes();
-    for (IIndexMetadata index : indexes)
-    {
-      List<IColumnMetadata> indexColumns = index.getColumns();
-      if (index.isUnique() && indexColumns.size() == 1)
-      {
-        IColumnMetadata indexColumn = indexColumns.get(0);
-        if (!indexColumn.isNullAllowed())
-          return indexColumn.getName();
-      }
-    }
-    return "";
-  }
-
-  /**
-   * Returns the generatorType based on pTable and pIDColumn.
-   *
-   * @param pTable    table to get the generator type for
-   * @param pIDColumn the idColumn of the table
-   * @return generator type
-   */
-  @NonNull
-  private Integer getIDGeneratorType(@NonNull ITableMetadata pTable, @NonNull String pIDColumn)
-  {
-    if (!Utility.isEmptyString(pIDColumn))
-    {
-      List<IColumnMetadata> columns = pTable.getColumns();
-      for (IColumnMetadata column : columns)
-      {
-        if (column.getName().equalsIgnoreCase(pIDColumn))
-          return DBIDGenerator.getDefaultIDStrategy(column.getDatatype());
-      }
-    }
-
-    return IDBConstants.ID_PER_SEQUENZ; //Sequence
+    column.getPit().setValue(EntityFieldDBDataModel.columnType, pTable.getColumnType(pIndex));
+    column.getPit().setValue(EntityFieldDBDataModel.size, pTable.getSize(pIndex));
+    column.getPit().setValue(EntityFieldDBDataModel.scale, pTable.getScale(pIndex));
+    column.getPit().setValue(EntityFieldDBDataModel.isUnique, pTable.isUnique(pIndex));
+    column.getPit().setValue(EntityFieldDBDataModel.notNull, pTable.isNotNull(pIndex));
+    column.getPit().setValue(EntityFieldDBDataModel.primaryKey, pTable.isPrimaryKey(pIndex));
+    column.getPit().setValue(EntityFieldDBDataModel.index, pTable.isIndex(pIndex));
   }
 
 }
@@ -2,9 +2,12 @@ package de.adito.aditoweb.nbm.aliasdiff.impl.entity;
 
 import de.adito.aditoweb.database.IAliasConfigInfo;
 import de.adito.aditoweb.system.crmcomponents.datamodels.entity.database.EntityGroupDBDataModel;
+import de.adito.propertly.core.spi.IHierarchy;
 import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Set;
+import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Factory to create entity structures from database systems
@@ -38,4 +41,53 @@ public interface IEntityDBFactory
   @NonNull
   EntityGroupDBDataModel create(@NonNull IAliasConfigInfo pConfig, @NonNull Set<String> pTables) throws EntityDBModelCreationException;
 
+  /**
+   * Reads the {@link SchemaSnapshot} of every table from the database of the given config, without creating an entity model.
+   * The consumer is called on the calling thread. The snapshots are immutable,
+   * so they can be compared on another thread while the other tables are still being read.
+   *
+   * @param pConfig        Alias to read from
+   * @param pTables        Tables that should be read, or null if all tables should be read.
+   *                       If a table does not exist in the database, then it will be ignored and not passed to the consumer
+   * @param pTableConsumer Consumer, that gets the snapshot of every table
+   * @throws EntityDBModelCreationException if something failed during reading
+   */
+  void read(@NonNull IAliasConfigInfo pConfig, @Nullable Set<String> pTables, @NonNull Consumer<SchemaSnapshot.Table> pTableConsumer)
+      throws EntityDBModelCreationException;
+
+  /**
+   * Creates a new {@link EntityGroupDBDataModel} from the snapshots of tables, that were already read from a database.
+   * Does not access the database at all.
+   *
+   * @param pName   Name of the alias, the model belongs to
+   * @param pTables Snapshots of the tables, that should be written in the resulting model
+   * @return the entity model with the given tables
+   */
+  @NonNull
+  EntityGroupDBDataModel create(@NonNull String pName, @NonNull Collection<SchemaSnapshot.Table> pTables);
+
+  /**
+   * Creates a new {@link EntityGroupDBDataModel} from the snapshots of tables, that were already read from a database.
+   * The deferred tables are not written in the resulting model, until {@link #addDeferredTables(IHierarchy, EntityGroupDBDataModel)}
+   * is called, e.g. because they were already found to be equal and are not needed to show the diff.
+   *
+   * @param pName           Name of the alias, the model belongs to
+   * @param pTables         Snapshots of the tables, that should be written in the resulting model
+   * @param pDeferredTables Snapshots of the tables, that should be written in the resulting model on demand
+   * @return the entity model with the given tables
+   */
+  @NonNull
+  EntityGroupDBDataModel create(@NonNull String pName, @NonNull Collection<SchemaSnapshot.Table> pTables,
+                                @NonNull Collection<SchemaSnapshot.Table> pDeferredTables);
+
+  /**
+   * Writes the deferred tables of a model, that was created with {@link #create(String, Collection, Collection)}, in the given model.
+   * Has to be called, before the model is used as a whole, e.g. before the database gets synchronized with it.
+   * Tables, that already exist in the given model, are kept. Does nothing, if the model does not have any deferred tables.
+   *
+   * @param pHierarchy Hierarchy of the created model, or a {@link de.adito.aditoweb.filesystem.propertly.BulkModifyHierarchy} of it
+   * @param pModel     Model to write the tables in, part of the given hierarchy
+   */
+  void addDeferredTables(@NonNull IHierarchy<?> pHierarchy, @NonNull EntityGroupDBDataModel pModel);
+
 }
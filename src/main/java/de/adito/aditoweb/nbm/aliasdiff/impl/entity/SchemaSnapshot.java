@@ -0,0 +1,327 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.entity;
+
+import de.adito.aditoweb.core.util.Utility;
+import de.adito.aditoweb.database.IDBConstants;
+import de.adito.aditoweb.database.general.sqlstatement.DBIDGenerator;
+import de.adito.aditoweb.nbm.aliasdiff.impl.db.BulkTableMetadata;
+import lombok.*;
+
+import java.util.*;
+
+/**
+ * Compact, immutable representation of the tables of a database, with exactly the information that the
+ * {@link EntityDBFactoryImpl} writes into an entity model. Cheap to create and to compare, so that the full
+ * entity model only has to be inspected for tables that actually differ.
+ *
+ * @author agent, 17.10.2026
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class SchemaSnapshot
+{
+  /**
+   * All tables, ordered case-insensitive by their name
+   */
+  @NonNull
+  private final Table[] tables;
+
+  /**
+   * Creates the snapshot of the given tables
+   *
+   * @param pTables Snapshots of the tables, in any order
+   * @return the snapshot
+   */
+  @NonNull
+  public static SchemaSnapshot of(@NonNull Collection<Table> pTables)
+  {
+    return new SchemaSnapshot(pTables.stream()
+                                  //sort, so that the resulting model is not in random order
+                                  .sorted(Comparator.comparing(Table::getName, String.CASE_INSENSITIVE_ORDER))
+                                  .toArray(Table[]::new));
+  }
+
+  /**
+   * @return all tables, ordered case-insensitive by their name
+   */
+  @NonNull
+  public List<Table> getTables()
+  {
+    return Collections.unmodifiableList(Arrays.asList(tables));
+  }
+
+  /**
+   * Snapshot of a single table or view. The columns are stored in flat arrays, indexed by their position in the table.
+   */
+  @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+  public static class Table
+  {
+    private static final byte FLAG_UNIQUE = 1;
+    private static final byte FLAG_PRIMARY_KEY = 1 << 1;
+    private static final byte FLAG_INDEX = 1 << 2;
+    private static final byte FLAG_NOT_NULL = 1 << 3;
+
+    /**
+     * Name of the table, as it is stored in the database
+     */
+    @Getter
+    @NonNull
+    private final String name;
+
+    /**
+     * true, if this snapshot describes a view
+     */
+    @Getter
+    private final boolean view;
+
+    /**
+     * Name of the id column, or an empty string if the table has none
+     */
+    @Getter
+    @NonNull
+    private final String idColumn;
+
+    /**
+     * Strategy to generate the ids of this table, see {@link IDBConstants}
+     */
+    @Getter
+    private final int idGeneratorType;
+
+    /**
+     * Interned names of the columns
+     */
+    @NonNull
+    private final String[] columnNames;
+
+    /**
+     * Datatypes of the columns, see {@link java.sql.Types}
+     */
+    @NonNull
+    private final int[] columnTypes;
+
+    /**
+     * Sizes of the columns
+     */
+    @NonNull
+    private final int[] sizes;
+
+    /**
+     * Scales of the columns
+     */
+    @NonNull
+    private final int[] scales;
+
+    /**
+     * Combination of the FLAG_ constants for every column
+     */
+    @NonNull
+    private final byte[] flags;
+
+    /**
+     * @return the number of columns
+     */
+    public int getColumnCount()
+    {
+      return columnNames.length;
+    }
+
+    /**
+     * @param pIndex Position of the column
+     * @return the name of the column
+     */
+    @NonNull
+    public String getColumnName(int pIndex)
+    {
+      return columnNames[pIndex];
+    }
+
+    /**
+     * @param pIndex Position of the column
+     * @return the datatype of the column, see {@link java.sql.Types}
+     */
+    public int getColumnType(int pIndex)
+    {
+      return columnTypes[pIndex];
+    }
+
+    /**
+     * @param pIndex Position of the column
+     * @return the size of the column
+     */
+    public int getSize(int pIndex)
+    {
+      return sizes[pIndex];
+    }
+
+    /**
+     * @param pIndex Position of the column
+     * @return the scale of the column
+     */
+    public int getScale(int pIndex)
+    {
+      return scales[pIndex];
+    }
+
+    /**
+     * @param pIndex Position of the column
+     * @return true, if the column is unique on its own
+     */
+    public boolean isUnique(int pIndex)
+    {
+      return (flags[pIndex] & FLAG_UNIQUE) != 0;
+    }
+
+    /**
+     * @param pIndex Position of the column
+     * @return true, if the column is part of the primary key
+     */
+    public boolean isPrimaryKey(int pIndex)
+    {
+      return (flags[pIndex] & FLAG_PRIMARY_KEY) != 0;
+    }
+
+    /**
+     * @param pIndex Position of the column
+     * @return true, if the column is indexed on its own
+     */
+    public boolean isIndex(int pIndex)
+    {
+      return (flags[pIndex] & FLAG_INDEX) != 0;
+    }
+
+    /**
+     * @param pIndex Position of the column
+     * @return true, if the column does not allow null values
+     */
+    public boolean isNotNull(int pIndex)
+    {
+      return (flags[pIndex] & FLAG_NOT_NULL) != 0;
+    }
+
+    /**
+     * Creates the snapshot of a single table
+     *
+     * @param pTable Metadata of the table
+     * @return the snapshot
+     */
+    @NonNull
+    static Table of(@NonNull BulkTableMetadata pTable)
+    {
+      // Meta-Infos
+      List<String> uniqueColumns = getUniqueColumns(pTable.getIndexes());
+      List<String> indexColumns = getIndexedColumns(pTable.getIndexes());
+      String idColumn = getIDColumn(pTable);
+
+      // Columns
+      List<BulkTableMetadata.Column> columns = pTable.getColumns();
+      String[] columnNames = new String[columns.size()];
+      int[] columnTypes = new int[columns.size()];
+      int[] sizes = new int[columns.size()];
+      int[] scales = new int[columns.size()];
+      byte[] flags = new byte[columns.size()];
+      for (int i = 0; i < columnNames.length; i++)
+      {
+        BulkTableMetadata.Column column = columns.get(i);
+        columnNames[i] = column.getName().intern();
+        columnTypes[i] = column.getDatatype();
+        sizes[i] = column.getSize();
+        scales[i] = column.getScale();
+        flags[i] = (byte) ((uniqueColumns.contains(column.getName()) ? FLAG_UNIQUE : 0) |
+            (pTable.getPrimaryKeyColumns().contains(column.getName()) ? FLAG_PRIMARY_KEY : 0) |
+            (indexColumns.contains(column.getName()) ? FLAG_INDEX : 0) |
+            (column.isNullAllowed() ? 0 : FLAG_NOT_NULL));
+      }
+
+      return new Table(pTable.getName(), pTable.isView(), idColumn, getIDGeneratorType(pTable, idColumn),
+                       columnNames, columnTypes, sizes, scales, flags);
+    }
+
+    /**
+     * Returns a list of columns that are unique, based on the information about indices.
+     *
+     * @param pIndexes the indices of the searched tables
+     * @return the list with column names
+     */
+    @NonNull
+    private static List<String> getUniqueColumns(@NonNull List<BulkTableMetadata.Index> pIndexes)
+    {
+      List<String> unique = new ArrayList<>();
+
+      for (BulkTableMetadata.Index index : pIndexes)
+      {
+        List<String> columns = index.getColumns();
+        if (columns.size() == 1 && index.isUnique())
+          unique.add(columns.get(0));
+      }
+
+      return unique;
+    }
+
+    /**
+     * Returns a list of columns names that are part of an index.
+     * Primary Keys will be ignored
+     *
+     * @param pIndexes the indices of a table
+     * @return the list with column names
+     */
+    @NonNull
+    private static List<String> getIndexedColumns(@NonNull List<BulkTableMetadata.Index> pIndexes)
+    {
+      List<String> indexed = new ArrayList<>();
+
+      for (BulkTableMetadata.Index index : pIndexes)
+      {
+        List<String> columns = index.getColumns();
+        if (columns.size() == 1)
+          indexed.add(columns.get(0));
+      }
+
+      return indexed;
+    }
+
+    /**
+     * Returns the idColumn of a table.
+     * Either a single primary key, or a single-columnn, unique index that does not allow null values.
+     *
+     * @param pTable the metadata to get the id column for
+     * @return the id column or an empty string
+     */
+    @NonNull
+    private static String getIDColumn(@NonNull BulkTableMetadata pTable)
+    {
+      List<String> keys = pTable.getPrimaryKeyColumns();
+      if (keys.size() == 1) // only return, if the primary key is single-column-based
+        return keys.get(0);
+
+      for (BulkTableMetadata.Index index : pTable.getIndexes())
+      {
+        List<String> indexColumns = index.getColumns();
+        if (index.isUnique() && indexColumns.size() == 1)
+        {
+          BulkTableMetadata.Column indexColumn = pTable.getColumn(indexColumns.get(0));
+          if (indexColumn != null && !indexColumn.isNullAllowed())
+            return indexColumn.getName();
+        }
+      }
+      return "";
+    }
+
+    /**
+     * Returns the generatorType based on pTable and pIDColumn.
+     *
+     * @param pTable    table to get the generator type for
+     * @param pIDColumn the idColumn of the table
+     * @return generator type
+     */
+    private static int getIDGeneratorType(@NonNull BulkTableMetadata pTable, @NonNull String pIDColumn)
+    {
+      if (!Utility.isEmptyString(pIDColumn))
+      {
+        BulkTableMetadata.Column column = pTable.getColumn(pIDColumn);
+        if (column != null)
+          return DBIDGenerator.getDefaultIDStrategy(column.getDatatype());
+      }
+
+      return IDBConstants.ID_PER_SEQUENZ; //Sequence
+    }
+  }
+
+}
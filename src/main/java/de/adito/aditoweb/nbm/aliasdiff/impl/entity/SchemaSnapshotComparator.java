@@ -0,0 +1,212 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.entity;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.*;
+import de.adito.aditoweb.nbm.aliasdiff.impl.db.BulkTableMetadata;
+import de.adito.aditoweb.system.crmcomponents.datamodels.entity.IEntityDataModel;
+import de.adito.aditoweb.system.crmcomponents.datamodels.entity.database.*;
+import de.adito.propertly.core.spi.*;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Compares local tables with the {@link SchemaSnapshot} of a database table, without creating the entity model of the database table.
+ * The values, that the {@link EntityDBFactoryImpl} writes into a model, are compared with the snapshot directly.
+ * All other properties are compared with an empty prototype model, because a model created from the database only contains their defaults.
+ * The comparison is conservative: A table is only treated as equal, if the {@link PropertyPitMatcher} would remove it from the diff tree.
+ *
+ * @author agent, 17.10.2026
+ */
+public class SchemaSnapshotComparator
+{
+  private static final Set<IPropertyDescription<?, ?>> TABLE_PROPERTIES =
+      Set.of(EntityDBDataModel.idColumn, EntityDBDataModel.idGeneratorType, EntityDBDataModel.idGeneratorInterval, IEntityDataModel.entityFields);
+  private static final Set<IPropertyDescription<?, ?>> COLUMN_PROPERTIES =
+      Set.of(EntityFieldDBDataModel.columnType, EntityFieldDBDataModel.size, EntityFieldDBDataModel.scale, EntityFieldDBDataModel.isUnique,
+             EntityFieldDBDataModel.notNull, EntityFieldDBDataModel.primaryKey, EntityFieldDBDataModel.index);
+
+  /**
+   * Filter, that decides which properties should be compared
+   */
+  private final IPropertyFilter filter;
+
+  /**
+   * Filters, that additionally skip the properties, that are compared with the snapshot
+   */
+  private final IPropertyFilter tableFilter;
+  private final IPropertyFilter columnFilter;
+
+  /**
+   * Prototypes, that only contain the values written by the {@link EntityDBFactoryImpl}
+   */
+  private final EntityDBDataModel tablePrototype;
+  private final EntityDBDataModel viewPrototype;
+  private final EntityFieldDBDataModel tableColumnPrototype;
+  private final EntityFieldDBDataModel viewColumnPrototype;
+
+  /**
+   * @param pFilter filter, that decides which properties should be compared. Has to be stateless.
+   */
+  public SchemaSnapshotComparator(@NonNull IPropertyFilter pFilter)
+  {
+    filter = pFilter;
+    tableFilter = pProperty -> pFilter.test(pProperty) && !TABLE_PROPERTIES.contains(pProperty.getDescription());
+    columnFilter = pProperty -> pFilter.test(pProperty) && !COLUMN_PROPERTIES.contains(pProperty.getDescription());
+
+    EntityGroupDBDataModel prototypes = EntityDBFactoryImpl.createNewGroupModel("prototypes");
+    tablePrototype = EntityDBFactoryImpl.addTable(prototypes, createPrototypeSnapshot("TABLE", false));
+    viewPrototype = EntityDBFactoryImpl.addTable(prototypes, createPrototypeSnapshot("VIEW", true));
+    tableColumnPrototype = getFirstColumn(tablePrototype);
+    viewColumnPrototype = getFirstColumn(viewPrototype);
+  }
+
+  /**
+   * Determines, if the given local table is equal to the given snapshot of a database table
+   *
+   * @param pLocal  local table, with the same name as the snapshot
+   * @param pRemote snapshot of the database table
+   * @return true, if the {@link PropertyPitMatcher} would not show any difference between both tables
+   */
+  public boolean isEqual(@NonNull IPropertyPitProvider<?, ?, ?> pLocal, @NonNull SchemaSnapshot.Table pRemote)
+  {
+    EntityDBDataModel prototype = pRemote.isView() ? viewPrototype : tablePrototype;
+    if (pLocal.getClass() != prototype.getClass() || pRemote.getColumnCount() == 0)
+      return false;
+
+    EntityDBDataModel local = (EntityDBDataModel) pLocal;
+    if (!Objects.equals(local.getPit().getValue(EntityDBDataModel.idColumn), pRemote.getIdColumn()) ||
+        !Objects.equals(local.getPit().getValue(EntityDBDataModel.idGeneratorType), pRemote.getIdGeneratorType()) ||
+        !Objects.equals(local.getPit().getValue(EntityDBDataModel.idGeneratorInterval), 1) ||
+        !PropertyPitEquality.isEqual(local, prototype, tableFilter))
+      return false;
+
+    Map<String, EntityFieldDBDataModel> localColumns = getColumns(local);
+    if (localColumns == null || localColumns.size() != pRemote.getColumnCount())
+      return false;
+
+    EntityFieldDBDataModel columnPrototype = pRemote.isView() ? viewColumnPrototype : tableColumnPrototype;
+    for (int i = 0; i < pRemote.getColumnCount(); i++)
+    {
+      // removing the column also detects columns, that only differ in case on the remote side
+      EntityFieldDBDataModel column = localColumns.remove(pRemote.getColumnName(i).toUpperCase(Locale.ROOT));
+      if (column == null || column.getClass() != columnPrototype.getClass() || !isEqual(column, pRemote, i) ||
+          !PropertyPitEquality.isEqual(column, columnPrototype, columnFilter))
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Estimates the count of differences between the given local table and the snapshot, without creating the remote model.
+   * Every column that exists on one side only or has different values counts as one difference,
+   * so the estimate is only a lower bound of what the {@link PropertyPitMatcher} will find.
+   *
+   * @param pLocal  local table, with the same name as the snapshot, or null if it does not exist locally
+   * @param pRemote snapshot of the database table
+   * @return the estimated count of differences, at least 1
+   */
+  public int estimateDifferences(@Nullable IPropertyPitProvider<?, ?, ?> pLocal, @NonNull SchemaSnapshot.Table pRemote)
+  {
+    IEntityDataModel.EntityFields fields = pLocal instanceof EntityDBDataModel ?
+        ((EntityDBDataModel) pLocal).getPit().getValue(IEntityDataModel.entityFields) : null;
+    if (fields == null)
+      return Math.max(1, pRemote.getColumnCount());
+
+    Map<String, EntityFieldDBDataModel> localColumns = new HashMap<>();
+    for (IProperty<?, ?> property : fields.getPit().getProperties())
+      if (filter.test(property) && property.getValue() instanceof EntityFieldDBDataModel)
+        localColumns.putIfAbsent(property.getName().toUpperCase(Locale.ROOT), (EntityFieldDBDataModel) property.getValue());
+
+    int differences = 0;
+    for (int i = 0; i < pRemote.getColumnCount(); i++)
+    {
+      EntityFieldDBDataModel column = localColumns.remove(pRemote.getColumnName(i).toUpperCase(Locale.ROOT));
+      if (column == null || !isEqual(column, pRemote, i))
+        differences++;
+    }
+
+    return Math.max(1, differences + localColumns.size());
+  }
+
+  /**
+   * Collects the columns of the given table
+   *
+   * @param pTable Table to read
+   * @return the columns, keyed by their uppercased name, or null if they can not be compared safely
+   */
+  @Nullable
+  private Map<String, EntityFieldDBDataModel> getColumns(@NonNull EntityDBDataModel pTable)
+  {
+    IEntityDataModel.EntityFields fields = pTable.getPit().getValue(IEntityDataModel.entityFields);
+    if (fields == null)
+      return null;
+
+    Map<String, EntityFieldDBDataModel> columns = new HashMap<>();
+    for (IProperty<?, ?> property : fields.getPit().getProperties())
+    {
+      Object value = property.getValue();
+      if (!filter.test(property) || !(value instanceof EntityFieldDBDataModel) ||
+          columns.put(property.getName().toUpperCase(Locale.ROOT), (EntityFieldDBDataModel) value) != null)
+        return null;
+    }
+
+    return columns;
+  }
+
+  /**
+   * Compares the values of a local column with the values of the snapshot
+   *
+   * @param pColumn Local column
+   * @param pTable  Snapshot of the database table
+   * @param pIndex  Position of the column inside the snapshot
+   * @return true, if the values are equal
+   */
+  private static boolean isEqual(@NonNull EntityFieldDBDataModel pColumn, @NonNull SchemaSnapshot.Table pTable, int pIndex)
+  {
+    if (!Objects.equals(pColumn.getPit().getValue(EntityFieldDBDataModel.columnType), pTable.getColumnType(pIndex)) ||
+        !Objects.equals(pColumn.getPit().getValue(EntityFieldDBDataModel.isUnique), pTable.isUnique(pIndex)) ||
+        !Objects.equals(pColumn.getPit().getValue(EntityFieldDBDataModel.notNull), pTable.isNotNull(pIndex)) ||
+        !Objects.equals(pColumn.getPit().getValue(EntityFieldDBDataModel.primaryKey), pTable.isPrimaryKey(pIndex)) ||
+        !Objects.equals(pColumn.getPit().getValue(EntityFieldDBDataModel.index), pTable.isIndex(pIndex)))
+      return false;
+
+    // the matcher ignores size and scale of data types, that are not managed by the user
+    if (PropertyNode.NON_MANAGED_DATA_TYPES.contains(pTable.getColumnType(pIndex)))
+      return true;
+
+    return Objects.equals(pColumn.getPit().getValue(EntityFieldDBDataModel.size), pTable.getSize(pIndex)) &&
+        Objects.equals(pColumn.getPit().getValue(EntityFieldDBDataModel.scale), pTable.getScale(pIndex));
+  }
+
+  /**
+   * @param pPrototype Prototype table
+   * @return the only column of the prototype
+   */
+  @NonNull
+  private static EntityFieldDBDataModel getFirstColumn(@NonNull EntityDBDataModel pPrototype)
+  {
+    IEntityDataModel.EntityFields fields = Objects.requireNonNull(pPrototype.getPit().getValue(IEntityDataModel.entityFields));
+    for (IProperty<?, ?> property : fields.getPit().getProperties())
+      if (property.getValue() instanceof EntityFieldDBDataModel)
+        return (EntityFieldDBDataModel) property.getValue();
+    throw new IllegalStateException("Missing column of prototype " + pPrototype.getName());
+  }
+
+  /**
+   * Creates the snapshot of a prototype table with a single column
+   *
+   * @param pName Name of the table
+   * @param pView true, if the prototype should be a view
+   * @return the snapshot
+   */
+  @NonNull
+  private static SchemaSnapshot.Table createPrototypeSnapshot(@NonNull String pName, boolean pView)
+  {
+    BulkTableMetadata.Column column = new BulkTableMetadata.Column("COLUMN", Types.VARCHAR, 0, 0, true, null);
+    return SchemaSnapshot.Table.of(new BulkTableMetadata(pName, pView, List.of(column), List.of(), List.of()));
+  }
+
+}
@@ -5,7 +5,9 @@ import de.adito.aditoweb.database.general.metainfo.ITableMetadata;
 import de.adito.aditoweb.database.general.metainfo.providers.ITableMetadataProvider;
 import de.adito.aditoweb.designer.dataobjects.data.db.IEntityDBDataObject;
 import de.adito.aditoweb.nbm.aliasdiff.dialog.*;
-import de.adito.aditoweb.nbm.aliasdiff.impl.entity.IEntityDBFactory;
+import de.adito.aditoweb.nbm.aliasdiff.dialog.diffimpl.DefaultPropertyFilter;
+import de.adito.aditoweb.nbm.aliasdiff.impl.*;
+import de.adito.aditoweb.nbm.aliasdiff.impl.entity.*;
 import de.adito.aditoweb.nbm.designer.commoninterface.dataobjects.IDesignerDataObject;
 import de.adito.aditoweb.system.crmcomponents.datamodels.entity.database.EntityGroupDBDataModel;
 import de.adito.notification.INotificationFacade;
@@ -13,8 +15,10 @@ import de.adito.propertly.core.spi.IProperty;
 import lombok.*;
 import org.jetbrains.annotations.Nullable;
 import org.netbeans.api.progress.*;
+import org.openide.util.RequestProcessor;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -39,7 +43,27 @@ public class DiffNodeCreatorFactory
   public static ProgressRunnable<IDiffNode> forWholeAliasDBDiff(@NonNull IEntityDBFactory pFactory, @NonNull Supplier<IAliasConfigInfo> pRemoteAliasSupplier,
                                                                 @NonNull EntityGroupDBDataModel pAlias)
   {
-    return new DBDiffNodeRunnableForWholeAlias(pFactory, pRemoteAliasSupplier, pAlias);
+    return forWholeAliasDBDiff(pFactory, pRemoteAliasSupplier, pAlias, false, null);
+  }
+
+  /**
+   * Creates a {@link ProgressRunnable} for a diff of a whole alias with a database.
+   * In lazy mode, the differences of a table are estimated from the snapshot of the database table, and its columns
+   * are only compared as soon as the user expands the table in the diff dialog.
+   *
+   * @param pFactory             Factory to create entity models from database
+   * @param pRemoteAliasSupplier Supplier to retrieve the target remote alias
+   * @param pAlias               Local alias that should be compared
+   * @param pLazy                true, if the columns should be compared on demand only
+   * @param pProgressListener    Listener, that gets informed about every compared table
+   * @return a {@link ProgressRunnable} containing the {@link IDiffNode}
+   */
+  @NonNull
+  public static ProgressRunnable<IDiffNode> forWholeAliasDBDiff(@NonNull IEntityDBFactory pFactory, @NonNull Supplier<IAliasConfigInfo> pRemoteAliasSupplier,
+                                                                @NonNull EntityGroupDBDataModel pAlias, boolean pLazy,
+                                                                @Nullable IDiffProgressListener pProgressListener)
+  {
+    return new DBDiffNodeRunnableForWholeAlias(pFactory, pRemoteAliasSupplier, pProgressListener, pAlias, pLazy);
   }
 
   /**
@@ -48,13 +72,35 @@ public class DiffNodeCreatorFactory
    * @param pFactory             Factory to create entity models from database
    * @param pRemoteAliasSupplier Supplier to retrieve the target remote alias
    * @param pTables              Set of tables that should be compared
+   * @param pProgressListener    Listener, that gets informed about every compared table
    * @return a {@link ProgressRunnable} containing the {@link IDiffNode}
    */
   @NonNull
   public static ProgressRunnable<IDiffNode> forSomeTableDBDiff(@NonNull IEntityDBFactory pFactory, @NonNull Supplier<IAliasConfigInfo> pRemoteAliasSupplier,
-                                                               @NonNull Set<IEntityDBDataObject<?>> pTables)
+                                                               @NonNull Set<IEntityDBDataObject<?>> pTables,
+                                                               @Nullable IDiffProgressListener pProgressListener)
   {
-    return new DBDiffNodeRunnableForSomeTables(pFactory, pRemoteAliasSupplier, pTables);
+    return new DBDiffNodeRunnableForSomeTables(pFactory, pRemoteAliasSupplier, pProgressListener, pTables);
+  }
+
+  /**
+   * Compares a whole alias with a database, without showing any GUI.
+   * Every table is compared completely and the remote side is treated as read only.
+   *
+   * @param pFactory     Factory to create entity models from database
+   * @param pRemoteAlias Remote alias to compare with
+   * @param pAlias       Local alias that should be compared
+   * @return the result of the comparison
+   * @throws Exception if an error occurred while reading the database or creating the entity models
+   */
+  @NonNull
+  public static DiffResult diffWholeAliasWithDB(@NonNull IEntityDBFactory pFactory, @NonNull IAliasConfigInfo pRemoteAlias,
+                                                @NonNull EntityGroupDBDataModel pAlias)
+      throws Exception //NOSONAR generic exception handling is okay here..
+  {
+    IDiffNode root = new DBDiffNodeRunnableForWholeAlias(pFactory, () -> pRemoteAlias, null, pAlias, false)
+        .resolveAndMatchInDB(pAlias, null, new DefaultPropertyFilter(), false);
+    return DiffResult.of(root);
   }
 
   /**
@@ -69,6 +115,11 @@ public class DiffNodeCreatorFactory
       {
         return run0(pHandle);
       }
+      catch (CancellationException e)
+      {
+        // the user closed the dialog, so nobody waits for the result
+        return null;
+      }
       catch (Exception e)
       {
         // Notify the user via balloon, because he clicked on
@@ -95,16 +146,20 @@ public class DiffNodeCreatorFactory
      * @param pRemote         Representation of the remote alias (maybe in database)
      * @param pDiffFilter     Filter to exclude some properties from diff
      * @param pRemoteReadOnly true if the remote side should be read only
+     * @param pLazyNodePolicy policy, that decides which models should be compared on demand only, null to compare everything
      * @return the node
      */
     @NonNull
     @SuppressWarnings("SameParameterValue") // ignore this warning, because we may add another runnables for diffing the system tables too
     protected IDiffNode createDiffNode(@NonNull EntityGroupDBDataModel pLocal, @NonNull EntityGroupDBDataModel pRemote,
-                                       @Nullable IPropertyFilter pDiffFilter, boolean pRemoteReadOnly)
+                                       @Nullable IPropertyFilter pDiffFilter, boolean pRemoteReadOnly, @Nullable ILazyNodePolicy pLazyNodePolicy)
     {
-      return (IDiffNode) new EntityTreeNodeFilter()
-          .filterNode(new PropertyPitMatcher<>(pLocal, pDiffFilter, EDirection.RIGHT, pRemote,
-                                               pRemoteReadOnly ? EDirection.RIGHT : null).match());
+      PropertyPitMatcher<EntityGroupDBDataModel, EntityGroupDBDataModel> matcher =
+          new PropertyPitMatcher<>(pLocal, pDiffFilter, EDirection.RIGHT, pRemote, pRemoteReadOnly ? EDirection.RIGHT : null);
+      matcher.setLazyNodePolicy(pLazyNodePolicy);
+      matcher.setSinglePass(true);
+      // the filtered view is stored compactly, because it contains a node for every table and column that differs
+      return CompactDiffTree.of(matcher.match(), new EntityTreeNodeFilter()).getRoot();
     }
 
     /**
@@ -156,32 +211,177 @@ public class DiffNodeCreatorFactory
   @AllArgsConstructor(access = AccessLevel.PROTECTED)
   private abstract static class AbstractDBDiffNodeRunnable extends AbstractDiffNodeRunnable
   {
+    private static final int STREAMING_QUEUE_CAPACITY = 64;
+    private static final long STREAMING_POLL_INTERVAL_MS = 50;
+    // the tables of a preview are matched on the comparing thread, so they are collected for a while to keep the count of matchers low
+    private static final long PREVIEW_INTERVAL_MS = 500;
+    // every alias of a project diff needs its own producer, plus one for a diff that the user started in the meantime
+    private static final RequestProcessor STREAMING_PROCESSOR = new RequestProcessor(AbstractDBDiffNodeRunnable.class.getName(),
+                                                                                     ProjectDiffRunner.CONCURRENCY + 1);
+
     @NonNull
     private final IEntityDBFactory entityFactory;
 
     @NonNull
     private final Supplier<IAliasConfigInfo> remoteAliasSupplier;
 
+    @Nullable
+    private final IDiffProgressListener progressListener;
+
     /**
-     * Loads the equivalent of the passed alias from the database.
-     * Can be narrowed down to specific tables if necessary
+     * Loads the equivalent of the passed alias from the database and compares it with the local alias at the same time.
+     * The snapshot of every table gets passed through a bounded queue and is compared with the local table of the same name,
+     * while the other remote tables are still being read. The progress listener gets informed about every compared table,
+     * and receives the tables, that differ, as a preview in regular intervals. The diff stops as soon as the listener was cancelled.
+     * The remote model and the diff tree are built at the end and only contain the tables that were not found to be equal.
+     * The equal tables are added to the remote model by {@link IEntityDBFactory#addDeferredTables}, before the database gets synchronized.
      *
+     * @param pLocal      Representation of the local alias in project
      * @param pTableNames Names of the tables to diff. NULL will diff every table in the given alias.
-     * @return A newly created GroupDBModel with the contents of the tables
-     * @throws Exception if an error occurred while loading the AliasConfig or creating the entity
+     * @param pDiffFilter Filter to exclude some properties from diff, has to be stateless
+     * @param pLazy       true, if the columns of the tables should be compared on demand only
+     * @return the node
+     * @throws CancellationException if the progress listener was cancelled
+     * @throws Exception             if an error occurred while loading the AliasConfig or creating the entity
      */
     @NonNull
-    protected EntityGroupDBDataModel resolveEntityGroupInDB(@Nullable Set<String> pTableNames)
+    protected IDiffNode resolveAndMatchInDB(@NonNull EntityGroupDBDataModel pLocal, @Nullable Set<String> pTableNames,
+                                            @NonNull IPropertyFilter pDiffFilter, boolean pLazy)
         throws Exception //NOSONAR generic exception handling is okay here..
     {
       // Read out which database we should read from and get the config
       IAliasConfigInfo config = remoteAliasSupplier.get();
 
-      // Read the entity from the DB and possibly filter it by table name
-      if (pTableNames == null)
-        return entityFactory.create(config);
-      else
-        return entityFactory.create(config, pTableNames);
+      BlockingQueue<SchemaSnapshot.Table> tables = new ArrayBlockingQueue<>(STREAMING_QUEUE_CAPACITY);
+      Future<?> remote = STREAMING_PROCESSOR.submit(() -> {
+        entityFactory.read(config, pTableNames, pTable -> {
+          try
+          {
+            tables.put(pTable);
+          }
+          catch (InterruptedException e)
+          {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the tables of " + config.getDefinitionName(), e);
+          }
+        });
+        return null;
+      });
+
+      // the snapshot comparison tests the same column descriptions for every table
+      CachingPropertyFilter filter = CachingPropertyFilter.of(pDiffFilter);
+      StreamingTableMatcher matcher = new StreamingTableMatcher(pLocal, filter);
+      if (progressListener != null)
+        progressListener.diffStarted(pTableNames != null ? pTableNames.size() : matcher.getLocalTableCount());
+
+      // snapshots of all remote tables, the model is only created for the tables that differ
+      List<SchemaSnapshot.Table> remoteTables = new ArrayList<>();
+
+      // tables, that differ and were not passed to the listener yet
+      List<SchemaSnapshot.Table> previewTables = new ArrayList<>();
+      Set<String> previewedTables = new HashSet<>();
+      long nextPreview = System.nanoTime();
+
+      try
+      {
+        // the queue is drained completely after the producer has finished, so that no table gets lost
+        while (!remote.isDone() || !tables.isEmpty())
+        {
+          checkCancelled();
+
+          SchemaSnapshot.Table table = tables.poll(STREAMING_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+          if (table != null)
+          {
+            matcher.match(table);
+            remoteTables.add(table);
+            boolean equal = matcher.isEqual(table.getName());
+            if (progressListener != null)
+              progressListener.tableCompared(table.getName(), equal);
+
+            // tables, that exist more than once, are only shown once in the preview
+            if (progressListener != null && !equal && previewedTables.add(table.getName().toUpperCase(Locale.ROOT)))
+              previewTables.add(table);
+          }
+
+          // the remaining tables are part of the complete tree, that gets created right afterwards
+          if (progressListener != null && !previewTables.isEmpty() && !remote.isDone() && System.nanoTime() - nextPreview >= 0)
+          {
+            progressListener.tablesMatched(matchPreview(pLocal, config.getDefinitionName(), previewTables, matcher));
+            previewTables.clear();
+            nextPreview = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PREVIEW_INTERVAL_MS);
+          }
+        }
+      }
+      finally
+      {
+        // does nothing, if the producer has already finished, otherwise stops reading the database
+        remote.cancel(true);
+        filter.logStatistics(config.getDefinitionName());
+      }
+
+      try
+      {
+        remote.get();
+      }
+      catch (ExecutionException e)
+      {
+        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+      }
+
+      checkCancelled();
+
+      // the equal tables are excluded from the diff, so they are only added to the model, if the database gets synchronized with it
+      List<SchemaSnapshot.Table> differentTables = new ArrayList<>();
+      List<SchemaSnapshot.Table> equalTables = new ArrayList<>();
+      for (SchemaSnapshot.Table table : remoteTables)
+        if (matcher.isEqual(table.getName()))
+          equalTables.add(table);
+        else
+          differentTables.add(table);
+      EntityGroupDBDataModel extractedModel = entityFactory.create(config.getDefinitionName(), differentTables, equalTables);
+      return createDiffNode(pLocal, extractedModel, matcher.createFilter(), false, pLazy ? new LazyTablePolicy(matcher) : null);
+    }
+
+    /**
+     * Matches the given remote tables with the local tables of the same name, so that they can be shown while the diff is still running.
+     * The columns of the tables are only compared, as soon as the user expands them.
+     *
+     * @param pLocal   Representation of the local alias in project
+     * @param pName    Name of the remote alias
+     * @param pTables  Snapshots of the remote tables, that differ
+     * @param pMatcher Matcher, that already compared the snapshots of the tables
+     * @return the root of a tree, that only contains the given tables
+     */
+    @NonNull
+    private PropertyNode matchPreview(@NonNull EntityGroupDBDataModel pLocal, @NonNull String pName, @NonNull List<SchemaSnapshot.Table> pTables,
+                                      @NonNull StreamingTableMatcher pMatcher)
+    {
+      // the local tables may differ in case, so they are included by their own name
+      Set<String> tableNames = new HashSet<>();
+      for (SchemaSnapshot.Table table : pTables)
+      {
+        tableNames.add(table.getName());
+        String localName = pMatcher.getLocalName(table.getName());
+        if (localName != null)
+          tableNames.add(localName);
+      }
+
+      PropertyPitMatcher<EntityGroupDBDataModel, EntityGroupDBDataModel> matcher =
+          new PropertyPitMatcher<>(pLocal, new TableNameFilter(tableNames), EDirection.RIGHT, entityFactory.create(pName, pTables), null);
+      matcher.setLazyNodePolicy(new LazyTablePolicy(pMatcher));
+      matcher.setSinglePass(true);
+      return matcher.match();
+    }
+
+    /**
+     * Stops the diff, if the progress listener is not interested in its result anymore
+     *
+     * @throws CancellationException if the progress listener was cancelled
+     */
+    private void checkCancelled()
+    {
+      if (progressListener != null && progressListener.isCancelled())
+        throw new CancellationException("The diff was cancelled");
     }
   }
 
@@ -191,29 +391,31 @@ public class DiffNodeCreatorFactory
   private static class DBDiffNodeRunnableForWholeAlias extends AbstractDBDiffNodeRunnable
   {
     private final EntityGroupDBDataModel groupModel;
+    private final boolean lazy;
 
     /**
      * Creates the runnable based on a local alias definition
      *
      * @param pFactory             Factory to create entity models from database
      * @param pRemoteAliasSupplier Supplier to retrieve the target remote alias
+     * @param pProgressListener    Listener, that gets informed about every compared table
      * @param pGroupModel          Local alias to diff
+     * @param pLazy                true, if the columns of the tables should be compared on demand only
      */
     public DBDiffNodeRunnableForWholeAlias(@NonNull IEntityDBFactory pFactory, @NonNull Supplier<IAliasConfigInfo> pRemoteAliasSupplier,
-                                           @NonNull EntityGroupDBDataModel pGroupModel)
+                                           @Nullable IDiffProgressListener pProgressListener, @NonNull EntityGroupDBDataModel pGroupModel,
+                                           boolean pLazy)
     {
-      super(pFactory, pRemoteAliasSupplier);
+      super(pFactory, pRemoteAliasSupplier, pProgressListener);
       groupModel = pGroupModel;
+      lazy = pLazy;
     }
 
     @Override
     protected IDiffNode run0(@NonNull ProgressHandle pHandle) throws Exception
     {
-      // Read model from database
-      EntityGroupDBDataModel extractedModel = resolveEntityGroupInDB(null);
-
-      // create the diff node from the extracted model
-      return createDiffNode(groupModel, extractedModel, null, false);
+      // Read model from database and compare it while it is being read
+      return resolveAndMatchInDB(groupModel, null, new DefaultPropertyFilter(), lazy);
     }
   }
 
@@ -230,12 +432,13 @@ public class DiffNodeCreatorFactory
      *
      * @param pFactory             Factory to create entity models from database
      * @param pRemoteAliasSupplier Supplier to retrieve the target remote alias
+     * @param pProgressListener    Listener, that gets informed about every compared table
      * @param pTables              tables to diff
      */
     public DBDiffNodeRunnableForSomeTables(@NonNull IEntityDBFactory pFactory, @NonNull Supplier<IAliasConfigInfo> pRemoteAliasSupplier,
-                                           @NonNull Set<IEntityDBDataObject<?>> pTables)
+                                           @Nullable IDiffProgressListener pProgressListener, @NonNull Set<IEntityDBDataObject<?>> pTables)
     {
-      super(pFactory, pRemoteAliasSupplier);
+      super(pFactory, pRemoteAliasSupplier, pProgressListener);
       tables = pTables;
     }
 
@@ -245,11 +448,8 @@ public class DiffNodeCreatorFactory
       EntityGroupDBDataModel groupModel = getRoot(tables);
       Set<String> tableNames = getTableNames(tables);
 
-      // Read model from database
-      EntityGroupDBDataModel extractedModel = resolveEntityGroupInDB(tableNames);
-
-      // create the diff node from the extracted model
-      return createDiffNode(groupModel, extractedModel, new TableNameFilter(tableNames), false);
+      // Read model from database and compare it while it is being read
+      return resolveAndMatchInDB(groupModel, tableNames, new TableNameFilter(tableNames), false);
     }
   }
 
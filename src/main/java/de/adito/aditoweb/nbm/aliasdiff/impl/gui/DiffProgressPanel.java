@@ -0,0 +1,130 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.gui;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.*;
+import de.adito.aditoweb.nbm.aliasdiff.dialog.diffpresenter.DiffPanel;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+import org.openide.util.NbBundle;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Shows the progress of a diff with a database, while the diff dialog is already open.
+ * The tables, that differ, are shown in a {@link DiffPanel} as soon as they were matched, and every further table is appended to its tree.
+ * The preview can not be updated, it is replaced by the complete tree as soon as the diff has finished.
+ * The updates of the compared tables are collected and shown in a single EDT run, so that a fast comparison does not flood the EDT.
+ *
+ * @author agent, 17.10.2026
+ * @see IDiffProgressListener
+ */
+public class DiffProgressPanel extends JPanel implements IDiffProgressListener
+{
+  private final JLabel progressLabel = new JLabel();
+
+  // updated in the comparing thread
+  private final AtomicInteger tableCount = new AtomicInteger();
+  private final AtomicInteger comparedCount = new AtomicInteger();
+  private final Queue<PropertyNode> pendingTables = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean updateScheduled = new AtomicBoolean();
+  private final AtomicBoolean cancelled = new AtomicBoolean();
+
+  // shows the tables, that differ, created with the first of them, only accessed in EDT
+  @Nullable
+  private DiffPanel preview;
+
+  public DiffProgressPanel()
+  {
+    super(new BorderLayout(0, 4));
+    add(progressLabel, BorderLayout.NORTH);
+    setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+    updateProgress();
+  }
+
+  @Override
+  public void diffStarted(int pTableCount)
+  {
+    tableCount.set(pTableCount);
+    scheduleUpdate();
+  }
+
+  @Override
+  public void tableCompared(@NonNull String pTableName, boolean pEqual)
+  {
+    comparedCount.incrementAndGet();
+    scheduleUpdate();
+  }
+
+  @Override
+  public void tablesMatched(@NonNull PropertyNode pTables)
+  {
+    pendingTables.add(pTables);
+    scheduleUpdate();
+  }
+
+  @Override
+  public boolean isCancelled()
+  {
+    return cancelled.get();
+  }
+
+  /**
+   * Stops the diff, because its result is not needed anymore
+   */
+  public void cancel()
+  {
+    cancelled.set(true);
+  }
+
+  /**
+   * Updates this panel in EDT, if no update is pending yet
+   */
+  private void scheduleUpdate()
+  {
+    if (updateScheduled.compareAndSet(false, true))
+      SwingUtilities.invokeLater(() -> {
+        updateScheduled.set(false);
+        for (PropertyNode tables = pendingTables.poll(); tables != null; tables = pendingTables.poll())
+          showTables(tables);
+        updateProgress();
+      });
+  }
+
+  /**
+   * Shows the given tables in the preview, creates the preview if necessary
+   *
+   * @param pTables root of a tree, that contains tables that differ
+   */
+  private void showTables(@NonNull PropertyNode pTables)
+  {
+    if (preview != null)
+    {
+      preview.append(pTables);
+      return;
+    }
+
+    // the estimate of the snapshots may be wrong, so the matcher may not find any difference at all
+    CompactDiffTree.Node root = CompactDiffTree.of(pTables, new EntityTreeNodeFilter()).getRoot();
+    if (root.getChildCount() == 0)
+      return;
+
+    preview = DiffPanel.createPreview(root);
+    add(preview, BorderLayout.CENTER);
+    revalidate();
+    repaint();
+  }
+
+  /**
+   * Shows how many tables have already been compared
+   */
+  private void updateProgress()
+  {
+    // tables, that only exist in the database, are compared too
+    int compared = comparedCount.get();
+    progressLabel.setText(NbBundle.getMessage(DiffProgressPanel.class, "LBL_DiffProgress", compared, Math.max(compared, tableCount.get())));
+  }
+
+}
@@ -5,7 +5,7 @@ import de.adito.aditoweb.system.crmcomponents.datamodels.entity.IEntityDataModel
 import de.adito.aditoweb.system.crmcomponents.datamodels.entity.provider.IEntityProvider;
 import lombok.NonNull;
 
-import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.*;
 import java.util.*;
 
 /**
@@ -29,26 +29,34 @@ class EntityTreeNodeFilter implements ITreeNodeFilter
   public ArrayList<MutableTreeNode> filterChild(@NonNull MutableTreeNode pChild)
   {
     ArrayList<MutableTreeNode> list = new ArrayList<>();
+    for (TreeNode child : flattenChild(pChild))
+      list.add(new DiffFilterNode((MutableTreeNode) child, EntityTreeNodeFilter.this));
+    return list;
+  }
 
+  @NonNull
+  @Override
+  public List<TreeNode> flattenChild(@NonNull TreeNode pChild)
+  {
     String entities = IEntityProvider.entities.getName();
     String entityFields = IEntityDataModel.entityFields.getName();
 
     if (pChild.toString().equals(entities) || pChild.toString().equals(entityFields))
     {
+      List<TreeNode> list = new ArrayList<>();
       for (int i = 0; i < pChild.getChildCount(); i++)
-        list.add(new DiffFilterNode((MutableTreeNode) pChild.getChildAt(i), EntityTreeNodeFilter.this));
+        list.add(pChild.getChildAt(i));
 
       // Sort alphabetically, to improve readability
       list.sort(Comparator.comparing(pNode -> {
-        if (pNode instanceof DiffFilterNode)
-          return ((DiffFilterNode) pNode).nameForDisplay(EDirection.LEFT);
+        if (pNode instanceof IDiffNode)
+          return ((IDiffNode) pNode).nameForDisplay(EDirection.LEFT);
         return pNode.toString();
       }, String.CASE_INSENSITIVE_ORDER));
+      return list;
     }
-    else
-      list.add(new DiffFilterNode(pChild, EntityTreeNodeFilter.this));
 
-    return list;
+    return List.of(pChild);
   }
 
 }
@@ -0,0 +1,54 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.gui;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.IPropertyFilter;
+import de.adito.aditoweb.system.crmcomponents.datamodels.entity.database.EntityDBDataModel;
+import de.adito.propertly.core.spi.IProperty;
+import lombok.*;
+
+import java.util.*;
+
+/**
+ * In addition to the behavior of another filter, filters out tables that are already known to be equal on both sides.
+ *
+ * @author agent, 17.10.2026
+ */
+@RequiredArgsConstructor
+class ExcludedTablesFilter implements IPropertyFilter
+{
+  /**
+   * Filter, that decides about everything else
+   */
+  @NonNull
+  private final IPropertyFilter delegate;
+
+  /**
+   * Uppercased names of the tables that should be excluded
+   */
+  @NonNull
+  private final Set<String> excludedTables;
+
+  @Override
+  public boolean test(@NonNull IProperty<?, ?> pProperty)
+  {
+    boolean canMatch = delegate.test(pProperty);
+
+    // the matcher pairs tables by their property name, so the same name is used here
+    if (canMatch && EntityDBDataModel.class.isAssignableFrom(pProperty.getType()) && pProperty.getValue() != null)
+      return !excludedTables.contains(pProperty.getName().toUpperCase(Locale.ROOT));
+
+    return canMatch;
+  }
+
+  @Override
+  public boolean isCacheable(@NonNull IProperty<?, ?> pProperty)
+  {
+    // tables are filtered by their value
+    return delegate.isCacheable(pProperty) && !EntityDBDataModel.class.isAssignableFrom(pProperty.getType());
+  }
+
+  @Override
+  public void reset()
+  {
+    delegate.reset();
+  }
+}
@@ -0,0 +1,47 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.gui;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.PropertyNode;
+import lombok.NonNull;
+
+/**
+ * Gets informed about the progress of a diff with a database, while the tables are being compared.
+ * The methods are called from the thread that compares the tables. The diff stops, as soon as the listener reports, that it was cancelled.
+ *
+ * @author agent, 17.10.2026
+ * @see DiffNodeCreatorFactory
+ */
+public interface IDiffProgressListener
+{
+
+  /**
+   * Gets called, before the first table gets compared
+   *
+   * @param pTableCount count of local tables, that are expected to be compared
+   */
+  void diffStarted(int pTableCount);
+
+  /**
+   * Gets called, after a table was compared
+   *
+   * @param pTableName Name of the table
+   * @param pEqual     true, if the table is equal on both sides and will not be part of the diff tree
+   */
+  void tableCompared(@NonNull String pTableName, boolean pEqual);
+
+  /**
+   * Gets called with the tables, that differ and were matched since the last call, while the other tables are still being compared.
+   * The columns of the tables are only compared, as soon as the user expands them. The tree is not accessed by the comparing thread anymore.
+   * The complete tree is created after the last table was compared, so the given tree is only a preview of it.
+   *
+   * @param pTables root of a tree, that only contains the tables
+   */
+  void tablesMatched(@NonNull PropertyNode pTables);
+
+  /**
+   * Gets polled, while the tables are being compared
+   *
+   * @return true, if the result of the diff is not needed anymore
+   */
+  boolean isCancelled();
+
+}
@@ -0,0 +1,65 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.gui;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.ILazyNodePolicy;
+import de.adito.aditoweb.system.crmcomponents.datamodels.entity.IEntityDataModel;
+import de.adito.aditoweb.system.crmcomponents.datamodels.entity.database.EntityDBDataModel;
+import de.adito.propertly.core.spi.IPropertyPitProvider;
+import lombok.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Defers the comparison of the columns of every table, until the user expands the table in the diff dialog.
+ * The differences of a table are estimated with the results of the {@link StreamingTableMatcher} until then.
+ * Only the nodes of the columns are created on demand. The remote model already contains all columns of the tables that differ,
+ * because the bulk modify hierarchy of the matcher and the synchronization of the database work on the complete model.
+ *
+ * @author agent, 17.10.2026
+ */
+@RequiredArgsConstructor
+class LazyTablePolicy implements ILazyNodePolicy
+{
+  /**
+   * Matcher, that already compared the snapshots of the remote tables
+   */
+  @NonNull
+  private final StreamingTableMatcher matcher;
+
+  @Override
+  public boolean isLazy(@NonNull IPropertyPitProvider<?, ?, ?> pProvider)
+  {
+    return pProvider instanceof EntityDBDataModel;
+  }
+
+  @Override
+  public int estimateDifferences(@Nullable IPropertyPitProvider<?, ?, ?> pLeft, @Nullable IPropertyPitProvider<?, ?, ?> pRight)
+  {
+    IPropertyPitProvider<?, ?, ?> table = Objects.requireNonNullElse(pRight, pLeft);
+    if (table == null)
+      return 0;
+
+    Integer estimate = matcher.getEstimatedDifferences(table.getPit().getOwnProperty().getName());
+    if (estimate != null)
+      return estimate;
+
+    // tables that only exist on one side differ in every column
+    if (pLeft == null || pRight == null)
+      return Math.max(1, countColumns(table));
+
+    return 1;
+  }
+
+  /**
+   * @param pTable Table to read
+   * @return the count of columns of the given table
+   */
+  private static int countColumns(@NonNull IPropertyPitProvider<?, ?, ?> pTable)
+  {
+    if (!(pTable instanceof EntityDBDataModel))
+      return 0;
+
+    IEntityDataModel.EntityFields fields = ((EntityDBDataModel) pTable).getPit().getValue(IEntityDataModel.entityFields);
+    return fields == null ? 0 : fields.getPit().getProperties().size();
+  }
+}
@@ -0,0 +1,229 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.gui;
+
+import de.adito.aditoweb.nbm.aliasdiff.impl.*;
+import lombok.*;
+import org.jetbrains.annotations.Nullable;
+import org.openide.util.NbBundle;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.List;
+import java.util.*;
+
+/**
+ * Shows the summary of a diff over all aliases of a project in a single table.
+ * The rows get updated as soon as the comparison of their alias has finished.
+ *
+ * @author agent, 17.10.2026
+ * @see ProjectDiffRunner
+ */
+public class ProjectDiffSummaryPanel extends JPanel
+{
+  private final SummaryTableModel model;
+  private final JLabel progressLabel = new JLabel();
+
+  /**
+   * @param pAliasNames Names of all aliases, that will be compared
+   */
+  public ProjectDiffSummaryPanel(@NonNull Collection<String> pAliasNames)
+  {
+    super(new BorderLayout(0, 4));
+    model = new SummaryTableModel(pAliasNames);
+
+    JTable table = new JTable(model);
+    table.setAutoCreateRowSorter(true);
+    table.setFillsViewportHeight(true);
+    add(new JScrollPane(table), BorderLayout.CENTER);
+    add(progressLabel, BorderLayout.SOUTH);
+    setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+    setPreferredSize(new Dimension(700, 400));
+
+    model.addTableModelListener(e -> updateProgress());
+    updateProgress();
+  }
+
+  /**
+   * @return the listener, that updates this panel. Can be called from any thread.
+   */
+  @NonNull
+  public IProjectDiffListener getListener()
+  {
+    return model;
+  }
+
+  /**
+   * Shows how many aliases have already been compared
+   */
+  private void updateProgress()
+  {
+    progressLabel.setText(NbBundle.getMessage(ProjectDiffSummaryPanel.class, "LBL_ProjectDiffProgress",
+                                              model.getFinishedCount(), model.getRowCount()));
+  }
+
+  /**
+   * State of the comparison of a single alias
+   */
+  private enum EState
+  {
+    WAITING,
+    RUNNING,
+    EQUAL,
+    DIFFERENT,
+    FAILED;
+
+    /**
+     * @return true, if the comparison has finished
+     */
+    boolean isFinished()
+    {
+      return this != WAITING && this != RUNNING;
+    }
+
+    /**
+     * @return the text to show for this state
+     */
+    @NonNull
+    String getDisplayName()
+    {
+      return NbBundle.getMessage(ProjectDiffSummaryPanel.class, "TXT_ProjectDiffState_" + name());
+    }
+  }
+
+  /**
+   * A single row of the summary
+   */
+  @RequiredArgsConstructor
+  private static class Row
+  {
+    @NonNull
+    private final String aliasName;
+    @NonNull
+    private EState state = EState.WAITING;
+    private int differences;
+    @Nullable
+    private String message;
+  }
+
+  /**
+   * Model of the summary table, that receives the results of the comparison
+   */
+  private static class SummaryTableModel extends AbstractTableModel implements IProjectDiffListener
+  {
+    private static final int COLUMN_ALIAS = 0;
+    private static final int COLUMN_STATE = 1;
+    private static final int COLUMN_DIFFERENCES = 2;
+    private static final int COLUMN_MESSAGE = 3;
+    private static final String[] COLUMN_KEYS = {"COL_ProjectDiffAlias", "COL_ProjectDiffState", "COL_ProjectDiffDifferences",
+                                                 "COL_ProjectDiffMessage"};
+
+    // only accessed in EDT
+    private final List<Row> rows = new ArrayList<>();
+    private final Map<String, Integer> rowIndices = new HashMap<>();
+
+    SummaryTableModel(@NonNull Collection<String> pAliasNames)
+    {
+      for (String name : pAliasNames)
+      {
+        rowIndices.put(name, rows.size());
+        rows.add(new Row(name));
+      }
+    }
+
+    @Override
+    public void diffStarted(@NonNull String pAliasName)
+    {
+      update(pAliasName, EState.RUNNING, 0, null);
+    }
+
+    @Override
+    public void diffFinished(@NonNull String pAliasName, @NonNull DiffResult pResult)
+    {
+      int differences = pResult.countDifferences();
+      update(pAliasName, differences == 0 ? EState.EQUAL : EState.DIFFERENT, differences, null);
+    }
+
+    @Override
+    public void diffFailed(@NonNull String pAliasName, @NonNull Exception pException)
+    {
+      update(pAliasName, EState.FAILED, 0, Objects.requireNonNullElse(pException.getMessage(), pException.getClass().getSimpleName()));
+    }
+
+    @Override
+    public int getRowCount()
+    {
+      return rows.size();
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+      return COLUMN_KEYS.length;
+    }
+
+    @Override
+    public String getColumnName(int pColumn)
+    {
+      return NbBundle.getMessage(ProjectDiffSummaryPanel.class, COLUMN_KEYS[pColumn]);
+    }
+
+    @Override
+    public Class<?> getColumnClass(int pColumn)
+    {
+      return pColumn == COLUMN_DIFFERENCES ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int pRow, int pColumn)
+    {
+      Row row = rows.get(pRow);
+      switch (pColumn)
+      {
+        case COLUMN_ALIAS:
+          return row.aliasName;
+        case COLUMN_STATE:
+          return row.state.getDisplayName();
+        case COLUMN_DIFFERENCES:
+          return row.state == EState.DIFFERENT || row.state == EState.EQUAL ? row.differences : null;
+        case COLUMN_MESSAGE:
+          return row.message;
+        default:
+          return null;
+      }
+    }
+
+    /**
+     * @return the count of aliases, whose comparison has finished
+     */
+    int getFinishedCount()
+    {
+      return (int) rows.stream()
+          .filter(pRow -> pRow.state.isFinished())
+          .count();
+    }
+
+    /**
+     * Updates the row of the given alias in EDT
+     *
+     * @param pAliasName   Name of the alias
+     * @param pState       new state
+     * @param pDifferences count of differences
+     * @param pMessage     message to show, null if there is nothing to report
+     */
+    private void update(@NonNull String pAliasName, @NonNull EState pState, int pDifferences, @Nullable String pMessage)
+    {
+      SwingUtilities.invokeLater(() -> {
+        Integer index = rowIndices.get(pAliasName);
+        if (index == null)
+          return;
+
+        Row row = rows.get(index);
+        row.state = pState;
+        row.differences = pDifferences;
+        row.message = pMessage;
+        fireTableRowsUpdated(index, index);
+      });
+    }
+  }
+
+}
@@ -0,0 +1,163 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.gui;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.*;
+import de.adito.aditoweb.nbm.aliasdiff.impl.entity.*;
+import de.adito.aditoweb.system.crmcomponents.datamodels.entity.database.EntityGroupDBDataModel;
+import de.adito.aditoweb.system.crmcomponents.datamodels.entity.provider.IEntityProvider;
+import de.adito.propertly.core.spi.*;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Compares the snapshots of remote tables with the local tables of the same name, one by one, while the other remote tables are still being read.
+ * Tables that are equal on both sides are collected, so that the final {@link PropertyPitMatcher} only has to build
+ * the tree for the tables that actually differ.
+ *
+ * @author agent, 17.10.2026
+ */
+class StreamingTableMatcher
+{
+  /**
+   * Local tables, keyed by their uppercased name
+   */
+  private final Map<String, IProperty<?, ?>> localTables = new HashMap<>();
+
+  /**
+   * Uppercased names of the tables that are equal on both sides
+   */
+  private final Set<String> equalTables = new HashSet<>();
+
+  /**
+   * Uppercased names of the tables that exist more than once on one side and are therefore never skipped
+   */
+  private final Set<String> ambiguousTables = new HashSet<>();
+
+  /**
+   * Uppercased names of all remote tables that were passed to {@link #match(SchemaSnapshot.Table)}
+   */
+  private final Set<String> remoteTables = new HashSet<>();
+
+  /**
+   * Estimated count of differences of the remote tables that are not equal, keyed by their uppercased name
+   */
+  private final Map<String, Integer> estimatedDifferences = new HashMap<>();
+
+  /**
+   * Filter, that decides which properties should be compared
+   */
+  private final IPropertyFilter filter;
+
+  /**
+   * Compares the local tables with the snapshots of the remote tables
+   */
+  private final SchemaSnapshotComparator comparator;
+
+  /**
+   * @param pLocal  local alias, that the remote tables are compared to
+   * @param pFilter filter, that decides which properties should be compared. Has to be stateless.
+   */
+  StreamingTableMatcher(@NonNull EntityGroupDBDataModel pLocal, @NonNull IPropertyFilter pFilter)
+  {
+    filter = pFilter;
+    comparator = new SchemaSnapshotComparator(pFilter);
+
+    IEntityProvider.Entities entities = pLocal.getPit().getValue(IEntityProvider.entities);
+    if (entities != null)
+      for (IProperty<?, ?> table : entities.getPit().getProperties())
+        if (localTables.putIfAbsent(table.getName().toUpperCase(Locale.ROOT), table) != null)
+          ambiguousTables.add(table.getName().toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * Compares the given remote table with the local table of the same name
+   *
+   * @param pRemoteTable snapshot of the remote table
+   */
+  void match(@NonNull SchemaSnapshot.Table pRemoteTable)
+  {
+    String name = pRemoteTable.getName().toUpperCase(Locale.ROOT);
+
+    // the matcher pairs tables case-insensitive, so tables that only differ in case have to be compared by the matcher itself
+    if (!remoteTables.add(name) || ambiguousTables.contains(name))
+    {
+      ambiguousTables.add(name);
+      equalTables.remove(name);
+      estimatedDifferences.remove(name);
+      return;
+    }
+
+    // the remote table does not exist as a property yet, so the filter can only decide the same way for both sides, if the names are equal
+    IProperty<?, ?> localProperty = localTables.get(name);
+    if (localProperty == null)
+    {
+      estimatedDifferences.put(name, comparator.estimateDifferences(null, pRemoteTable));
+      return;
+    }
+
+    if (!localProperty.getName().equals(pRemoteTable.getName()) || !filter.test(localProperty))
+      return;
+
+    Object local = localProperty.getValue();
+    if (local instanceof IPropertyPitProvider && comparator.isEqual((IPropertyPitProvider<?, ?, ?>) local, pRemoteTable))
+      equalTables.add(name);
+    else if (local instanceof IPropertyPitProvider)
+      estimatedDifferences.put(name, comparator.estimateDifferences((IPropertyPitProvider<?, ?, ?>) local, pRemoteTable));
+  }
+
+  /**
+   * @return the count of local tables, that the remote tables are compared to
+   */
+  int getLocalTableCount()
+  {
+    return localTables.size();
+  }
+
+  /**
+   * Returns the name of the local table, that a remote table is compared to
+   *
+   * @param pTableName Name of the remote table
+   * @return the name of the local table, or null if the table does not exist locally
+   */
+  @Nullable
+  String getLocalName(@NonNull String pTableName)
+  {
+    IProperty<?, ?> localProperty = localTables.get(pTableName.toUpperCase(Locale.ROOT));
+    return localProperty == null ? null : localProperty.getName();
+  }
+
+  /**
+   * Determines, if a remote table was found to be equal with its local table
+   *
+   * @param pTableName Name of the table
+   * @return true, if the table is equal on both sides
+   */
+  boolean isEqual(@NonNull String pTableName)
+  {
+    return equalTables.contains(pTableName.toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * Returns the estimated count of differences of a remote table, that was not found to be equal
+   *
+   * @param pTableName Name of the table
+   * @return the estimate, or null if the table could not be estimated
+   */
+  @Nullable
+  Integer getEstimatedDifferences(@NonNull String pTableName)
+  {
+    return estimatedDifferences.get(pTableName.toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * Creates the filter for the final {@link PropertyPitMatcher}, that skips all tables that were already found to be equal
+   *
+   * @return the filter
+   */
+  @NonNull
+  IPropertyFilter createFilter()
+  {
+    return new ExcludedTablesFilter(filter, Set.copyOf(equalTables));
+  }
+}
@@ -35,4 +35,11 @@ class TableNameFilter extends DefaultPropertyFilter
 
     return canMatch;
   }
+
+  @Override
+  public boolean isCacheable(@NonNull IProperty<?, ?> pProperty)
+  {
+    // tables are filtered by their value
+    return !EntityDBDataModel.class.isAssignableFrom(pProperty.getType());
+  }
 }
@@ -0,0 +1,244 @@
+package de.adito.aditoweb.nbm.aliasdiff.dialog;
+
+import de.adito.aditoweb.nbm.aliasdiff.dialog.PropertyPitMatcherTest.TestModel;
+import de.adito.propertly.core.api.Hierarchy;
+import de.adito.propertly.core.spi.*;
+import lombok.NonNull;
+import org.junit.jupiter.api.*;
+
+import javax.swing.tree.TreeNode;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link PropertyNode}
+ *
+ * @author agent, 17.10.2026
+ * @see PropertyNode
+ */
+class PropertyNodeTest
+{
+
+  private static final int TABLE_COUNT = 1_000;
+  private static final int COLUMN_COUNT = 10;
+
+  /**
+   * Test for the methods {@link PropertyNode#addProvider(EDirection, IPropertyPitProvider)} and
+   * {@link PropertyNode#addProperty(EDirection, IProperty)}, on a synthetic alias with {@value #TABLE_COUNT} tables
+   */
+  @Nested
+  class AddChildren
+  {
+
+    /**
+     * Checks, that the tables and columns of both sides are merged into the same nodes
+     */
+    @Test
+    void shouldMergeBothSides()
+    {
+      PropertyNode root = addAlias(createAlias(TABLE_COUNT), createAlias(TABLE_COUNT));
+
+      assertEquals(TABLE_COUNT, root.getChildCount());
+      for (int i = 0; i < root.getChildCount(); i++)
+      {
+        PropertyNode table = (PropertyNode) root.getChildAt(i);
+        assertNotNull(table.getPair().getManagedObject(EDirection.LEFT));
+        assertNotNull(table.getPair().getManagedObject(EDirection.RIGHT));
+        assertEquals(COLUMN_COUNT, table.getChildCount());
+      }
+    }
+
+    /**
+     * Checks, that tables are matched case-insensitive and that tables of only one side get their own node
+     */
+    @Test
+    void shouldMatchTablesCaseInsensitive()
+    {
+      TestModel left = createAlias(0);
+      TestModel right = createAlias(0);
+      addTable(left, "Table");
+      addTable(right, "TABLE");
+      addTable(right, "rightOnly");
+
+      PropertyNode root = addAlias(left, right);
+      assertEquals(2, root.getChildCount());
+      assertNotNull(((PropertyNode) root.getChildAt(0)).getPair().getManagedObject(EDirection.RIGHT));
+      assertNull(((PropertyNode) root.getChildAt(1)).getPair().getManagedObject(EDirection.LEFT));
+    }
+
+    /**
+     * Checks, that adding the tables of both sides finds the matching node without accessing the other children
+     */
+    @Test
+    void shouldNotScanChildren()
+    {
+      CountingNode root = new CountingNode();
+      addTables(root, EDirection.LEFT, createAlias(TABLE_COUNT));
+      addTables(root, EDirection.RIGHT, createAlias(TABLE_COUNT));
+
+      assertEquals(TABLE_COUNT, root.getChildCount());
+      assertEquals(0, root.childAccesses);
+    }
+  }
+
+  /**
+   * Node, that counts how often its children are accessed
+   */
+  private static class CountingNode extends PropertyNode
+  {
+    private int childAccesses;
+
+    CountingNode()
+    {
+      super(null, null, null, null);
+    }
+
+    @Override
+    public TreeNode getChildAt(int pIndex)
+    {
+      childAccesses++;
+      return super.getChildAt(pIndex);
+    }
+
+    @Override
+    public Enumeration<TreeNode> children()
+    {
+      childAccesses++;
+      return super.children();
+    }
+  }
+
+  /**
+   * Test for the method {@link PropertyNode#merge(PropertyNode)}
+   */
+  @Nested
+  class Merge
+  {
+
+    /**
+     * Checks, that the tables of the other tree are moved into the existing container, instead of creating a second container
+     */
+    @Test
+    void shouldMoveIntoExistingContainer()
+    {
+      PropertyNode root = createContainerTree("TABLE_0", "TABLE_1");
+      PropertyNode other = createContainerTree("TABLE_2");
+
+      List<PropertyNode> moved = root.merge(other);
+
+      assertEquals(1, root.getChildCount());
+      PropertyNode container = (PropertyNode) root.getChildAt(0);
+      assertEquals(3, container.getChildCount());
+      assertEquals(List.of(container.getChildAt(2)), moved);
+      assertSame(container, moved.get(0).getParent());
+      assertEquals(0, other.getChildAt(0).getChildCount());
+    }
+
+    /**
+     * Checks, that children without a counterpart are moved completely
+     */
+    @Test
+    void shouldMoveNewChildren()
+    {
+      PropertyNode root = addAlias(createAlias(1), createAlias(1));
+      PropertyNode other = new PropertyNode(null, null, null, null);
+      TestModel alias = createAlias(0);
+      addTable(alias, "OTHER");
+      addTables(other, EDirection.RIGHT, alias);
+
+      List<PropertyNode> moved = root.merge(other);
+
+      assertEquals(2, root.getChildCount());
+      assertEquals(1, moved.size());
+      assertSame(root, moved.get(0).getParent());
+      assertEquals(0, other.getChildCount());
+    }
+
+    /**
+     * Creates a tree, whose tables are contained in a single container node
+     *
+     * @param pTableNames names of the tables
+     * @return the root node
+     */
+    @NonNull
+    private PropertyNode createContainerTree(@NonNull String... pTableNames)
+    {
+      TestModel alias = createAlias(0);
+      IProperty<TestModel, TestModel> containerProperty = alias.getPit().addProperty(TestModel.class, "tables");
+      containerProperty.setValue(new TestModel());
+      TestModel container = Objects.requireNonNull(containerProperty.getValue());
+      for (String tableName : pTableNames)
+        addTable(container, tableName);
+
+      PropertyNode root = new PropertyNode(null, null, null, null);
+      addTables(root.addProvider(EDirection.LEFT, container), EDirection.LEFT, container);
+      return root;
+    }
+  }
+
+  /**
+   * Adds the tables and columns of both aliases to a new root node, the same way as the {@link PropertyPitMatcher} does
+   *
+   * @param pLeft  left alias
+   * @param pRight right alias
+   * @return the root node
+   */
+  @NonNull
+  private static PropertyNode addAlias(@NonNull TestModel pLeft, @NonNull TestModel pRight)
+  {
+    PropertyNode root = new PropertyNode(null, null, null, null);
+    addTables(root, EDirection.LEFT, pLeft);
+    addTables(root, EDirection.RIGHT, pRight);
+    return root;
+  }
+
+  /**
+   * Adds all tables of the given alias to the given node
+   *
+   * @param pRoot      node to add to
+   * @param pDirection side of the alias
+   * @param pAlias     alias, that contains the tables
+   */
+  private static void addTables(@NonNull PropertyNode pRoot, @NonNull EDirection pDirection, @NonNull TestModel pAlias)
+  {
+    for (IProperty<?, ?> tableProperty : pAlias.getPit().getProperties())
+    {
+      TestModel table = (TestModel) Objects.requireNonNull(tableProperty.getValue());
+      PropertyNode tableNode = pRoot.addProvider(pDirection, table);
+      for (IProperty<?, ?> column : table.getPit().getProperties())
+        tableNode.addProperty(pDirection, column);
+    }
+  }
+
+  /**
+   * Creates a synthetic alias with the given count of tables and {@value #COLUMN_COUNT} columns per table
+   *
+   * @param pTableCount count of tables
+   * @return the alias
+   */
+  @NonNull
+  private static TestModel createAlias(int pTableCount)
+  {
+    TestModel alias = new Hierarchy<>("alias", new TestModel()).getValue();
+    for (int i = 0; i < pTableCount; i++)
+      addTable(alias, "TABLE_" + i);
+    return alias;
+  }
+
+  /**
+   * Adds a table with {@value #COLUMN_COUNT} columns to the given alias
+   *
+   * @param pAlias alias to add to
+   * @param pName  name of the table
+   */
+  private static void addTable(@NonNull TestModel pAlias, @NonNull String pName)
+  {
+    IProperty<TestModel, TestModel> property = pAlias.getPit().addProperty(TestModel.class, pName);
+    property.setValue(new TestModel());
+    TestModel table = Objects.requireNonNull(property.getValue());
+    for (int i = 0; i < COLUMN_COUNT; i++)
+      table.getPit().addProperty(Object.class, "COLUMN_" + i).setValue(i);
+  }
+
+}
@@ -0,0 +1,252 @@
+package de.adito.aditoweb.nbm.aliasdiff.dialog;
+
+import de.adito.propertly.core.api.Hierarchy;
+import de.adito.propertly.core.spi.*;
+import de.adito.propertly.core.spi.extension.AbstractMutablePPP;
+import lombok.NonNull;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link PropertyPitMatcher}
+ *
+ * @author agent, 17.10.2026
+ * @see PropertyPitMatcher
+ */
+class PropertyPitMatcherTest
+{
+
+  /**
+   * Test for the method {@link PropertyPitMatcher#setSinglePass(boolean)}.
+   * The tree built in a single pass has to be the same, as the tree that is built completely and pruned afterwards.
+   */
+  @Nested
+  class SinglePass
+  {
+
+    /**
+     * Checks, that equal models do not create any node
+     */
+    @Test
+    void shouldNotCreateNodesForEqualModels()
+    {
+      TestModel left = createModel();
+      TestModel right = createModel();
+      fill(left);
+      fill(right);
+
+      PropertyNode root = match(left, right, true);
+      assertEquals(0, root.getChildCount());
+      assertEquals(toString(match(left, right, false)), toString(root));
+    }
+
+    /**
+     * Checks, that different, missing and deleted values create the same nodes in both modes
+     */
+    @Test
+    void shouldCreateSameTreeForDifferentValues()
+    {
+      TestModel left = createModel();
+      TestModel right = createModel();
+      fill(left);
+      fill(right);
+
+      TestModel leftChild = getModel(left, "child");
+      TestModel rightChild = getModel(right, "child");
+      setValue(leftChild, "value", "changed");
+      addValue(leftChild, "leftOnly", 1);
+      addValue(rightChild, "rightOnly", 2);
+      setValue(getModel(rightChild, "nested"), "deep", null);
+
+      assertSameTree(left, right);
+    }
+
+    /**
+     * Checks, that data models, which only exist on one side, create the same nodes in both modes
+     */
+    @Test
+    void shouldCreateSameTreeForOneSidedModels()
+    {
+      TestModel left = createModel();
+      TestModel right = createModel();
+      fill(left);
+      fill(right);
+
+      addValue(addModel(left, "leftModel"), "value", "a");
+      addModel(right, "emptyRightModel");
+      addValue(addModel(addModel(right, "rightModel"), "nested"), "value", "b");
+
+      assertSameTree(left, right);
+    }
+
+    /**
+     * Checks, that data models are matched case-insensitive and that ambiguous names are matched the same way in both modes
+     */
+    @Test
+    void shouldCreateSameTreeForNamesWithDifferentCase()
+    {
+      TestModel left = createModel();
+      TestModel right = createModel();
+      addValue(addModel(left, "Model"), "value", "a");
+      addValue(addModel(right, "MODEL"), "value", "b");
+      addValue(addModel(left, "ambiguous"), "value", "a");
+      addValue(addModel(left, "AMBIGUOUS"), "value", "b");
+      addValue(addModel(right, "Ambiguous"), "value", "a");
+
+      assertSameTree(left, right);
+    }
+
+    /**
+     * Matches the given models in both modes and compares the resulting trees
+     *
+     * @param pLeft  left model
+     * @param pRight right model
+     */
+    private void assertSameTree(@NonNull TestModel pLeft, @NonNull TestModel pRight)
+    {
+      PropertyNode expected = match(pLeft, pRight, false);
+      PropertyNode actual = match(pLeft, pRight, true);
+      assertTrue(expected.getChildCount() > 0);
+      assertEquals(toString(expected), toString(actual));
+    }
+
+    /**
+     * Fills the given model with some values and nested models
+     *
+     * @param pModel Model to fill
+     */
+    private void fill(@NonNull TestModel pModel)
+    {
+      addValue(pModel, "name", "model");
+      TestModel child = addModel(pModel, "child");
+      addValue(child, "value", "child");
+      addValue(child, "number", 42);
+      addValue(addModel(child, "nested"), "deep", true);
+      addModel(pModel, "empty");
+    }
+
+    /**
+     * Matches both models
+     *
+     * @param pLeft       left model
+     * @param pRight      right model
+     * @param pSinglePass true, if both sides should be compared while the tree is built
+     * @return the root of the tree
+     */
+    @NonNull
+    private PropertyNode match(@NonNull TestModel pLeft, @NonNull TestModel pRight, boolean pSinglePass)
+    {
+      PropertyPitMatcher<TestModel, TestModel> matcher = new PropertyPitMatcher<>(pLeft, pProp -> true, null, pRight, null);
+      matcher.setSinglePass(pSinglePass);
+      return matcher.match();
+    }
+
+    /**
+     * Creates a readable view of the given node and its children, including the type of difference on both sides
+     *
+     * @param pNode Node to get the view from
+     * @return the view as string
+     */
+    @NonNull
+    private String toString(@NonNull PropertyNode pNode)
+    {
+      StringBuilder builder = new StringBuilder();
+      append(builder, pNode, 0);
+      return builder.toString();
+    }
+
+    /**
+     * Appends the given node and its children to the builder
+     *
+     * @param pBuilder Builder to append to
+     * @param pNode    Node to append
+     * @param pDepth   Depth of the node
+     */
+    private void append(@NonNull StringBuilder pBuilder, @NonNull PropertyNode pNode, int pDepth)
+    {
+      pBuilder.append("  ".repeat(pDepth));
+      if (pDepth > 0)
+        pBuilder.append(pNode.getPair().nameForIdentification())
+            .append(" ").append(pNode.getPair().typeOfDiff(EDirection.LEFT))
+            .append(" ").append(pNode.getPair().typeOfDiff(EDirection.RIGHT));
+      pBuilder.append("\n");
+      for (int i = 0; i < pNode.getChildCount(); i++)
+        append(pBuilder, (PropertyNode) pNode.getChildAt(i), pDepth + 1);
+    }
+  }
+
+  /**
+   * @return a new model inside its own hierarchy
+   */
+  @NonNull
+  private static TestModel createModel()
+  {
+    return new Hierarchy<>("root", new TestModel()).getValue();
+  }
+
+  /**
+   * Adds a new, empty model to the given model
+   *
+   * @param pParent Model to add to
+   * @param pName   Name of the new model
+   * @return the new model
+   */
+  @NonNull
+  private static TestModel addModel(@NonNull TestModel pParent, @NonNull String pName)
+  {
+    IProperty<TestModel, TestModel> property = pParent.getPit().addProperty(TestModel.class, pName);
+    property.setValue(new TestModel());
+    return Objects.requireNonNull(property.getValue());
+  }
+
+  /**
+   * @param pParent Model to read
+   * @param pName   Name of the child model
+   * @return the child model
+   */
+  @NonNull
+  private static TestModel getModel(@NonNull TestModel pParent, @NonNull String pName)
+  {
+    return (TestModel) Objects.requireNonNull(Objects.requireNonNull(pParent.getPit().findProperty(pName)).getValue());
+  }
+
+  /**
+   * Adds a new value to the given model
+   *
+   * @param pParent Model to add to
+   * @param pName   Name of the value
+   * @param pValue  Value
+   */
+  private static void addValue(@NonNull TestModel pParent, @NonNull String pName, @NonNull Object pValue)
+  {
+    pParent.getPit().addProperty(Object.class, pName).setValue(pValue);
+  }
+
+  /**
+   * Changes an existing value of the given model
+   *
+   * @param pParent Model to change
+   * @param pName   Name of the value
+   * @param pValue  new value
+   */
+  private static void setValue(@NonNull TestModel pParent, @NonNull String pName, Object pValue)
+  {
+    //noinspection unchecked
+    ((IProperty<TestModel, Object>) Objects.requireNonNull(pParent.getPit().findProperty(pName))).setValue(pValue);
+  }
+
+  /**
+   * Model with a dynamic set of values and child models
+   */
+  public static class TestModel extends AbstractMutablePPP<IPropertyPitProvider<?, ?, ?>, TestModel, Object>
+  {
+    public TestModel()
+    {
+      super(Object.class);
+    }
+  }
+
+}
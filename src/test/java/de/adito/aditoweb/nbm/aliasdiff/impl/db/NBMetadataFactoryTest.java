@@ -0,0 +1,110 @@
+package de.adito.aditoweb.nbm.aliasdiff.impl.db;
+
+import de.adito.aditoweb.database.general.metainfo.ITableMetadata;
+import de.adito.aditoweb.nbm.designerdb.impl.metadata.online.*;
+import lombok.NonNull;
+import org.junit.jupiter.api.*;
+import org.netbeans.modules.db.metadata.model.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for {@link NBMetadataFactory}
+ *
+ * @author agent, 17.10.2026
+ * @see NBMetadataFactory
+ */
+class NBMetadataFactoryTest
+{
+
+  private static final int TABLE_COUNT = 100;
+
+  /**
+   * Test for the method {@link NBMetadataFactory#createTableMeta(Table, OnlineMetaDataProvider.IMetadataCallback)}
+   */
+  @Nested
+  class CreateTableMeta
+  {
+
+    /**
+     * Checks, that the metadata can be created from multiple threads at once
+     */
+    @Test
+    void shouldCreateMetadataInParallel() throws Exception
+    {
+      List<Table> tables = createTables(TABLE_COUNT);
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try
+      {
+        List<Future<ITableMetadata>> futures = new ArrayList<>();
+        for (Table table : tables)
+          futures.add(executor.submit(() -> NBMetadataFactory.createTableMeta(table, null)));
+        for (Future<ITableMetadata> future : futures)
+          assertNotNull(future.get());
+      }
+      finally
+      {
+        executor.shutdownNow();
+      }
+    }
+
+    /**
+     * Checks, that the metadata of a table is created as NBTableMetadata for the given table
+     */
+    @Test
+    void shouldCreateTableMetadata()
+    {
+      Table table = createTables(1).get(0);
+      ITableMetadata metadata = NBMetadataFactory.createTableMeta(table, null);
+
+      assertEquals("de.adito.aditoweb.nbm.designerdb.impl.metadata.online.NBTableMetadata", metadata.getClass().getName());
+      assertEquals("TABLE_0", metadata.getName());
+    }
+  }
+
+  /**
+   * Test for the method {@link NBMetadataFactory#createViewMeta(View, OnlineMetaDataProvider.IMetadataCallback)}
+   */
+  @Nested
+  class CreateViewMeta
+  {
+
+    /**
+     * Checks, that the metadata of a view is created as {@link NBViewMetadata} for the given view
+     */
+    @Test
+    void shouldCreateViewMetadata()
+    {
+      View view = mock(View.class, RETURNS_SMART_NULLS);
+      when(view.getName()).thenReturn("VIEW_0");
+      ITableMetadata metadata = NBMetadataFactory.createViewMeta(view, null);
+
+      assertEquals(NBViewMetadata.class, metadata.getClass());
+      assertEquals("VIEW_0", metadata.getName());
+    }
+  }
+
+  /**
+   * Creates mocked tables with distinct names
+   *
+   * @param pCount count of tables
+   * @return the tables
+   */
+  @NonNull
+  private static List<Table> createTables(int pCount)
+  {
+    List<Table> tables = new ArrayList<>(pCount);
+    for (int i = 0; i < pCount; i++)
+    {
+      Table table = mock(Table.class, RETURNS_SMART_NULLS);
+      when(table.getName()).thenReturn("TABLE_" + i);
+      tables.add(table);
+    }
+    return tables;
+  }
+
+}
@@ -1,7 +1,7 @@
 package de.adito.aditoweb.nbm.aliasdiff.impl.gui;
 
 import com.google.common.graph.Traverser;
-import de.adito.aditoweb.nbm.aliasdiff.dialog.PropertyNode;
+import de.adito.aditoweb.nbm.aliasdiff.dialog.*;
 import de.adito.aditoweb.system.crmcomponents.datamodels.entity.provider.IEntityProvider;
 import lombok.NonNull;
 import org.junit.jupiter.api.*;
@@ -11,7 +11,7 @@ import javax.swing.tree.*;
 import java.util.List;
 import java.util.stream.*;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -88,4 +88,118 @@ class EntityTreeNodeFilterTest
 
   }
 
+  /**
+   * Test for the lazy creation of the view by {@link CompactDiffTree#of(IDiffNode, ITreeNodeFilter)}
+   * and for {@link CompactDiffTree#appendChildren(List)}
+   */
+  @Nested
+  class CompactView
+  {
+
+    /**
+     * Checks, that the children of the view are created on first access only
+     */
+    @Test
+    void shouldFilterChildrenOnFirstAccess()
+    {
+      DefaultMutableTreeNode root = createTreeNode("root");
+      DefaultMutableTreeNode entities = createTreeNode(IEntityProvider.entities.getName());
+      root.add(entities);
+      DefaultMutableTreeNode node2 = createTreeNode("node2");
+      entities.add(node2);
+      entities.add(createTreeNode("node1"));
+      node2.add(createTreeNode("column"));
+
+      CompactDiffTree tree = CompactDiffTree.of((IDiffNode) root, new EntityTreeNodeFilter());
+      verify(root, never()).getChildAt(anyInt());
+      verify(entities, never()).getChildAt(anyInt());
+      assertEquals(1, tree.size());
+
+      // the tables are added to the view, but not their columns
+      assertEquals(2, tree.getRoot().getChildCount());
+      verify(node2, never()).getChildAt(anyInt());
+      assertEquals(3, tree.size());
+
+      assertEquals("root, node1, node2, column", asString(tree.getRoot()));
+    }
+
+    /**
+     * Checks, that nodes, which were added to the original tree after the view was displayed, are appended to the root of the view
+     */
+    @Test
+    void shouldAppendChildrenToRoot()
+    {
+      DefaultMutableTreeNode root = createTreeNode("root");
+      DefaultMutableTreeNode entities = createTreeNode(IEntityProvider.entities.getName());
+      root.add(entities);
+      DefaultMutableTreeNode node2 = createTreeNode("node2");
+      entities.add(node2);
+      node2.add(createTreeNode("column"));
+
+      // the columns of node2 are added to the view behind the children of the root
+      CompactDiffTree tree = CompactDiffTree.of((IDiffNode) root, new EntityTreeNodeFilter());
+      assertEquals(1, tree.getRoot().getChildAt(0).getChildCount());
+
+      DefaultMutableTreeNode node1 = createTreeNode("node1");
+      entities.add(node1);
+      assertArrayEquals(new int[]{1}, tree.appendChildren(List.of(node1)));
+
+      TreeNode appended = tree.getRoot().getChildAt(1);
+      assertEquals(2, tree.getRoot().getChildCount());
+      assertEquals(1, tree.getRoot().getIndex(appended));
+      assertSame(tree.getRoot(), appended.getParent());
+      assertEquals("root, node2, node1, column", asString(tree.getRoot()));
+    }
+
+    /**
+     * Checks, that nothing is appended, as long as the children of the root were not created, because they will contain the new nodes anyway
+     */
+    @Test
+    void shouldNotAppendBeforeFirstAccess()
+    {
+      DefaultMutableTreeNode root = createTreeNode("root");
+      DefaultMutableTreeNode entities = createTreeNode(IEntityProvider.entities.getName());
+      root.add(entities);
+      entities.add(createTreeNode("node2"));
+
+      CompactDiffTree tree = CompactDiffTree.of((IDiffNode) root, new EntityTreeNodeFilter());
+      DefaultMutableTreeNode node1 = createTreeNode("node1");
+      entities.add(node1);
+      assertEquals(0, tree.appendChildren(List.of(node1)).length);
+
+      assertEquals("root, node1, node2", asString(tree.getRoot()));
+    }
+
+    /**
+     * Creates a readable view of the given node and its children
+     *
+     * @param pNode Node to get the view from
+     * @return the view as string
+     */
+    @NonNull
+    private String asString(@NonNull TreeNode pNode)
+    {
+      return StreamSupport.stream(TREE_NODE_TRAVERSER.breadthFirst(pNode).spliterator(), false)
+          .map(TreeNode::toString)
+          .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Creates a {@link DefaultMutableTreeNode} with the given name
+     *
+     * @param pName Name that the node should have
+     * @return the node
+     */
+    @NonNull
+    private DefaultMutableTreeNode createTreeNode(@NonNull String pName)
+    {
+      PropertyNode node = mock(PropertyNode.class, Answers.CALLS_REAL_METHODS);
+      doReturn(pName).when(node).nameForDisplay(any());
+      doReturn(pName).when(node).toString();
+      node.setAllowsChildren(true);
+      return node;
+    }
+
+  }
+
 }
\ No newline at end of file